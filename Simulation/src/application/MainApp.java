@@ -6,8 +6,12 @@ import java.util.Scanner;
 
 import draw.StdDraw;
 import queues_analytical.M_M_c_L;
+import queues_analytical.M_M_c_L_Breakdown;
 import randomGens.ExponentialGenerator;
+import randomGens.GeneratorTestSuite;
 import randomGens.TestGenerator;
+import randomGens.UniformStream;
+import simulationModels.ControlVariateRunner;
 import simulationModels.MMCL;
 import simulationModels.MMCLBreakdown;
 
@@ -23,7 +27,7 @@ public class MainApp {
 		Scanner in = new Scanner(System.in);
 		System.out.println("\n--------------------------------------------------------------");
 		System.out.println("\nMain Menu:");
-		System.out.println("1->M/M/C/L \n2->M/M/C/L (w/breakdowns and repairs) \n3->Test Input Generator \nelse->exit");
+		System.out.println("1->M/M/C/L \n2->M/M/C/L (w/breakdowns and repairs) \n3->Test Input Generator \n4->M/M/C/L (control variates) \nelse->exit");
 		System.out.print("Your choice: ");
 		try {
 		choice = in.nextInt();
@@ -31,7 +35,7 @@ public class MainApp {
 		} catch (InputMismatchException e) {
 			in.nextLine();
 			System.out.println("Invalid input; please enter integers only for the menu options!!");
-			choice = 4;
+			choice = -1;
 			errorFlag = true;
 		}
 		while(exit != 1)
@@ -120,19 +124,28 @@ public class MainApp {
 					if(mttr <= 0)
 						throw new Exception("Error: Mean time to repair has to be positive");
 					
-					System.out.println("1->One Repairman, 2->Multiple Repairmen: ");
+					System.out.println("1->One Repairman, 2->Multiple Repairmen, 3->k Repairmen: ");
 					temp = in.nextInt();
 					in.nextLine();
-					if(temp != 1 && temp != 2)
+					if(temp != 1 && temp != 2 && temp != 3)
 						throw new Exception("Invalid choice!!");
-					if(temp == 2)
+					if(temp == 3) {
+						System.out.println("Enter number of Repairmen (k): ");
+						temp = in.nextInt();
+						in.nextLine();
+						if(temp < 1)
+							throw new Exception("Error: The number of repairmen has to be 1 or more");
+						mmclBreakdown.setNumberOfRepairMen(temp);
+					} else if(temp == 2)
 						mmclBreakdown.setMultipleRepairMen(true);
 					else 
 						mmclBreakdown.setMultipleRepairMen(false);
 					
 					mmclBreakdown.startSimulation(miat, mst, mtbf, mttr);
 					
-					mmclBreakdown.calculateMetrics_unreliable();
+					theoriticalModel = new M_M_c_L_Breakdown(1/miat, 1/mst, c, maxLength, 1/mtbf, 1/mttr,
+							mmclBreakdown.getNumberOfRepairMen());
+					mmclBreakdown.calculateMetrics_unreliable((M_M_c_L_Breakdown)theoriticalModel);
 					
 					break;
 					
@@ -144,8 +157,47 @@ public class MainApp {
 					if(tempDouble <= 0)
 						throw new Exception("Error: Only positive means are allowed in this test");
 					
-					TestGenerator.test(new ExponentialGenerator(tempDouble));
+					final double testMean = tempDouble;
+					final long samples = 10000000; //a few seconds, long runs go through TestGenerator and GeneratorTestSuite directly
+					TestGenerator.test(shard -> new ExponentialGenerator(testMean, new UniformStream(UniformStream.mix(shard))), samples);
+					//seeds far from the shards of the histogram test, so the suite checks other streams
+					GeneratorTestSuite.exponential(testMean, 1L << 32).run(samples);
 					break;	
+					
+				case 4:
+					
+					System.out.println("Enter number of Servers: ");
+					c = in.nextInt();
+					in.nextLine();
+					if(c<1)
+						throw new Exception("Error: The number of servers has to be 1 or more");
+					
+					System.out.println("Enter L (maximum number of jobs in the system at a time): ");
+					maxLength = in.nextInt();
+					in.nextLine();
+					if(maxLength < c)
+						throw new Exception("Error: L is not allowed to be smaller than c. It means c-L servers are useless!! (it messes up with our analytical model)");
+					
+					System.out.println("Enter mean inter-arrival TIME (minutes): ");
+					miat = in.nextDouble();
+					in.nextLine();
+					if(miat <= 0)
+						throw new Exception("Error: Mean inter-arrival time has to be positive");
+					
+					System.out.println("Enter mean service TIME (minutes): ");
+					mst = in.nextDouble();
+					in.nextLine();
+					if(mst <= 0)
+						throw new Exception("Error: Mean service time has to be positive");
+					
+					System.out.println("Enter number of replications: ");
+					temp = in.nextInt();
+					in.nextLine();
+					
+					ControlVariateRunner cvRunner = new ControlVariateRunner(c, maxLength, miat, mst, temp);
+					cvRunner.run();
+					cvRunner.showResults();
+					break;
 						
 				default:
 					if(errorFlag)
@@ -166,7 +218,7 @@ public class MainApp {
 			{
 				System.out.println("\n--------------------------------------------------------------");
 				System.out.println("\nMain Menu:");
-				System.out.println("1->M/M/C/L \n2->M/M/C/L (w/breakdowns and repairs) \n3->Test Input Generator \nelse->exit");
+				System.out.println("1->M/M/C/L \n2->M/M/C/L (w/breakdowns and repairs) \n3->Test Input Generator \n4->M/M/C/L (control variates) \nelse->exit");
 				System.out.print("Your choice: ");
 				try {
 				choice = in.nextInt();
@@ -174,7 +226,7 @@ public class MainApp {
 				} catch (InputMismatchException e) {
 					in.nextLine();
 					System.out.println("Invalid input; please enter integers only for the menu options!!");
-					choice = 4;
+					choice = -1;
 					errorFlag = true;
 				}
 			}
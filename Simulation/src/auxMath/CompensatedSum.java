@@ -0,0 +1,39 @@
+package auxMath;
+
+//a running sum that keeps the rounding error of every addition (Neumaier's variant of Kahan summation), so adding
+//10^11 small terms to a large total loses no more than a couple of ulps instead of drifting with the number of terms
+public class CompensatedSum {
+
+	private double sum;
+	private double compensation; //the low order bits lost so far
+
+	public void add(double value) {
+		double t = sum + value;
+		if(Math.abs(sum) >= Math.abs(value))
+			compensation += (sum - t) + value;
+		else
+			compensation += (value - t) + sum;
+		sum = t;
+	}
+
+	public double getSum() {
+		return sum + compensation;
+	}
+
+	public void reset() {
+		sum = 0;
+		compensation = 0;
+	}
+
+	//same update on a pair of arrays, for many sums kept side by side (sums[i] + compensations[i])
+	public static void add(double[] sums, double[] compensations, int i, double value) {
+		double s = sums[i];
+		double t = s + value;
+		if(Math.abs(s) >= Math.abs(value))
+			compensations[i] += (s - t) + value;
+		else
+			compensations[i] += (value - t) + s;
+		sums[i] = t;
+	}
+
+}
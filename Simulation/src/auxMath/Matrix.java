@@ -0,0 +1,144 @@
+package auxMath;
+
+//small dense matrix helpers (row major double[][])
+public class Matrix {
+
+	//solves A x = b by Gaussian elimination with partial pivoting, A and b are left untouched
+	public static double[] solve(double[][] A, double[] b)
+	{
+		int n = b.length;
+		double[][] m = new double[n][n + 1];
+		for (int i = 0; i < n; i++) {
+			System.arraycopy(A[i], 0, m[i], 0, n);
+			m[i][n] = b[i];
+		}
+		for (int col = 0; col < n; col++) {
+			int pivot = col;
+			for (int i = col + 1; i < n; i++) {
+				if(Math.abs(m[i][col]) > Math.abs(m[pivot][col]))
+					pivot = i;
+			}
+			if(m[pivot][col] == 0)
+				throw new ArithmeticException("Singular matrix");
+			double[] tempRow = m[col];
+			m[col] = m[pivot];
+			m[pivot] = tempRow;
+			for (int i = col + 1; i < n; i++) {
+				double factor = m[i][col] / m[col][col];
+				if(factor == 0)
+					continue;
+				for (int j = col; j <= n; j++)
+					m[i][j] -= factor * m[col][j];
+			}
+		}
+		double[] x = new double[n];
+		for (int i = n - 1; i >= 0; i--) {
+			double sum = m[i][n];
+			for (int j = i + 1; j < n; j++)
+				sum -= m[i][j] * x[j];
+			x[i] = sum / m[i][i];
+		}
+		return x;
+	}
+
+	//inverse of A by Gauss-Jordan elimination with partial pivoting
+	public static double[][] inverse(double[][] A)
+	{
+		int n = A.length;
+		double[][] m = new double[n][2*n];
+		for (int i = 0; i < n; i++) {
+			System.arraycopy(A[i], 0, m[i], 0, n);
+			m[i][n + i] = 1;
+		}
+		for (int col = 0; col < n; col++) {
+			int pivot = col;
+			for (int i = col + 1; i < n; i++) {
+				if(Math.abs(m[i][col]) > Math.abs(m[pivot][col]))
+					pivot = i;
+			}
+			if(m[pivot][col] == 0)
+				throw new ArithmeticException("Singular matrix");
+			double[] tempRow = m[col];
+			m[col] = m[pivot];
+			m[pivot] = tempRow;
+			double diagonal = m[col][col];
+			for (int j = 0; j < 2*n; j++)
+				m[col][j] /= diagonal;
+			for (int i = 0; i < n; i++) {
+				if(i == col || m[i][col] == 0)
+					continue;
+				double factor = m[i][col];
+				for (int j = 0; j < 2*n; j++)
+					m[i][j] -= factor * m[col][j];
+			}
+		}
+		double[][] inv = new double[n][n];
+		for (int i = 0; i < n; i++)
+			System.arraycopy(m[i], n, inv[i], 0, n);
+		return inv;
+	}
+
+	//A B
+	public static double[][] multiply(double[][] A, double[][] B)
+	{
+		int n = A.length;
+		int inner = B.length;
+		int m = B[0].length;
+		double[][] product = new double[n][m];
+		for (int i = 0; i < n; i++) {
+			for (int k = 0; k < inner; k++) {
+				double a = A[i][k];
+				if(a == 0)
+					continue;
+				for (int j = 0; j < m; j++)
+					product[i][j] += a * B[k][j];
+			}
+		}
+		return product;
+	}
+
+	//x A for a row vector x
+	public static double[] multiply(double[] x, double[][] A)
+	{
+		double[] product = new double[A[0].length];
+		for (int k = 0; k < x.length; k++) {
+			if(x[k] == 0)
+				continue;
+			for (int j = 0; j < product.length; j++)
+				product[j] += x[k] * A[k][j];
+		}
+		return product;
+	}
+
+	//A x for a column vector x
+	public static double[] multiply(double[][] A, double[] x)
+	{
+		double[] product = new double[A.length];
+		for (int i = 0; i < A.length; i++) {
+			double sum = 0;
+			for (int j = 0; j < x.length; j++)
+				sum += A[i][j] * x[j];
+			product[i] = sum;
+		}
+		return product;
+	}
+
+	//A + B
+	public static double[][] add(double[][] A, double[][] B)
+	{
+		double[][] sum = new double[A.length][A[0].length];
+		for (int i = 0; i < A.length; i++) {
+			for (int j = 0; j < A[0].length; j++)
+				sum[i][j] = A[i][j] + B[i][j];
+		}
+		return sum;
+	}
+
+	public static double[][] identity(int n)
+	{
+		double[][] I = new double[n][n];
+		for (int i = 0; i < n; i++)
+			I[i][i] = 1;
+		return I;
+	}
+}
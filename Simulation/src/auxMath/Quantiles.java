@@ -0,0 +1,68 @@
+package auxMath;
+
+public class Quantiles {
+
+	//inverse of the standard normal CDF (Acklam's rational approximation, relative error < 1.2e-9)
+	public static double normal(double p)
+	{
+		if(p <= 0 || p >= 1)
+			throw new IllegalArgumentException("p has to be in (0, 1)");
+		final double[] a = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+				1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+		final double[] b = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+				6.680131188771972e+01, -1.328068155288572e+01};
+		final double[] c = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+				-2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+		final double[] d = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+				3.754408661907416e+00};
+		double q, r;
+		if(p < 0.02425) {
+			q = Math.sqrt(-2*Math.log(p));
+			return (((((c[0]*q+c[1])*q+c[2])*q+c[3])*q+c[4])*q+c[5]) / ((((d[0]*q+d[1])*q+d[2])*q+d[3])*q+1);
+		} else if(p > 1 - 0.02425) {
+			q = Math.sqrt(-2*Math.log(1-p));
+			return -(((((c[0]*q+c[1])*q+c[2])*q+c[3])*q+c[4])*q+c[5]) / ((((d[0]*q+d[1])*q+d[2])*q+d[3])*q+1);
+		} else {
+			q = p - 0.5;
+			r = q*q;
+			return (((((a[0]*r+a[1])*r+a[2])*r+a[3])*r+a[4])*r+a[5])*q / (((((b[0]*r+b[1])*r+b[2])*r+b[3])*r+b[4])*r+1);
+		}
+	}
+
+	//upper tail of the standard normal distribution, P(Z > z), from the complementary error function (Chebyshev
+	//fit, relative error < 1.2e-7 everywhere, so small p-values stay accurate)
+	public static double normalUpperTail(double z)
+	{
+		double x = z / Math.sqrt(2);
+		double t = 1 / (1 + 0.5*Math.abs(x));
+		double erfc = t*Math.exp(-x*x - 1.26551223 + t*(1.00002368 + t*(0.37409196 + t*(0.09678418 + t*(-0.18628806
+				+ t*(0.27886807 + t*(-1.13520398 + t*(1.48851587 + t*(-0.82215223 + t*0.17087277)))))))));
+		return x >= 0 ? erfc/2 : 1 - erfc/2;
+	}
+
+	//inverse of the Student t CDF with df degrees of freedom (Cornish-Fisher expansion around the normal quantile)
+	public static double studentT(double p, int df)
+	{
+		if(df < 1)
+			throw new IllegalArgumentException("The degrees of freedom have to be 1 or more");
+		if(df == 1)
+			return Math.tan(Math.PI*(p - 0.5)); //Cauchy, exact
+		if(df == 2)
+			return (2*p - 1) / Math.sqrt(2*p*(1 - p)); //exact
+		double z = normal(p);
+		double z2 = z*z;
+		double n = df;
+		return z + z*(z2 + 1)/(4*n)
+				+ z*((5*z2 + 16)*z2 + 3)/(96*n*n)
+				+ z*(((3*z2 + 19)*z2 + 17)*z2 - 15)/(384*n*n*n)
+				+ z*((((79*z2 + 776)*z2 + 1482)*z2 - 1920)*z2 - 945)/(92160*n*n*n*n);
+	}
+
+	//half width of a two sided confidence interval around the mean of n observations with the given sample variance
+	public static double halfWidth(double sampleVariance, int n, double confidenceLevel)
+	{
+		if(n < 2)
+			return Double.POSITIVE_INFINITY;
+		return studentT(1 - (1 - confidenceLevel)/2, n - 1) * Math.sqrt(sampleVariance / n);
+	}
+}
@@ -0,0 +1,113 @@
+package components;
+
+import java.util.Arrays;
+
+//future event list: a binary min-heap on the event time kept in parallel primitive arrays (no object per event)
+//every event carries a type and an int (the station, server, ... it belongs to)
+public class EventList {
+
+	private double[] times;
+	private int[] types;
+	private int[] data;
+	private int size;
+	//the last event removed by poll()
+	private double polledTime;
+	private int polledType;
+	private int polledData;
+
+	public EventList() {
+		this(16);
+	}
+
+	public EventList(int initialCapacity) {
+		times = new double[Math.max(initialCapacity, 2)];
+		types = new int[times.length];
+		data = new int[times.length];
+		size = 0;
+	}
+
+	public void add(double time, int type, int eventData) {
+		if(size == times.length)
+			grow();
+		int i = size++;
+		//sift up
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if(times[parent] <= time)
+				break;
+			times[i] = times[parent];
+			types[i] = types[parent];
+			data[i] = data[parent];
+			i = parent;
+		}
+		times[i] = time;
+		types[i] = type;
+		data[i] = eventData;
+	}
+
+	//removes the earliest event, read it with getPolledTime(), getPolledType() and getPolledData()
+	public void poll() {
+		if(size == 0)
+			throw new IllegalStateException("The event list is empty");
+		polledTime = times[0];
+		polledType = types[0];
+		polledData = data[0];
+		size--;
+		if(size > 0)
+			siftDown(0, times[size], types[size], data[size]);
+	}
+
+	private void siftDown(int i, double time, int type, int eventData) {
+		int half = size >>> 1;
+		while (i < half) {
+			int child = 2*i + 1;
+			if(child + 1 < size && times[child + 1] < times[child])
+				child++;
+			if(time <= times[child])
+				break;
+			times[i] = times[child];
+			types[i] = types[child];
+			data[i] = data[child];
+			i = child;
+		}
+		times[i] = time;
+		types[i] = type;
+		data[i] = eventData;
+	}
+
+	private void grow() {
+		int capacity = times.length * 2;
+		times = Arrays.copyOf(times, capacity);
+		types = Arrays.copyOf(types, capacity);
+		data = Arrays.copyOf(data, capacity);
+	}
+
+	public double peekTime() {
+		return size == 0 ? Double.POSITIVE_INFINITY : times[0];
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	public double getPolledTime() {
+		return polledTime;
+	}
+
+	public int getPolledType() {
+		return polledType;
+	}
+
+	public int getPolledData() {
+		return polledData;
+	}
+
+}
@@ -1,26 +1,43 @@
 package components;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 public class Job {
 
-	private static int nextID = 0;
-	private int id;
+	private static final AtomicLong nextID = new AtomicLong(); //jobs can be made on several threads
+	private long id;
 	private double arrivalTime;
 	private double serviceTime;
 	private double serviceStartTime;
 	
 	public Job(double arrTime, double serTime)
 	{
-		this.id = nextID++;
+		this(nextID.getAndIncrement(), arrTime, serTime);
+	}
+	
+	//a job with an id given by the caller (e.g. numbered per station, so that the ids don't depend on the threads)
+	public Job(long id, double arrTime, double serTime)
+	{
+		this.id = id;
 		this.arrivalTime = arrTime;
 		this.serviceTime = serTime;
 		this.serviceStartTime = -1;
 	}
 	
-	public int getId() {
+	//copy of a job (same id) for cloned simulation states
+	public Job(Job other)
+	{
+		this.id = other.id;
+		this.arrivalTime = other.arrivalTime;
+		this.serviceTime = other.serviceTime;
+		this.serviceStartTime = other.serviceStartTime;
+	}
+	
+	public long getId() {
 		return id;
 	}
 
-	public void setId(int id) {
+	public void setId(long id) {
 		this.id = id;
 	}
 
@@ -0,0 +1,133 @@
+package components;
+
+import java.util.ArrayDeque;
+import java.util.PriorityQueue;
+
+import randomGens.RandomGenerator;
+
+//the repairmen of an unreliable system: k repairmen, broken servers wait for a free one in a FIFO or a priority
+//queue, and the repairs in progress are kept in a heap on their completion time, so a failure or a repair costs
+//O(log n) whatever the number of servers
+public class RepairCrew {
+
+	//repair queue disciplines
+	public static final int FIFO = 0;
+	public static final int PRIORITY = 1; //lowest priority value first, FIFO among equal priorities
+	public static final int UNLIMITED = Integer.MAX_VALUE; //one repairman for every broken server
+
+	private int numberOfRepairMen;
+	private int busyRepairMen;
+	private int discipline;
+	private RandomGenerator repairTimeGenerator;
+	private EventList repairs; //repairs in progress: completion time, data = server
+	private ArrayDeque<Integer> fifoQueue;
+	private PriorityQueue<Integer> priorityQueue;
+	private double[] priorities; //per server
+	private double[] failureTimes; //per server
+	private long[] failureOrder; //per server, breaks the ties of the priority queue
+	private long numberOfFailures;
+	private double totalWaitForRepairman; //time broken servers spent waiting for a repairman
+	private long numberOfRepairs;
+
+	public RepairCrew(int numberOfServers, int numberOfRepairMen, int discipline, RandomGenerator repairTimeGenerator) {
+		if(numberOfRepairMen < 1)
+			throw new IllegalArgumentException("Error: The number of repairmen has to be 1 or more");
+		if(discipline != FIFO && discipline != PRIORITY)
+			throw new IllegalArgumentException("Error: Unknown repair discipline " + discipline);
+		this.numberOfRepairMen = numberOfRepairMen;
+		this.discipline = discipline;
+		this.repairTimeGenerator = repairTimeGenerator;
+		this.repairs = new EventList(Math.min(numberOfServers, numberOfRepairMen));
+		this.fifoQueue = new ArrayDeque<>();
+		this.priorities = new double[numberOfServers];
+		this.failureTimes = new double[numberOfServers];
+		this.failureOrder = new long[numberOfServers];
+		this.priorityQueue = new PriorityQueue<>(Math.max(numberOfServers, 1), (a, b) -> {
+			int byPriority = Double.compare(priorities[a], priorities[b]);
+			return byPriority != 0 ? byPriority : Long.compare(failureOrder[a], failureOrder[b]);
+		});
+	}
+
+	//a server broke down at the given time: a free repairman starts right away, otherwise it waits in the queue
+	public void fail(int server, double clock) {
+		failureTimes[server] = clock;
+		failureOrder[server] = numberOfFailures++;
+		if(busyRepairMen < numberOfRepairMen)
+			startRepair(server, clock);
+		else if(discipline == FIFO)
+			fifoQueue.add(server);
+		else
+			priorityQueue.add(server);
+	}
+
+	private void startRepair(int server, double clock) {
+		busyRepairMen++;
+		totalWaitForRepairman += clock - failureTimes[server];
+		repairs.add(clock + repairTimeGenerator.generate(), 0, server);
+	}
+
+	//time of the next repair completion, infinity if nothing is being repaired
+	public double getNextRepairTime() {
+		return repairs.peekTime();
+	}
+
+	//ends the earliest repair and gives its repairman the next server in the queue, returns the repaired server
+	public int completeRepair() {
+		repairs.poll();
+		double clock = repairs.getPolledTime();
+		int repaired = repairs.getPolledData();
+		busyRepairMen--;
+		numberOfRepairs++;
+		Integer next = discipline == FIFO ? fifoQueue.poll() : priorityQueue.poll();
+		if(next != null)
+			startRepair(next, clock);
+		return repaired;
+	}
+
+	public void clear() {
+		repairs.clear();
+		fifoQueue.clear();
+		priorityQueue.clear();
+		busyRepairMen = 0;
+		numberOfFailures = 0;
+		numberOfRepairs = 0;
+		totalWaitForRepairman = 0;
+	}
+
+	public int getNumberOfRepairMen() {
+		return numberOfRepairMen;
+	}
+
+	public int getBusyRepairMen() {
+		return busyRepairMen;
+	}
+
+	//broken servers waiting for a repairman
+	public int getQueueLength() {
+		return discipline == FIFO ? fifoQueue.size() : priorityQueue.size();
+	}
+
+	public int getDiscipline() {
+		return discipline;
+	}
+
+	//lower values are repaired first (PRIORITY discipline only), set it before the server fails
+	public void setPriority(int server, double priority) {
+		priorities[server] = priority;
+	}
+
+	public double getPriority(int server) {
+		return priorities[server];
+	}
+
+	public long getNumberOfRepairs() {
+		return numberOfRepairs;
+	}
+
+	//mean time a broken server waited for a repairman, over the repairs started so far
+	public double getMeanWaitForRepairman() {
+		long started = numberOfRepairs + busyRepairMen;
+		return started == 0 ? 0 : totalWaitForRepairman / started;
+	}
+
+}
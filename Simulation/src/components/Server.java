@@ -1,22 +1,36 @@
 package components;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 public class Server {
 
-	private static double nextID = 0;
+	private static final AtomicLong nextID = new AtomicLong(); //servers can be made on several threads
 	private double id;
 	private double timeLastBreakDown = -1;
-	private double timeToRepair = -1;
+	private double timeToRepair = -1; //only set by breakDown(time, repairTime), the simulations keep the repair times in RepairCrew
+	private boolean broken; //down from the breakdown until the repair ends
 	private boolean emptyStatus; //True is empty, false is not empty 
 	private Job jobBeingServed;
 	
 	
 	public Server()
 	{
-		this.id = nextID++;
+		this.id = nextID.getAndIncrement();
 		emptyStatus = true;
 		jobBeingServed = null;
 	} 
 	
+	//copy of a server (same id), the job being served is copied too
+	public Server(Server other)
+	{
+		this.id = other.id;
+		this.timeLastBreakDown = other.timeLastBreakDown;
+		this.timeToRepair = other.timeToRepair;
+		this.broken = other.broken;
+		this.emptyStatus = other.emptyStatus;
+		this.jobBeingServed = other.jobBeingServed == null ? null : new Job(other.jobBeingServed);
+	}
+	
 	//Add new job to the server
 	public void addJob(Job job, double clock) {
 		job.setServiceStartTime(clock);
@@ -35,24 +49,31 @@ public class Server {
 	}
 	
 	//BreakDown status
-	public boolean isBrokeDown(double currentTime) {
-		return currentTime >= (this.timeLastBreakDown + this.timeToRepair) ? false : true;
+	public boolean isBroken() {
+		return broken;
 	}
 	
 	//Repaired
 	public void repair() {
 		this.timeLastBreakDown = -1;
 		this.timeToRepair = -1;
+		this.broken = false;
 		this.emptyStatus = true;
 		this.jobBeingServed = null; 
 	}
-	//Breakdown
-	public void breakDown(double breakdownTime, double repairTime) {
+	//Breakdown, the repair time is not known yet (the server may wait for a repairman)
+	public void breakDown(double breakdownTime) {
 		this.timeLastBreakDown = breakdownTime;
-		this.timeToRepair = repairTime;
+		this.timeToRepair = -1;
+		this.broken = true;
 		this.emptyStatus = true;
 		this.jobBeingServed = null; //drop the job from the server
 	}
+	//Breakdown with a known repair time
+	public void breakDown(double breakdownTime, double repairTime) {
+		breakDown(breakdownTime);
+		this.timeToRepair = repairTime;
+	}
 
 	public double getId() {
 		return id;
@@ -94,8 +115,4 @@ public class Server {
 		this.jobBeingServed = jobBeingServed;
 	}
 	
-	public double getRepairedTime() {
-		return timeLastBreakDown + timeToRepair;
-	}
-	
 }
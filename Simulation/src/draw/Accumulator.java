@@ -0,0 +1,204 @@
+/******************************************************************************
+ *  Compilation:  javac Accumulator.java
+ *  Execution:    none
+ *  Dependencies: none
+ *
+ *  Mutable data type that computes the count, mean, sample variance,
+ *  minimum and maximum of a stream of real numbers in a single pass
+ *  and without storing them. Two accumulators can be merged, so the
+ *  data can be split among threads and the partial results combined.
+ *
+ ******************************************************************************/
+
+package draw;
+
+/**
+ *  The {@code Accumulator} class is a data type for computing the running
+ *  mean, sample variance, minimum and maximum of a stream of real numbers.
+ *  Single values are added with Welford's update. Arrays are added block by
+ *  block: a block small enough to stay in the cache gets an exact two-pass
+ *  mean and sum of squared deviations, and the blocks are combined with the
+ *  pairwise update of Chan, Golub and LeVeque, which is also used by
+ *  {@link #merge(Accumulator)}.
+ *  <p>
+ *  As in {@link StdStats}, the floating-point results are NaN if any value is NaN.
+ */
+public class Accumulator {
+    private static final int BLOCK = 2048;   // 16 KB of doubles, stays in the L1 cache
+
+    private long n;                          // number of data values
+    private double mean;                     // sample mean
+    private double m2;                       // sum of squared deviations from the mean
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private boolean nan;                     // a NaN was added
+
+    /**
+     * Initializes an accumulator with no data values.
+     */
+    public Accumulator() { }
+
+    /**
+     * Adds the specified data value to the accumulator.
+     *
+     * @param  x the data value
+     */
+    public void addDataValue(double x) {
+        if (Double.isNaN(x)) nan = true;
+        n++;
+        double delta = x - mean;
+        mean += delta / n;
+        m2 += delta * (x - mean);
+        if (x < min) min = x;
+        if (x > max) max = x;
+    }
+
+    /**
+     * Adds the values of the specified subarray to the accumulator.
+     *
+     * @param  a the array
+     * @param  lo the left endpoint of the subarray (inclusive)
+     * @param  hi the right endpoint of the subarray (exclusive)
+     * @throws IllegalArgumentException if {@code a} is {@code null}
+     * @throws IllegalArgumentException unless {@code (0 <= lo) && (lo <= hi) && (hi <= a.length)}
+     */
+    public void addAll(double[] a, int lo, int hi) {
+        if (a == null) throw new IllegalArgumentException("argument is null");
+        if (lo < 0 || hi > a.length || lo > hi)
+            throw new IllegalArgumentException("subarray indices out of bounds: [" + lo + ", " + hi + ")");
+        for (int start = lo; start < hi; start += BLOCK) {
+            int end = Math.min(start + BLOCK, hi);
+            double sum = 0.0;
+            double blockMin = Double.POSITIVE_INFINITY;
+            double blockMax = Double.NEGATIVE_INFINITY;
+            for (int i = start; i < end; i++) {
+                double x = a[i];
+                sum += x;
+                if (x < blockMin) blockMin = x;
+                if (x > blockMax) blockMax = x;
+            }
+            int length = end - start;
+            double blockMean = sum / length;
+            // second pass over the block, from the cache: corrected two-pass algorithm
+            double squares = 0.0;
+            double deviations = 0.0;
+            for (int i = start; i < end; i++) {
+                double d = a[i] - blockMean;
+                squares += d * d;
+                deviations += d;
+            }
+            if (Double.isNaN(sum)) nan = true;
+            combine(length, blockMean, squares - deviations * deviations / length, blockMin, blockMax);
+        }
+    }
+
+    /**
+     * Adds all the values of the specified array to the accumulator.
+     *
+     * @param  a the array
+     * @throws IllegalArgumentException if {@code a} is {@code null}
+     */
+    public void addAll(double[] a) {
+        if (a == null) throw new IllegalArgumentException("argument is null");
+        addAll(a, 0, a.length);
+    }
+
+    /**
+     * Adds the data values of another accumulator to this one (the other one is unchanged).
+     *
+     * @param  that the other accumulator
+     */
+    public void merge(Accumulator that) {
+        if (that.nan) nan = true;
+        combine(that.n, that.mean, that.m2, that.min, that.max);
+    }
+
+    // Chan et al.: the mean and the squared deviations of the union of two sets
+    private void combine(long count, double otherMean, double otherM2, double otherMin, double otherMax) {
+        if (count == 0) return;
+        long total = n + count;
+        double delta = otherMean - mean;
+        mean += delta * count / total;
+        m2 += otherM2 + delta * delta * ((double) n * count / total);
+        n = total;
+        if (otherMin < min) min = otherMin;
+        if (otherMax > max) max = otherMax;
+    }
+
+    /**
+     * Returns the number of data values.
+     *
+     * @return the number of data values
+     */
+    public long count() {
+        return n;
+    }
+
+    /**
+     * Returns the mean of the data values.
+     *
+     * @return the mean of the data values; {@code Double.NaN} if no such value
+     */
+    public double mean() {
+        if (n == 0 || nan) return Double.NaN;
+        return mean;
+    }
+
+    /**
+     * Returns the sample variance of the data values.
+     *
+     * @return the sample variance of the data values; {@code Double.NaN} if fewer than 2 values
+     */
+    public double var() {
+        if (n <= 1 || nan) return Double.NaN;
+        return m2 / (n - 1);
+    }
+
+    /**
+     * Returns the population variance of the data values.
+     *
+     * @return the population variance of the data values; {@code Double.NaN} if no such value
+     */
+    public double varp() {
+        if (n == 0 || nan) return Double.NaN;
+        return m2 / n;
+    }
+
+    /**
+     * Returns the sample standard deviation of the data values.
+     *
+     * @return the sample standard deviation of the data values; {@code Double.NaN} if fewer than 2 values
+     */
+    public double stddev() {
+        return Math.sqrt(var());
+    }
+
+    /**
+     * Returns the smallest data value.
+     *
+     * @return the smallest data value; {@code Double.POSITIVE_INFINITY} if no such value
+     */
+    public double min() {
+        if (nan) return Double.NaN;
+        return min;
+    }
+
+    /**
+     * Returns the largest data value.
+     *
+     * @return the largest data value; {@code Double.NEGATIVE_INFINITY} if no such value
+     */
+    public double max() {
+        if (nan) return Double.NaN;
+        return max;
+    }
+
+    /**
+     * Returns a string representation of this accumulator.
+     *
+     * @return a string representation of this accumulator
+     */
+    public String toString() {
+        return "n = " + n + ", mean = " + mean() + ", stddev = " + stddev() + ", min = " + min() + ", max = " + max();
+    }
+}
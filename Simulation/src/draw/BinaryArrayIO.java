@@ -0,0 +1,342 @@
+/******************************************************************************
+ *  Compilation:  javac BinaryArrayIO.java
+ *  Execution:    none
+ *  Dependencies: none
+ *
+ *  Reads and writes 1D and 2D arrays of doubles and ints in a binary file:
+ *  a 24 byte header followed by the values in little-endian order, row by row.
+ *
+ *  header (little-endian ints):
+ *    magic  0x4F494153 ("SAIO")
+ *    type   1 = double, 2 = int
+ *    rank   1 or 2
+ *    rows   number of values of a 1D array, number of rows of a 2D array
+ *    cols   1 for a 1D array
+ *    0      (keeps the values 8 byte aligned)
+ *
+ ******************************************************************************/
+
+package draw;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ *  The {@code BinaryArrayIO} class provides static methods for saving arrays
+ *  to binary files and loading them back. Files are written through a
+ *  {@link FileChannel} in large direct buffers and read by memory mapping
+ *  them (in windows of at most 1 GB, so arrays of several GB work as well),
+ *  which runs at the speed of the disk or the page cache instead of the
+ *  few MB/s of parsing text.
+ */
+public final class BinaryArrayIO {
+
+    public static final int MAGIC = 0x4F494153;
+    public static final int DOUBLE = 1;
+    public static final int INT = 2;
+    public static final int HEADER_BYTES = 24;
+
+    private static final int WRITE_BUFFER = 1 << 20;
+    private static final long MAP_WINDOW = 1L << 30;
+
+    // it doesn't make sense to instantiate this class
+    private BinaryArrayIO() { }
+
+    /**
+     * Writes a 1D array of doubles to the specified file.
+     *
+     * @param filename the name of the file
+     * @param a the array
+     */
+    public static void write(String filename, double[] a) {
+        try (FileChannel channel = openForWriting(filename)) {
+            writeHeader(channel, DOUBLE, 1, a.length, 1);
+            writeDoubles(channel, a);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("could not write " + filename, e);
+        }
+    }
+
+    /**
+     * Writes a 2D array of doubles to the specified file (all rows must have the same length).
+     *
+     * @param filename the name of the file
+     * @param a the array
+     */
+    public static void write(String filename, double[][] a) {
+        int cols = validateRectangular(a.length == 0 ? 0 : a[0].length, a);
+        try (FileChannel channel = openForWriting(filename)) {
+            writeHeader(channel, DOUBLE, 2, a.length, cols);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+            for (double[] row : a)
+                putDoubles(channel, buffer, row);
+            flush(channel, buffer);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("could not write " + filename, e);
+        }
+    }
+
+    /**
+     * Writes a 1D array of ints to the specified file.
+     *
+     * @param filename the name of the file
+     * @param a the array
+     */
+    public static void write(String filename, int[] a) {
+        try (FileChannel channel = openForWriting(filename)) {
+            writeHeader(channel, INT, 1, a.length, 1);
+            writeInts(channel, a);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("could not write " + filename, e);
+        }
+    }
+
+    /**
+     * Writes a 2D array of ints to the specified file (all rows must have the same length).
+     *
+     * @param filename the name of the file
+     * @param a the array
+     */
+    public static void write(String filename, int[][] a) {
+        int cols = validateRectangular(a.length == 0 ? 0 : a[0].length, a);
+        try (FileChannel channel = openForWriting(filename)) {
+            writeHeader(channel, INT, 2, a.length, cols);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+            for (int[] row : a)
+                putInts(channel, buffer, row);
+            flush(channel, buffer);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("could not write " + filename, e);
+        }
+    }
+
+    /**
+     * Reads a 1D array of doubles from the specified file.
+     *
+     * @param filename the name of the file
+     * @return the 1D array of doubles
+     */
+    public static double[] readDouble1D(String filename) {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            int[] header = readHeader(channel, DOUBLE, 1, filename);
+            double[] a = new double[header[0]];
+            readDoubles(channel, HEADER_BYTES, a);
+            return a;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("could not read " + filename, e);
+        }
+    }
+
+    /**
+     * Reads a 2D array of doubles from the specified file.
+     *
+     * @param filename the name of the file
+     * @return the 2D array of doubles
+     */
+    public static double[][] readDouble2D(String filename) {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            int[] header = readHeader(channel, DOUBLE, 2, filename);
+            double[][] a = new double[header[0]][header[1]];
+            readDoubleRows(channel, HEADER_BYTES, a);
+            return a;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("could not read " + filename, e);
+        }
+    }
+
+    /**
+     * Reads a 1D array of ints from the specified file.
+     *
+     * @param filename the name of the file
+     * @return the 1D array of ints
+     */
+    public static int[] readInt1D(String filename) {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            int[] header = readHeader(channel, INT, 1, filename);
+            int[] a = new int[header[0]];
+            readInts(channel, HEADER_BYTES, a);
+            return a;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("could not read " + filename, e);
+        }
+    }
+
+    /**
+     * Reads a 2D array of ints from the specified file.
+     *
+     * @param filename the name of the file
+     * @return the 2D array of ints
+     */
+    public static int[][] readInt2D(String filename) {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            int[] header = readHeader(channel, INT, 2, filename);
+            int[][] a = new int[header[0]][header[1]];
+            readIntRows(channel, HEADER_BYTES, a);
+            return a;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("could not read " + filename, e);
+        }
+    }
+
+    private static FileChannel openForWriting(String filename) throws IOException {
+        return FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private static int validateRectangular(int cols, Object[] rows) {
+        for (Object row : rows) {
+            int length = row instanceof double[] ? ((double[]) row).length : ((int[]) row).length;
+            if (length != cols) throw new IllegalArgumentException("rows of different lengths");
+        }
+        return cols;
+    }
+
+    private static void writeHeader(FileChannel channel, int type, int rank, int rows, int cols) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(type).putInt(rank).putInt(rows).putInt(cols).putInt(0);
+        header.flip();
+        writeFully(channel, header);
+    }
+
+    // returns {rows, cols}
+    private static int[] readHeader(FileChannel channel, int type, int rank, String filename) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining())
+            if (channel.read(header, header.position()) < 0)
+                throw new IllegalArgumentException(filename + " is too short to be a binary array file");
+        header.flip();
+        if (header.getInt() != MAGIC) throw new IllegalArgumentException(filename + " is not a binary array file");
+        int fileType = header.getInt();
+        int fileRank = header.getInt();
+        int rows = header.getInt();
+        int cols = header.getInt();
+        if (fileType != type || fileRank != rank)
+            throw new IllegalArgumentException(filename + " holds a " + fileRank + "D array of "
+                                               + (fileType == DOUBLE ? "doubles" : "ints"));
+        long bytes = (long) rows * cols * (type == DOUBLE ? 8 : 4);
+        if (channel.size() < HEADER_BYTES + bytes)
+            throw new IllegalArgumentException(filename + " is truncated");
+        return new int[] { rows, cols };
+    }
+
+    private static void writeDoubles(FileChannel channel, double[] a) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+        putDoubles(channel, buffer, a);
+        flush(channel, buffer);
+    }
+
+    private static void writeInts(FileChannel channel, int[] a) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+        putInts(channel, buffer, a);
+        flush(channel, buffer);
+    }
+
+    // appends the values to the buffer, writing it out whenever it fills up, so the rows of a 2D array share
+    // one buffer and one write per megabyte
+    private static void putDoubles(FileChannel channel, ByteBuffer buffer, double[] a) throws IOException {
+        for (int i = 0; i < a.length; ) {
+            if (buffer.remaining() < 8) flush(channel, buffer);
+            int length = Math.min(buffer.remaining() / 8, a.length - i);
+            buffer.asDoubleBuffer().put(a, i, length);
+            buffer.position(buffer.position() + 8 * length);
+            i += length;
+        }
+    }
+
+    private static void putInts(FileChannel channel, ByteBuffer buffer, int[] a) throws IOException {
+        for (int i = 0; i < a.length; ) {
+            if (buffer.remaining() < 4) flush(channel, buffer);
+            int length = Math.min(buffer.remaining() / 4, a.length - i);
+            buffer.asIntBuffer().put(a, i, length);
+            buffer.position(buffer.position() + 4 * length);
+            i += length;
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        writeFully(channel, buffer);
+        buffer.clear();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+    // maps the file window by window, a window holds a whole number of values
+    private static void readDoubles(FileChannel channel, long position, double[] a) throws IOException {
+        int perWindow = (int) (MAP_WINDOW / 8);
+        for (int i = 0; i < a.length; i += perWindow) {
+            int length = Math.min(perWindow, a.length - i);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position + 8L * i, 8L * length);
+            window.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(a, i, length);
+        }
+    }
+
+    private static void readInts(FileChannel channel, long position, int[] a) throws IOException {
+        int perWindow = (int) (MAP_WINDOW / 4);
+        for (int i = 0; i < a.length; i += perWindow) {
+            int length = Math.min(perWindow, a.length - i);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position + 4L * i, 4L * length);
+            window.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(a, i, length);
+        }
+    }
+
+    // the rows are contiguous, so they are read through the same windows as a 1D array of rows*cols values,
+    // a row that straddles two windows is finished from the next one
+    private static void readDoubleRows(FileChannel channel, long position, double[][] a) throws IOException {
+        long remaining = a.length == 0 ? 0 : (long) a.length * a[0].length;
+        DoubleBuffer window = null;
+        for (double[] row : a) {
+            for (int j = 0; j < row.length; ) {
+                if (window == null || !window.hasRemaining()) {
+                    long length = Math.min(MAP_WINDOW / 8, remaining);
+                    window = channel.map(FileChannel.MapMode.READ_ONLY, position, 8L * length)
+                                    .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+                    position += 8L * length;
+                    remaining -= length;
+                }
+                int length = Math.min(row.length - j, window.remaining());
+                window.get(row, j, length);
+                j += length;
+            }
+        }
+    }
+
+    private static void readIntRows(FileChannel channel, long position, int[][] a) throws IOException {
+        long remaining = a.length == 0 ? 0 : (long) a.length * a[0].length;
+        IntBuffer window = null;
+        for (int[] row : a) {
+            for (int j = 0; j < row.length; ) {
+                if (window == null || !window.hasRemaining()) {
+                    long length = Math.min(MAP_WINDOW / 4, remaining);
+                    window = channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * length)
+                                    .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+                    position += 4L * length;
+                    remaining -= length;
+                }
+                int length = Math.min(row.length - j, window.remaining());
+                window.get(row, j, length);
+                j += length;
+            }
+        }
+    }
+
+}
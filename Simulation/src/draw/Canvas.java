@@ -0,0 +1,608 @@
+/******************************************************************************
+ *  Compilation:  javac Canvas.java
+ *  Execution:    java Canvas
+ *  Dependencies: none
+ *
+ *  An offscreen drawing surface with the coordinate system and the drawing
+ *  methods of StdDraw, but no window: every Canvas object draws into its own
+ *  image, which can be saved to a file. Works in headless mode
+ *  (-Djava.awt.headless=true), and separate canvases can be drawn on by
+ *  separate threads at the same time.
+ *
+ ******************************************************************************/
+
+package draw;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.GeneralPath;
+import java.awt.geom.Line2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import javax.imageio.ImageIO;
+
+/**
+ *  The {@code Canvas} class is an instance-based, offscreen version of
+ *  {@link StdDraw}. It has the same user coordinates (the unit square by
+ *  default), pen radius, pen color and font, and the same methods for
+ *  drawing shapes and text, but it renders into a {@link BufferedImage}
+ *  of its own instead of a window. Nothing is copied to a screen after each
+ *  call, so drawing many shapes is a batch operation by nature; the result
+ *  is written with {@link #save(String)} or taken with {@link #getImage()}.
+ *  <p>
+ *  A canvas is not thread-safe, but different canvases are independent:
+ *  a parameter sweep can render each of its plots on its own canvas in a
+ *  thread pool, without AWT windows and on a headless server.
+ *  <p>
+ *  {@link StdStats} and {@link Histogram} have methods that plot on a canvas.
+ */
+public final class Canvas {
+
+    private static final Color DEFAULT_PEN_COLOR   = Color.BLACK;
+    private static final Color DEFAULT_CLEAR_COLOR = Color.WHITE;
+    private static final double DEFAULT_PEN_RADIUS = 0.002;
+    private static final Font DEFAULT_FONT = new Font("SansSerif", Font.PLAIN, 16);
+
+    // the pen radius is relative to this size, as in StdDraw
+    private static final int REFERENCE_SIZE = 512;
+
+    private final int width, height;
+    private final BufferedImage image;
+    private final Graphics2D graphics;
+
+    private double xmin = 0.0, xmax = 1.0, ymin = 0.0, ymax = 1.0;
+    private Color penColor;
+    private double penRadius;
+    private Font font;
+
+    /**
+     * Initializes a white canvas of the specified size in pixels, with the
+     * unit square as the user coordinates.
+     *
+     * @param  width the width of the canvas in pixels
+     * @param  height the height of the canvas in pixels
+     * @throws IllegalArgumentException unless both {@code width} and
+     *         {@code height} are positive
+     */
+    public Canvas(int width, int height) {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("width and height must be positive");
+        this.width = width;
+        this.height = height;
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        graphics = image.createGraphics();
+        RenderingHints hints = new RenderingHints(RenderingHints.KEY_ANTIALIASING,
+                                                  RenderingHints.VALUE_ANTIALIAS_ON);
+        hints.put(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        hints.put(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        graphics.addRenderingHints(hints);
+        setPenColor(DEFAULT_PEN_COLOR);
+        setPenRadius(DEFAULT_PEN_RADIUS);
+        setFont(DEFAULT_FONT);
+        clear();
+    }
+
+    /**
+     * Returns the width of the canvas in pixels.
+     *
+     * @return the width of the canvas in pixels
+     */
+    public int width() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the canvas in pixels.
+     *
+     * @return the height of the canvas in pixels
+     */
+    public int height() {
+        return height;
+    }
+
+    /**
+     * Sets the <em>x</em>-scale to the specified range.
+     *
+     * @param  min the minimum value of the <em>x</em>-scale
+     * @param  max the maximum value of the <em>x</em>-scale
+     * @throws IllegalArgumentException if {@code (max == min)}
+     */
+    public void setXscale(double min, double max) {
+        if (max - min == 0.0) throw new IllegalArgumentException("the min and max are the same");
+        xmin = min;
+        xmax = max;
+    }
+
+    /**
+     * Sets the <em>y</em>-scale to the specified range.
+     *
+     * @param  min the minimum value of the <em>y</em>-scale
+     * @param  max the maximum value of the <em>y</em>-scale
+     * @throws IllegalArgumentException if {@code (max == min)}
+     */
+    public void setYscale(double min, double max) {
+        if (max - min == 0.0) throw new IllegalArgumentException("the min and max are the same");
+        ymin = min;
+        ymax = max;
+    }
+
+    /**
+     * Sets both the <em>x</em>-scale and the <em>y</em>-scale to the specified range.
+     *
+     * @param  min the minimum value of the <em>x</em>- and <em>y</em>-scales
+     * @param  max the maximum value of the <em>x</em>- and <em>y</em>-scales
+     * @throws IllegalArgumentException if {@code (max == min)}
+     */
+    public void setScale(double min, double max) {
+        setXscale(min, max);
+        setYscale(min, max);
+    }
+
+    // helper functions that scale from user coordinates to screen coordinates
+    private double  scaleX(double x) { return width  * (x - xmin) / (xmax - xmin); }
+    private double  scaleY(double y) { return height * (ymax - y) / (ymax - ymin); }
+    private double factorX(double w) { return w * width  / Math.abs(xmax - xmin); }
+    private double factorY(double h) { return h * height / Math.abs(ymax - ymin); }
+
+    /**
+     * Clears the canvas to the default color (white).
+     */
+    public void clear() {
+        clear(DEFAULT_CLEAR_COLOR);
+    }
+
+    /**
+     * Clears the canvas to the specified color.
+     *
+     * @param color the color to make the background
+     */
+    public void clear(Color color) {
+        graphics.setColor(color);
+        graphics.fillRect(0, 0, width, height);
+        graphics.setColor(penColor);
+    }
+
+    /**
+     * Returns the current pen radius.
+     *
+     * @return the current value of the pen radius
+     */
+    public double getPenRadius() {
+        return penRadius;
+    }
+
+    /**
+     * Sets the pen size to the default size (0.002).
+     */
+    public void setPenRadius() {
+        setPenRadius(DEFAULT_PEN_RADIUS);
+    }
+
+    /**
+     * Sets the radius of the pen to the specified size. As in {@link StdDraw},
+     * the radius is relative to a 512-pixel canvas and is not affected by
+     * coordinate scaling.
+     *
+     * @param  radius the radius of the pen
+     * @throws IllegalArgumentException if {@code radius} is negative
+     */
+    public void setPenRadius(double radius) {
+        if (!(radius >= 0)) throw new IllegalArgumentException("pen radius must be nonnegative");
+        penRadius = radius;
+        float scaledPenRadius = (float) (radius * REFERENCE_SIZE);
+        graphics.setStroke(new BasicStroke(scaledPenRadius, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+    }
+
+    /**
+     * Returns the current pen color.
+     *
+     * @return the current pen color
+     */
+    public Color getPenColor() {
+        return penColor;
+    }
+
+    /**
+     * Sets the pen color to the default color (black).
+     */
+    public void setPenColor() {
+        setPenColor(DEFAULT_PEN_COLOR);
+    }
+
+    /**
+     * Sets the pen color to the specified color.
+     *
+     * @param color the color to make the pen
+     */
+    public void setPenColor(Color color) {
+        if (color == null) throw new IllegalArgumentException();
+        penColor = color;
+        graphics.setColor(penColor);
+    }
+
+    /**
+     * Sets the pen color to the specified RGB color.
+     *
+     * @param  red the amount of red (between 0 and 255)
+     * @param  green the amount of green (between 0 and 255)
+     * @param  blue the amount of blue (between 0 and 255)
+     * @throws IllegalArgumentException if {@code red}, {@code green},
+     *         or {@code blue} is outside its prescribed range
+     */
+    public void setPenColor(int red, int green, int blue) {
+        if (red   < 0 || red   >= 256) throw new IllegalArgumentException("amount of red must be between 0 and 255");
+        if (green < 0 || green >= 256) throw new IllegalArgumentException("amount of green must be between 0 and 255");
+        if (blue  < 0 || blue  >= 256) throw new IllegalArgumentException("amount of blue must be between 0 and 255");
+        setPenColor(new Color(red, green, blue));
+    }
+
+    /**
+     * Returns the current font.
+     *
+     * @return the current font
+     */
+    public Font getFont() {
+        return font;
+    }
+
+    /**
+     * Sets the font to the default font (sans serif, 16 point).
+     */
+    public void setFont() {
+        setFont(DEFAULT_FONT);
+    }
+
+    /**
+     * Sets the font to the specified value.
+     *
+     * @param font the font
+     */
+    public void setFont(Font font) {
+        if (font == null) throw new IllegalArgumentException();
+        this.font = font;
+        graphics.setFont(font);
+    }
+
+    /**
+     * Draws a line segment between (<em>x</em><sub>0</sub>, <em>y</em><sub>0</sub>) and
+     * (<em>x</em><sub>1</sub>, <em>y</em><sub>1</sub>).
+     *
+     * @param  x0 the <em>x</em>-coordinate of one endpoint
+     * @param  y0 the <em>y</em>-coordinate of one endpoint
+     * @param  x1 the <em>x</em>-coordinate of the other endpoint
+     * @param  y1 the <em>y</em>-coordinate of the other endpoint
+     */
+    public void line(double x0, double y0, double x1, double y1) {
+        graphics.draw(new Line2D.Double(scaleX(x0), scaleY(y0), scaleX(x1), scaleY(y1)));
+    }
+
+    // one pixel at (x, y)
+    private void pixel(double x, double y) {
+        graphics.fillRect((int) Math.round(scaleX(x)), (int) Math.round(scaleY(y)), 1, 1);
+    }
+
+    /**
+     * Draws a point centered at (<em>x</em>, <em>y</em>): a filled circle whose
+     * radius is equal to the pen radius, or a single pixel if the pen radius is 0.
+     *
+     * @param x the <em>x</em>-coordinate of the point
+     * @param y the <em>y</em>-coordinate of the point
+     */
+    public void point(double x, double y) {
+        double xs = scaleX(x);
+        double ys = scaleY(y);
+        float scaledPenRadius = (float) (penRadius * REFERENCE_SIZE);
+        if (scaledPenRadius <= 1) pixel(x, y);
+        else graphics.fill(new Ellipse2D.Double(xs - scaledPenRadius/2, ys - scaledPenRadius/2,
+                                                scaledPenRadius, scaledPenRadius));
+    }
+
+    /**
+     * Draws a circle of the specified radius, centered at (<em>x</em>, <em>y</em>).
+     *
+     * @param  x the <em>x</em>-coordinate of the center of the circle
+     * @param  y the <em>y</em>-coordinate of the center of the circle
+     * @param  radius the radius of the circle
+     * @throws IllegalArgumentException if {@code radius} is negative
+     */
+    public void circle(double x, double y, double radius) {
+        if (!(radius >= 0)) throw new IllegalArgumentException("radius must be nonnegative");
+        ellipse(x, y, radius, radius);
+    }
+
+    /**
+     * Draws a filled circle of the specified radius, centered at (<em>x</em>, <em>y</em>).
+     *
+     * @param  x the <em>x</em>-coordinate of the center of the circle
+     * @param  y the <em>y</em>-coordinate of the center of the circle
+     * @param  radius the radius of the circle
+     * @throws IllegalArgumentException if {@code radius} is negative
+     */
+    public void filledCircle(double x, double y, double radius) {
+        if (!(radius >= 0)) throw new IllegalArgumentException("radius must be nonnegative");
+        filledEllipse(x, y, radius, radius);
+    }
+
+    /**
+     * Draws an ellipse with the specified semimajor and semiminor axes,
+     * centered at (<em>x</em>, <em>y</em>).
+     *
+     * @param  x the <em>x</em>-coordinate of the center of the ellipse
+     * @param  y the <em>y</em>-coordinate of the center of the ellipse
+     * @param  semiMajorAxis is the semimajor axis of the ellipse
+     * @param  semiMinorAxis is the semiminor axis of the ellipse
+     * @throws IllegalArgumentException if either axis is negative
+     */
+    public void ellipse(double x, double y, double semiMajorAxis, double semiMinorAxis) {
+        if (!(semiMajorAxis >= 0)) throw new IllegalArgumentException("ellipse semimajor axis must be nonnegative");
+        if (!(semiMinorAxis >= 0)) throw new IllegalArgumentException("ellipse semiminor axis must be nonnegative");
+        double xs = scaleX(x);
+        double ys = scaleY(y);
+        double ws = factorX(2*semiMajorAxis);
+        double hs = factorY(2*semiMinorAxis);
+        if (ws <= 1 && hs <= 1) pixel(x, y);
+        else graphics.draw(new Ellipse2D.Double(xs - ws/2, ys - hs/2, ws, hs));
+    }
+
+    /**
+     * Draws a filled ellipse with the specified semimajor and semiminor axes,
+     * centered at (<em>x</em>, <em>y</em>).
+     *
+     * @param  x the <em>x</em>-coordinate of the center of the ellipse
+     * @param  y the <em>y</em>-coordinate of the center of the ellipse
+     * @param  semiMajorAxis is the semimajor axis of the ellipse
+     * @param  semiMinorAxis is the semiminor axis of the ellipse
+     * @throws IllegalArgumentException if either axis is negative
+     */
+    public void filledEllipse(double x, double y, double semiMajorAxis, double semiMinorAxis) {
+        if (!(semiMajorAxis >= 0)) throw new IllegalArgumentException("ellipse semimajor axis must be nonnegative");
+        if (!(semiMinorAxis >= 0)) throw new IllegalArgumentException("ellipse semiminor axis must be nonnegative");
+        double xs = scaleX(x);
+        double ys = scaleY(y);
+        double ws = factorX(2*semiMajorAxis);
+        double hs = factorY(2*semiMinorAxis);
+        if (ws <= 1 && hs <= 1) pixel(x, y);
+        else graphics.fill(new Ellipse2D.Double(xs - ws/2, ys - hs/2, ws, hs));
+    }
+
+    /**
+     * Draws a square of side length 2r, centered at (<em>x</em>, <em>y</em>).
+     *
+     * @param  x the <em>x</em>-coordinate of the center of the square
+     * @param  y the <em>y</em>-coordinate of the center of the square
+     * @param  halfLength one half the length of any side of the square
+     * @throws IllegalArgumentException if {@code halfLength} is negative
+     */
+    public void square(double x, double y, double halfLength) {
+        if (!(halfLength >= 0)) throw new IllegalArgumentException("half length must be nonnegative");
+        rectangle(x, y, halfLength, halfLength);
+    }
+
+    /**
+     * Draws a filled square of the specified size, centered at (<em>x</em>, <em>y</em>).
+     *
+     * @param  x the <em>x</em>-coordinate of the center of the square
+     * @param  y the <em>y</em>-coordinate of the center of the square
+     * @param  halfLength one half the length of any side of the square
+     * @throws IllegalArgumentException if {@code halfLength} is negative
+     */
+    public void filledSquare(double x, double y, double halfLength) {
+        if (!(halfLength >= 0)) throw new IllegalArgumentException("half length must be nonnegative");
+        filledRectangle(x, y, halfLength, halfLength);
+    }
+
+    /**
+     * Draws a rectangle of the specified size, centered at (<em>x</em>, <em>y</em>).
+     *
+     * @param  x the <em>x</em>-coordinate of the center of the rectangle
+     * @param  y the <em>y</em>-coordinate of the center of the rectangle
+     * @param  halfWidth one half the width of the rectangle
+     * @param  halfHeight one half the height of the rectangle
+     * @throws IllegalArgumentException if either {@code halfWidth} or {@code halfHeight} is negative
+     */
+    public void rectangle(double x, double y, double halfWidth, double halfHeight) {
+        if (!(halfWidth  >= 0)) throw new IllegalArgumentException("half width must be nonnegative");
+        if (!(halfHeight >= 0)) throw new IllegalArgumentException("half height must be nonnegative");
+        double xs = scaleX(x);
+        double ys = scaleY(y);
+        double ws = factorX(2*halfWidth);
+        double hs = factorY(2*halfHeight);
+        if (ws <= 1 && hs <= 1) pixel(x, y);
+        else graphics.draw(new Rectangle2D.Double(xs - ws/2, ys - hs/2, ws, hs));
+    }
+
+    /**
+     * Draws a filled rectangle of the specified size, centered at (<em>x</em>, <em>y</em>).
+     *
+     * @param  x the <em>x</em>-coordinate of the center of the rectangle
+     * @param  y the <em>y</em>-coordinate of the center of the rectangle
+     * @param  halfWidth one half the width of the rectangle
+     * @param  halfHeight one half the height of the rectangle
+     * @throws IllegalArgumentException if either {@code halfWidth} or {@code halfHeight} is negative
+     */
+    public void filledRectangle(double x, double y, double halfWidth, double halfHeight) {
+        if (!(halfWidth  >= 0)) throw new IllegalArgumentException("half width must be nonnegative");
+        if (!(halfHeight >= 0)) throw new IllegalArgumentException("half height must be nonnegative");
+        double xs = scaleX(x);
+        double ys = scaleY(y);
+        double ws = factorX(2*halfWidth);
+        double hs = factorY(2*halfHeight);
+        if (ws <= 1 && hs <= 1) pixel(x, y);
+        else graphics.fill(new Rectangle2D.Double(xs - ws/2, ys - hs/2, ws, hs));
+    }
+
+    /**
+     * Draws a polygon with the vertices
+     * (<em>x</em><sub>0</sub>, <em>y</em><sub>0</sub>), ...,
+     * (<em>x</em><sub><em>n</em>–1</sub>, <em>y</em><sub><em>n</em>–1</sub>).
+     *
+     * @param  x an array of all the <em>x</em>-coordinates of the polygon
+     * @param  y an array of all the <em>y</em>-coordinates of the polygon
+     * @throws IllegalArgumentException unless {@code x[]} and {@code y[]}
+     *         are of the same length
+     */
+    public void polygon(double[] x, double[] y) {
+        GeneralPath path = path(x, y);
+        if (path == null) return;
+        path.closePath();
+        graphics.draw(path);
+    }
+
+    /**
+     * Draws a filled polygon with the vertices
+     * (<em>x</em><sub>0</sub>, <em>y</em><sub>0</sub>), ...,
+     * (<em>x</em><sub><em>n</em>–1</sub>, <em>y</em><sub><em>n</em>–1</sub>).
+     *
+     * @param  x an array of all the <em>x</em>-coordinates of the polygon
+     * @param  y an array of all the <em>y</em>-coordinates of the polygon
+     * @throws IllegalArgumentException unless {@code x[]} and {@code y[]}
+     *         are of the same length
+     */
+    public void filledPolygon(double[] x, double[] y) {
+        GeneralPath path = path(x, y);
+        if (path == null) return;
+        path.closePath();
+        graphics.fill(path);
+    }
+
+    // the open path through the points, null if there are none
+    private GeneralPath path(double[] x, double[] y) {
+        if (x == null) throw new IllegalArgumentException("x-coordinate array is null");
+        if (y == null) throw new IllegalArgumentException("y-coordinate array is null");
+        if (x.length != y.length) throw new IllegalArgumentException("arrays must be of the same length");
+        int n = x.length;
+        if (n == 0) return null;
+        GeneralPath path = new GeneralPath(GeneralPath.WIND_EVEN_ODD, n);
+        path.moveTo((float) scaleX(x[0]), (float) scaleY(y[0]));
+        for (int i = 1; i < n; i++)
+            path.lineTo((float) scaleX(x[i]), (float) scaleY(y[i]));
+        return path;
+    }
+
+    /**
+     * Writes the given text string in the current font, centered at (<em>x</em>, <em>y</em>).
+     *
+     * @param  x the center <em>x</em>-coordinate of the text
+     * @param  y the center <em>y</em>-coordinate of the text
+     * @param  text the text to write
+     */
+    public void text(double x, double y, String text) {
+        if (text == null) throw new IllegalArgumentException();
+        FontMetrics metrics = graphics.getFontMetrics();
+        int ws = metrics.stringWidth(text);
+        int hs = metrics.getDescent();
+        graphics.drawString(text, (float) (scaleX(x) - ws/2.0), (float) (scaleY(y) + hs));
+    }
+
+    /**
+     * Writes the given text string in the current font, centered at (<em>x</em>, <em>y</em>) and
+     * rotated by the specified number of degrees.
+     *
+     * @param  x the center <em>x</em>-coordinate of the text
+     * @param  y the center <em>y</em>-coordinate of the text
+     * @param  text the text to write
+     * @param  degrees is the number of degrees to rotate counterclockwise
+     */
+    public void text(double x, double y, String text, double degrees) {
+        if (text == null) throw new IllegalArgumentException();
+        double xs = scaleX(x);
+        double ys = scaleY(y);
+        graphics.rotate(Math.toRadians(-degrees), xs, ys);
+        text(x, y, text);
+        graphics.rotate(Math.toRadians(+degrees), xs, ys);
+    }
+
+    /**
+     * Writes the given text string in the current font, left-aligned at (<em>x</em>, <em>y</em>).
+     *
+     * @param  x the <em>x</em>-coordinate of the text
+     * @param  y the <em>y</em>-coordinate of the text
+     * @param  text the text
+     */
+    public void textLeft(double x, double y, String text) {
+        if (text == null) throw new IllegalArgumentException();
+        int hs = graphics.getFontMetrics().getDescent();
+        graphics.drawString(text, (float) scaleX(x), (float) (scaleY(y) + hs));
+    }
+
+    /**
+     * Writes the given text string in the current font, right-aligned at (<em>x</em>, <em>y</em>).
+     *
+     * @param  x the <em>x</em>-coordinate of the text
+     * @param  y the <em>y</em>-coordinate of the text
+     * @param  text the text to write
+     */
+    public void textRight(double x, double y, String text) {
+        if (text == null) throw new IllegalArgumentException();
+        FontMetrics metrics = graphics.getFontMetrics();
+        int ws = metrics.stringWidth(text);
+        int hs = metrics.getDescent();
+        graphics.drawString(text, (float) (scaleX(x) - ws), (float) (scaleY(y) + hs));
+    }
+
+    /**
+     * Returns the image the canvas draws into (not a copy).
+     *
+     * @return the image of the canvas
+     */
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    /**
+     * Saves the drawing to the specified file. The supported image formats
+     * are PNG and JPEG; the filename suffix must be {@code .png} or {@code .jpg}.
+     *
+     * @param  filename the name of the file with one of the required suffixes
+     * @throws IllegalArgumentException if the suffix is not supported
+     * @throws UncheckedIOException if the file cannot be written
+     */
+    public void save(String filename) {
+        if (filename == null) throw new IllegalArgumentException();
+        String suffix = filename.substring(filename.lastIndexOf('.') + 1).toLowerCase();
+        if (!suffix.equals("png") && !suffix.equals("jpg"))
+            throw new IllegalArgumentException("invalid image file type: " + suffix);
+        try {
+            // the image has no alpha channel, so it can be written as JPEG as it is
+            if (!ImageIO.write(image, suffix, new File(filename)))
+                throw new IllegalArgumentException("no writer for image file type: " + suffix);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("could not save " + filename, e);
+        }
+    }
+
+    /**
+     * Releases the graphics resources of the canvas; it cannot be drawn on
+     * afterwards, but {@link #getImage()} and {@link #save(String)} still work.
+     */
+    public void dispose() {
+        graphics.dispose();
+    }
+
+    /**
+     * Test client: renders a few shapes into {@code canvas.png}.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        Canvas canvas = new Canvas(400, 400);
+        canvas.square(0.2, 0.8, 0.1);
+        canvas.filledSquare(0.8, 0.8, 0.2);
+        canvas.circle(0.8, 0.2, 0.2);
+        canvas.setPenColor(Color.RED);
+        canvas.setPenRadius(0.02);
+        canvas.line(0.2, 0.2, 0.5, 0.5);
+        canvas.setPenColor(Color.BLUE);
+        canvas.text(0.5, 0.05, "Canvas");
+        canvas.save("canvas.png");
+    }
+
+}
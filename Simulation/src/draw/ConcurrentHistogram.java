@@ -0,0 +1,391 @@
+/******************************************************************************
+ *  Compilation:  javac ConcurrentHistogram.java
+ *  Execution:    none
+ *  Dependencies: Canvas.java StdDraw.java StdStats.java
+ *
+ *  A histogram with long counts over arbitrary bin edges (equal width,
+ *  logarithmic or given), which many threads can record into at the same
+ *  time, and which can be merged with another one and queried for
+ *  percentiles.
+ *
+ ******************************************************************************/
+
+package draw;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ *  The {@code ConcurrentHistogram} class counts real values into bins
+ *  [<em>e</em><sub><em>i</em></sub>, <em>e</em><sub><em>i</em>+1</sub>)
+ *  between increasing edges. Values below the first edge and from the last
+ *  edge on are counted apart (underflow and overflow); NaN values are not
+ *  counted.
+ *  <p>
+ *  {@link #record(double)} is thread-safe and scales with the number of
+ *  threads: the counts are striped over several atomic arrays and a thread
+ *  always increments the same stripe, so threads seldom contend on a
+ *  counter. A thread that records a lot can instead use a
+ *  {@link Recorder}, which counts without any synchronization and adds its
+ *  counts to the histogram when it is flushed. Two histograms with the same
+ *  edges are combined with {@link #merge(ConcurrentHistogram)} in time
+ *  proportional to the number of bins.
+ *  <p>
+ *  The queries ({@link #count(int)}, {@link #percentile(double)}, ...) sum
+ *  the stripes; while other threads are recording they see some recent
+ *  state, and they are exact once the recording is over.
+ */
+public final class ConcurrentHistogram {
+
+    private static final int LINEAR = 0, LOGARITHMIC = 1, EDGES = 2;
+    private static final int MAX_STRIPES = 64;
+
+    private final double[] edges;
+    private final int bins;
+    private final int kind;
+    private final double offset;   // first edge, or its log for logarithmic bins
+    private final double scale;    // bins per unit (of the log for logarithmic bins)
+
+    // counts[0] is the underflow, counts[1..bins] the bins and counts[bins+1] the overflow
+    private final AtomicLongArray[] stripes;
+    private final int stripeMask;
+
+    /**
+     * Initializes an empty histogram with the specified bin edges.
+     *
+     * @param  edges the bin edges, at least 2 and strictly increasing
+     * @throws IllegalArgumentException unless the edges are finite and strictly increasing
+     */
+    public ConcurrentHistogram(double[] edges) {
+        this(edges.clone(), EDGES);
+    }
+
+    private ConcurrentHistogram(double[] edges, int kind) {
+        if (edges.length < 2) throw new IllegalArgumentException("at least 2 bin edges are needed");
+        for (int i = 0; i < edges.length; i++) {
+            if (Double.isNaN(edges[i]) || Double.isInfinite(edges[i]))
+                throw new IllegalArgumentException("bin edges must be finite");
+            if (i > 0 && !(edges[i] > edges[i-1]))
+                throw new IllegalArgumentException("bin edges must be strictly increasing");
+        }
+        this.edges = edges;
+        this.bins = edges.length - 1;
+        this.kind = kind;
+        if (kind == LOGARITHMIC) {
+            offset = Math.log(edges[0]);
+            scale = bins / (Math.log(edges[bins]) - offset);
+        }
+        else {
+            offset = edges[0];
+            scale = bins / (edges[bins] - edges[0]);
+        }
+        int processors = Runtime.getRuntime().availableProcessors();
+        int n = 1;
+        while (n < 2 * processors && n < MAX_STRIPES) n *= 2;
+        stripes = new AtomicLongArray[n];
+        for (int i = 0; i < n; i++)
+            stripes[i] = new AtomicLongArray(bins + 2);
+        stripeMask = n - 1;
+    }
+
+    /**
+     * Returns a histogram of {@code bins} bins of equal width between {@code min} and {@code max}.
+     *
+     * @param  min the first edge
+     * @param  max the last edge
+     * @param  bins the number of bins
+     * @return the histogram
+     * @throws IllegalArgumentException unless {@code min < max} and {@code bins >= 1}
+     */
+    public static ConcurrentHistogram linear(double min, double max, int bins) {
+        if (bins < 1) throw new IllegalArgumentException("the number of bins must be positive");
+        if (!(min < max)) throw new IllegalArgumentException("min must be smaller than max");
+        double[] edges = new double[bins + 1];
+        for (int i = 0; i <= bins; i++)
+            edges[i] = min + (max - min) * i / bins;
+        edges[bins] = max;
+        return new ConcurrentHistogram(edges, LINEAR);
+    }
+
+    /**
+     * Returns a histogram of {@code bins} bins between {@code min} and {@code max} whose
+     * edges grow geometrically, for values spanning several orders of magnitude
+     * (waiting and response times, for instance).
+     *
+     * @param  min the first edge
+     * @param  max the last edge
+     * @param  bins the number of bins
+     * @return the histogram
+     * @throws IllegalArgumentException unless {@code 0 < min < max} and {@code bins >= 1}
+     */
+    public static ConcurrentHistogram logarithmic(double min, double max, int bins) {
+        if (bins < 1) throw new IllegalArgumentException("the number of bins must be positive");
+        if (!(min > 0 && min < max)) throw new IllegalArgumentException("log bins need 0 < min < max");
+        double[] edges = new double[bins + 1];
+        double ratio = Math.log(max / min);
+        for (int i = 0; i <= bins; i++)
+            edges[i] = min * Math.exp(ratio * i / bins);
+        edges[0] = min;
+        edges[bins] = max;
+        return new ConcurrentHistogram(edges, LOGARITHMIC);
+    }
+
+    // index in the counts: 0 for the underflow, bins + 1 for the overflow, -1 for NaN
+    private int index(double x) {
+        if (!(x >= edges[0])) return Double.isNaN(x) ? -1 : 0;
+        if (x >= edges[bins]) return bins + 1;
+        int i;
+        if (kind == EDGES) {
+            i = Arrays.binarySearch(edges, x);
+            if (i < 0) i = -i - 2;    // insertion point - 1
+        }
+        else {
+            double position = kind == LINEAR ? (x - offset) * scale : (Math.log(x) - offset) * scale;
+            i = Math.min((int) position, bins - 1);
+            // the arithmetic can be one bin off next to an edge
+            if (x < edges[i]) i--;
+            else if (x >= edges[i+1]) i++;
+        }
+        return i + 1;
+    }
+
+    private AtomicLongArray stripe() {
+        long id = Thread.currentThread().getId();
+        return stripes[(int) ((id * 0x9E3779B97F4A7C15L) >>> 40) & stripeMask];
+    }
+
+    /**
+     * Counts the specified value. Can be called by several threads at the same time.
+     *
+     * @param x the value
+     */
+    public void record(double x) {
+        int i = index(x);
+        if (i >= 0) stripe().incrementAndGet(i);
+    }
+
+    /**
+     * Counts the specified value {@code count} times.
+     *
+     * @param x the value
+     * @param count the number of occurrences
+     */
+    public void record(double x, long count) {
+        int i = index(x);
+        if (i >= 0) stripe().addAndGet(i, count);
+    }
+
+    /**
+     * Adds the counts of another histogram with the same edges to this one.
+     *
+     * @param  that the other histogram
+     * @throws IllegalArgumentException if the edges are different
+     */
+    public void merge(ConcurrentHistogram that) {
+        if (!Arrays.equals(edges, that.edges))
+            throw new IllegalArgumentException("histograms have different bin edges");
+        AtomicLongArray stripe = stripe();
+        long[] counts = that.rawCounts();
+        for (int i = 0; i < counts.length; i++)
+            if (counts[i] != 0) stripe.addAndGet(i, counts[i]);
+    }
+
+    /**
+     * Returns a new recorder for this histogram, to be used by a single thread.
+     *
+     * @return a recorder adding its counts to this histogram
+     */
+    public Recorder newRecorder() {
+        return new Recorder();
+    }
+
+    /**
+     * Counts values for a {@link ConcurrentHistogram} in a single thread, without
+     * synchronization; the counts get into the histogram when {@link #flush()} is called.
+     */
+    public final class Recorder {
+        private final long[] counts = new long[bins + 2];
+
+        private Recorder() { }
+
+        /**
+         * Counts the specified value.
+         *
+         * @param x the value
+         */
+        public void record(double x) {
+            int i = index(x);
+            if (i >= 0) counts[i]++;
+        }
+
+        /**
+         * Adds the values counted since the last flush to the histogram.
+         */
+        public void flush() {
+            AtomicLongArray stripe = stripe();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    stripe.addAndGet(i, counts[i]);
+                    counts[i] = 0;
+                }
+            }
+        }
+    }
+
+    // the counts summed over the stripes
+    private long[] rawCounts() {
+        long[] counts = new long[bins + 2];
+        for (AtomicLongArray stripe : stripes)
+            for (int i = 0; i < counts.length; i++)
+                counts[i] += stripe.get(i);
+        return counts;
+    }
+
+    /**
+     * Returns the number of bins.
+     *
+     * @return the number of bins
+     */
+    public int bins() {
+        return bins;
+    }
+
+    /**
+     * Returns the bin edges.
+     *
+     * @return a copy of the bin edges
+     */
+    public double[] edges() {
+        return edges.clone();
+    }
+
+    /**
+     * Returns the number of values counted in bin {@code i}.
+     *
+     * @param  i the bin
+     * @return the number of values in [<em>e</em><sub><em>i</em></sub>, <em>e</em><sub><em>i</em>+1</sub>)
+     */
+    public long count(int i) {
+        if (i < 0 || i >= bins) throw new IllegalArgumentException("bin out of range: " + i);
+        long count = 0;
+        for (AtomicLongArray stripe : stripes)
+            count += stripe.get(i + 1);
+        return count;
+    }
+
+    /**
+     * Returns the counts of the bins.
+     *
+     * @return the counts of the bins
+     */
+    public long[] counts() {
+        return Arrays.copyOfRange(rawCounts(), 1, bins + 1);
+    }
+
+    /**
+     * Returns the number of values below the first edge.
+     *
+     * @return the number of values below the first edge
+     */
+    public long underflow() {
+        long count = 0;
+        for (AtomicLongArray stripe : stripes)
+            count += stripe.get(0);
+        return count;
+    }
+
+    /**
+     * Returns the number of values from the last edge on.
+     *
+     * @return the number of values from the last edge on
+     */
+    public long overflow() {
+        long count = 0;
+        for (AtomicLongArray stripe : stripes)
+            count += stripe.get(bins + 1);
+        return count;
+    }
+
+    /**
+     * Returns the number of values counted, underflow and overflow included.
+     *
+     * @return the number of values counted
+     */
+    public long total() {
+        long total = 0;
+        for (long count : rawCounts())
+            total += count;
+        return total;
+    }
+
+    /**
+     * Returns an estimate of the <em>p</em>th percentile of the values counted,
+     * interpolated inside its bin (linearly, or geometrically for logarithmic bins).
+     * A percentile that falls in the underflow or the overflow is reported as the
+     * first or the last edge.
+     *
+     * @param  p the percentile, between 0 and 100
+     * @return the estimate; {@code Double.NaN} if no value was counted
+     * @throws IllegalArgumentException unless {@code 0 <= p <= 100}
+     */
+    public double percentile(double p) {
+        if (!(p >= 0 && p <= 100)) throw new IllegalArgumentException("percentile must be between 0 and 100");
+        long[] counts = rawCounts();
+        long total = 0;
+        for (long count : counts)
+            total += count;
+        if (total == 0) return Double.NaN;
+        double rank = p / 100 * total;
+        double cumulative = counts[0];
+        if (rank <= cumulative && counts[0] > 0) return edges[0];
+        for (int i = 0; i < bins; i++) {
+            long count = counts[i + 1];
+            if (count > 0 && cumulative + count >= rank) {
+                double fraction = Math.max(rank - cumulative, 0) / count;
+                if (kind == LOGARITHMIC)
+                    return edges[i] * Math.pow(edges[i+1] / edges[i], fraction);
+                return edges[i] + fraction * (edges[i+1] - edges[i]);
+            }
+            cumulative += count;
+        }
+        return edges[bins];
+    }
+
+    /**
+     * Sets all the counts to 0. Values recorded at the same time may or may not be kept.
+     */
+    public void reset() {
+        for (AtomicLongArray stripe : stripes)
+            for (int i = 0; i < bins + 2; i++)
+                stripe.set(i, 0);
+    }
+
+    /**
+     * Draws the counts of the bins (one bar per bin, whatever its width) to standard draw.
+     */
+    public void draw() {
+        double[] freq = frequencies();
+        StdDraw.setYscale(-1, StdStats.max(freq) + 1);
+        StdStats.plotBars(freq);
+    }
+
+    /**
+     * Draws the counts of the bins (one bar per bin, whatever its width) on the specified canvas.
+     *
+     * @param canvas the canvas
+     */
+    public void draw(Canvas canvas) {
+        double[] freq = frequencies();
+        canvas.setYscale(-1, StdStats.max(freq) + 1);
+        StdStats.plotBars(canvas, freq);
+    }
+
+    private double[] frequencies() {
+        long[] counts = counts();
+        double[] freq = new double[bins];
+        for (int i = 0; i < bins; i++)
+            freq[i] = counts[i];
+        return freq;
+    }
+
+}
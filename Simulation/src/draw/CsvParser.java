@@ -0,0 +1,348 @@
+/******************************************************************************
+ *  Compilation:  javac CsvParser.java
+ *  Execution:    none
+ *  Dependencies: none
+ *
+ *  Reads numbers from text files (CSV, or values separated by whitespace,
+ *  semicolons or tabs) without Scanner and without creating a String per
+ *  value.
+ *
+ ******************************************************************************/
+
+package draw;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ *  The {@code CsvParser} class provides static methods for loading 1D and 2D
+ *  arrays of numbers from text files. It is a hand-rolled replacement for the
+ *  {@link java.util.Scanner} used by {@link StdArrayIO} and {@link StdIn}:
+ *  the file is read through a {@link FileChannel} into a byte buffer and the
+ *  digits are turned into numbers as they are read. A value with at most 15
+ *  significant digits and a decimal exponent in [-22, 22] is exact as a
+ *  double and is built with a single multiplication or division (which
+ *  rounds correctly); any other value, and {@code NaN} or {@code Infinity},
+ *  goes through {@link Double#parseDouble(String)}, so every value is the
+ *  double nearest to its decimal text.
+ *  <p>
+ *  Values are separated by commas, semicolons, spaces or tabs, and rows by
+ *  line breaks. A first line that does not start with a number (a header
+ *  line) is skipped. An empty field is read as {@code NaN}.
+ */
+public final class CsvParser {
+
+    private static final int BUFFER = 1 << 16;
+    private static final int MAX_TOKEN = 400;
+
+    private static final double[] POWERS_OF_TEN = new double[23];
+    static {
+        POWERS_OF_TEN[0] = 1.0;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++)
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i-1] * 10.0;
+    }
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER);
+    private final byte[] bytes = buffer.array();
+    private int position;
+    private int limit;
+
+    private final char[] token = new char[MAX_TOKEN];  // the characters of the current value, for the slow path
+    private int tokenLength;
+    private boolean endOfLine;                         // the last value ended its row
+
+    private CsvParser(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Reads all the numbers of the specified file, row after row.
+     *
+     * @param filename the name of the file
+     * @return the numbers in the file
+     */
+    public static double[] readDouble1D(String filename) {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            CsvParser parser = new CsvParser(channel);
+            parser.skipHeader();
+            double[] a = new double[1024];
+            int n = 0;
+            while (parser.hasNext()) {
+                if (n == a.length) a = Arrays.copyOf(a, 2*n);
+                a[n++] = parser.nextDouble();
+            }
+            return Arrays.copyOf(a, n);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("could not read " + filename, e);
+        }
+    }
+
+    /**
+     * Reads the specified column of the file.
+     *
+     * @param filename the name of the file
+     * @param column the index of the column, starting from 0
+     * @return the numbers in the column
+     * @throws IllegalArgumentException if a row has no such column
+     */
+    public static double[] readDoubleColumn(String filename, int column) {
+        if (column < 0) throw new IllegalArgumentException("column index is negative: " + column);
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            CsvParser parser = new CsvParser(channel);
+            int row = parser.skipHeader();
+            double[] a = new double[1024];
+            int n = 0;
+            while (parser.hasNext()) {
+                row++;
+                double value = Double.NaN;
+                int col = 0;
+                do {
+                    double x = parser.nextDouble();
+                    if (col++ == column) value = x;
+                } while (!parser.endOfLine);
+                if (col <= column)
+                    throw new IllegalArgumentException("line " + row + " has no column " + column);
+                if (n == a.length) a = Arrays.copyOf(a, 2*n);
+                a[n++] = value;
+            }
+            return Arrays.copyOf(a, n);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("could not read " + filename, e);
+        }
+    }
+
+    /**
+     * Reads the file as a 2D array, a row per line. All lines must have the
+     * same number of values.
+     *
+     * @param filename the name of the file
+     * @return the 2D array of numbers in the file
+     * @throws IllegalArgumentException if the lines have different numbers of values
+     */
+    public static double[][] readDouble2D(String filename) {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            CsvParser parser = new CsvParser(channel);
+            int line = parser.skipHeader();
+            double[][] a = new double[64][];
+            int rows = 0;
+            int cols = -1;
+            double[] row = new double[16];
+            while (parser.hasNext()) {
+                line++;
+                int n = 0;
+                do {
+                    if (n == row.length) row = Arrays.copyOf(row, 2*n);
+                    row[n++] = parser.nextDouble();
+                } while (!parser.endOfLine);
+                if (cols == -1) cols = n;
+                else if (n != cols)
+                    throw new IllegalArgumentException("line " + line + " has " + n + " values instead of " + cols);
+                if (rows == a.length) a = Arrays.copyOf(a, 2*rows);
+                a[rows++] = Arrays.copyOf(row, n);
+            }
+            return Arrays.copyOf(a, rows);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("could not read " + filename, e);
+        }
+    }
+
+    /**
+     * Reads all the integers of the specified file, row after row.
+     *
+     * @param filename the name of the file
+     * @return the integers in the file
+     * @throws IllegalArgumentException if a value is not an {@code int}
+     */
+    public static int[] readInt1D(String filename) {
+        double[] values = readDouble1D(filename);
+        int[] a = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            a[i] = (int) values[i];
+            if (a[i] != values[i]) throw new IllegalArgumentException("not an int: " + values[i]);
+        }
+        return a;
+    }
+
+    // next byte of the file, -1 at the end
+    private int peek() throws IOException {
+        if (position == limit) {
+            buffer.clear();
+            int read;
+            do {
+                read = channel.read(buffer);
+            } while (read == 0);
+            if (read < 0) return -1;
+            position = 0;
+            limit = read;
+        }
+        return bytes[position];
+    }
+
+    private static boolean isSeparator(int c) {
+        return c == ',' || c == ';' || c == ' ' || c == '\t';
+    }
+
+    // skips blank lines and the spaces before the next value, true if there is one
+    private boolean hasNext() throws IOException {
+        int c;
+        while ((c = peek()) == ' ' || c == '\t' || c == '\r' || c == '\n')
+            position++;
+        return c != -1;
+    }
+
+    // skips the first line if it doesn't start with a number, returns the number of lines skipped
+    private int skipHeader() throws IOException {
+        if (!hasNext()) return 0;
+        int c = peek();
+        if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == ',' || c == ';')
+            return 0;
+        if (startsWith("NaN") || startsWith("Inf")) return 0;
+        while ((c = peek()) != -1 && c != '\n')
+            position++;
+        return 1;
+    }
+
+    // the next bytes, if they are already in the buffer
+    private boolean startsWith(String s) {
+        if (limit - position < s.length()) return false;
+        for (int i = 0; i < s.length(); i++)
+            if (bytes[position + i] != s.charAt(i)) return false;
+        return true;
+    }
+
+    // reads a value and the separators after it, sets endOfLine when the row is over
+    private double nextDouble() throws IOException {
+        tokenLength = 0;
+        int c = peek();
+        boolean negative = false;
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            keep(c);
+            c = peek();
+        }
+        long mantissa = 0;
+        int digits = 0;           // significant digits kept in the mantissa
+        int exponent = 0;
+        boolean anyDigit = false;
+        boolean exact = true;
+        while (c >= '0' && c <= '9') {
+            anyDigit = true;
+            if (digits < 18) {
+                mantissa = 10*mantissa + (c - '0');
+                if (mantissa != 0) digits++;
+            }
+            else {
+                exponent++;
+                exact = false;
+            }
+            keep(c);
+            c = peek();
+        }
+        if (c == '.') {
+            keep(c);
+            c = peek();
+            while (c >= '0' && c <= '9') {
+                anyDigit = true;
+                if (digits < 18) {
+                    mantissa = 10*mantissa + (c - '0');
+                    if (mantissa != 0) digits++;
+                    exponent--;
+                }
+                else exact = false;
+                keep(c);
+                c = peek();
+            }
+        }
+        if (anyDigit && (c == 'e' || c == 'E')) {
+            keep(c);
+            c = peek();
+            boolean negativeExponent = false;
+            if (c == '-' || c == '+') {
+                negativeExponent = c == '-';
+                keep(c);
+                c = peek();
+            }
+            int e = 0;
+            boolean anyExponentDigit = false;
+            while (c >= '0' && c <= '9') {
+                anyExponentDigit = true;
+                if (e < 100000) e = 10*e + (c - '0');
+                keep(c);
+                c = peek();
+            }
+            if (!anyExponentDigit) exact = false;
+            exponent += negativeExponent ? -e : e;
+        }
+
+        double value;
+        if (!anyDigit && tokenLength == 0 && (c == -1 || isSeparator(c) || c == '\r' || c == '\n')) {
+            value = Double.NaN;                          // empty field
+        }
+        else if (!anyDigit || !(c == -1 || isSeparator(c) || c == '\r' || c == '\n')) {
+            // NaN, Infinity, hex or something that is not a number: let Double decide
+            while (c != -1 && !isSeparator(c) && c != '\r' && c != '\n') {
+                keep(c);
+                c = peek();
+            }
+            value = parseToken();
+        }
+        else if (exact && digits <= 15 && exponent >= -22 && exponent <= 22) {
+            value = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+            if (negative) value = -value;
+        }
+        else {
+            value = parseToken();
+        }
+        skipSeparators();
+        return value;
+    }
+
+    private void keep(int c) {
+        if (tokenLength < MAX_TOKEN) token[tokenLength++] = (char) c;
+        else throw new IllegalArgumentException("value too long: " + new String(token, 0, 40) + "...");
+        position++;
+    }
+
+    private double parseToken() {
+        String s = new String(token, 0, tokenLength);
+        try {
+            return Double.parseDouble(s);
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("not a number: '" + s + "'", e);
+        }
+    }
+
+    // spaces around a single comma or semicolon, two in a row make an empty field
+    private void skipSeparators() throws IOException {
+        int c;
+        while ((c = peek()) == ' ' || c == '\t')
+            position++;
+        if (c == ',' || c == ';') {
+            position++;
+            while ((c = peek()) == ' ' || c == '\t')
+                position++;
+            // a separator at the end of a line is ignored
+            endOfLine = c == '\r' || c == '\n' || c == -1;
+            skipLineBreak();
+            return;
+        }
+        endOfLine = c == '\r' || c == '\n' || c == -1;
+        skipLineBreak();
+    }
+
+    private void skipLineBreak() throws IOException {
+        if (peek() == '\r') position++;
+        if (peek() == '\n') position++;
+    }
+
+}
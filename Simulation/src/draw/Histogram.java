@@ -15,10 +15,36 @@ public class Histogram {
         if (freq[i] > max) max = freq[i]; 
     } 
 
+    // Add the counts of another histogram with the same number of bins (e.g. one filled by another thread).
+    public void merge(Histogram that) {
+        if (that.freq.length != freq.length)
+            throw new IllegalArgumentException("histograms have different numbers of bins");
+        for (int i = 0; i < freq.length; i++) {
+            freq[i] += that.freq[i];
+            if (freq[i] > max) max = freq[i];
+        }
+    }
+
+    // Number of bins.
+    public int size() {
+        return freq.length;
+    }
+
+    // Number of occurrences of the value i.
+    public double count(int i) {
+        return freq[i];
+    }
+
     // draw (and scale) the histogram.
     public void draw() {
         StdDraw.setYscale(-1, max + 1);  // to leave a little border
         StdStats.plotBars(freq);
     }
+
+    // draw (and scale) the histogram on a canvas.
+    public void draw(Canvas canvas) {
+        canvas.setYscale(-1, max + 1);
+        StdStats.plotBars(canvas, freq);
+    }
  
 } 
\ No newline at end of file
@@ -801,6 +801,24 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
         }
     }
 
+    /**
+     * Returns the width of the canvas in pixels.
+     *
+     * @return the width of the canvas in pixels
+     */
+    public static int getCanvasWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the canvas in pixels.
+     *
+     * @return the height of the canvas in pixels
+     */
+    public static int getCanvasHeight() {
+        return height;
+    }
+
     // helper functions that scale from user coordinates to screen coordinates and back
     private static double  scaleX(double x) { return width  * (x - xmin) / (xmax - xmin); }
     private static double  scaleY(double y) { return height * (ymax - y) / (ymax - ymin); }
@@ -1584,6 +1602,15 @@ public final class StdDraw implements ActionListener, MouseListener, MouseMotion
         defer = true;
     }
 
+    /**
+     * Returns true if double buffering is enabled.
+     *
+     * @return {@code true} if drawing goes to the offscreen canvas until {@link #show()}
+     */
+    public static boolean isDoubleBuffered() {
+        return defer;
+    }
+
     /**
      * Disable double buffering. All subsequent calls to 
      * drawing methods such as {@code line()}, {@code circle()},
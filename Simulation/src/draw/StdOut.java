@@ -9,10 +9,22 @@ package draw;
  *
  ******************************************************************************/
 
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.UncheckedIOException;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 /**
  *  This class provides methods for printing strings and numbers to standard output.
@@ -52,6 +64,17 @@ import java.util.Locale;
  *       {@code print()} so that text will appear immediately in the terminal.
  *  </ul>
  *  <p>
+ *  <b>Buffered mode.</b>
+ *  Flushing after every line costs a system call per line, which dominates
+ *  programs that print millions of lines. After {@link #enableBuffering()}
+ *  (or {@link #enableBuffering(String)}, to send the output to a file) the
+ *  text is encoded into large byte buffers instead, and a writer thread
+ *  writes the full buffers to the standard output or file channel while the
+ *  program goes on printing into the next buffer. The output appears only
+ *  when a buffer fills up, on {@link #flush()}, on {@link #disableBuffering()}
+ *  and when the program exits. Text printed with {@link System#out} in the
+ *  meantime is not ordered with respect to it.
+ *  <p>
  *  <b>Reference.</b>
  *  For additional documentation,
  *  see <a href="https://introcs.cs.princeton.edu/15inout">Section 1.5</a> of
@@ -69,13 +92,26 @@ public final class StdOut {
     // assume language = English, country = US for consistency with StdIn
     private static final Locale LOCALE = Locale.US;
 
+    // size and number of the byte buffers of the buffered mode
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int BUFFERS = 4;
+
     // send output here
     private static PrintWriter out;
 
+    // the autoflushing writer of the normal mode
+    private static PrintWriter standard;
+
+    // the buffers and the writer thread of the buffered mode, null in the normal mode
+    private static ChannelOutputStream buffered;
+
+    private static boolean hookAdded;
+
     // this is called before invoking any methods
     static {
         try {
             out = new PrintWriter(new OutputStreamWriter(System.out, CHARSET_NAME), true);
+            standard = out;
         }
         catch (UnsupportedEncodingException e) {
             System.out.println(e);
@@ -85,6 +121,97 @@ public final class StdOut {
     // don't instantiate
     private StdOut() { }
 
+   /**
+     * Switches to the buffered mode, writing to standard output.
+     * Does nothing if the buffered mode is already on.
+     */
+    public static synchronized void enableBuffering() {
+        if (buffered != null) return;
+        out.flush();
+        System.out.flush();
+        // the channel of file descriptor 1, not closed when the buffered mode ends
+        start(new FileOutputStream(FileDescriptor.out).getChannel(), false);
+    }
+
+   /**
+     * Switches to the buffered mode, writing to the specified file (which is
+     * truncated) until {@link #disableBuffering()} is called. If the buffered
+     * mode is already on, its output is flushed and closed first.
+     *
+     * @param filename the name of the file
+     */
+    public static synchronized void enableBuffering(String filename) {
+        disableBuffering();
+        try {
+            start(FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                   StandardOpenOption.TRUNCATE_EXISTING), true);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("could not open " + filename, e);
+        }
+    }
+
+    private static void start(WritableByteChannel channel, boolean closeChannel) {
+        buffered = new ChannelOutputStream(channel, closeChannel);
+        try {
+            out = new PrintWriter(new OutputStreamWriter(buffered, CHARSET_NAME), false);
+        }
+        catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        if (!hookAdded) {
+            Runtime.getRuntime().addShutdownHook(new Thread(StdOut::disableBuffering, "stdout-flush"));
+            hookAdded = true;
+        }
+    }
+
+   /**
+     * Writes everything printed so far, stops the writer thread and returns to
+     * the normal mode (flushing after each call to {@code print()}).
+     * Does nothing if the buffered mode is off.
+     */
+    public static synchronized void disableBuffering() {
+        if (buffered == null) return;
+        out.close();   // flushes and closes the buffered stream
+        ChannelOutputStream stream = buffered;
+        buffered = null;
+        out = standard;
+        if (stream.failure != null)
+            throw new UncheckedIOException("could not write the output", stream.failure);
+    }
+
+   /**
+     * Returns true if the buffered mode is on.
+     *
+     * @return {@code true} if the output is buffered, {@code false} otherwise
+     */
+    public static synchronized boolean isBuffered() {
+        return buffered != null;
+    }
+
+   /**
+     * Returns true if the buffered mode is on and writes to a file
+     * (see {@link #enableBuffering(String)}).
+     *
+     * @return {@code true} if the output is buffered into a file, {@code false} otherwise
+     */
+    public static synchronized boolean isBufferedToFile() {
+        return buffered != null && buffered.closeChannel;
+    }
+
+   /**
+     * Flushes standard output. In the buffered mode, returns once everything
+     * printed so far has been written to the channel.
+     */
+    public static void flush() {
+        out.flush();
+    }
+
+    // flushes after print() in the normal mode
+    private static void autoflush() {
+        if (buffered == null) out.flush();
+    }
+
    /**
      * Closes standard output.
      * @deprecated Calling close() permanently disables standard output;
@@ -200,7 +327,7 @@ public final class StdOut {
      */
     public static void print(Object x) {
         out.print(x);
-        out.flush();
+        autoflush();
     }
 
    /**
@@ -210,7 +337,7 @@ public final class StdOut {
      */
     public static void print(boolean x) {
         out.print(x);
-        out.flush();
+        autoflush();
     }
 
    /**
@@ -220,7 +347,7 @@ public final class StdOut {
      */
     public static void print(char x) {
         out.print(x);
-        out.flush();
+        autoflush();
     }
 
    /**
@@ -230,7 +357,7 @@ public final class StdOut {
      */
     public static void print(double x) {
         out.print(x);
-        out.flush();
+        autoflush();
     }
 
    /**
@@ -240,7 +367,7 @@ public final class StdOut {
      */
     public static void print(float x) {
         out.print(x);
-        out.flush();
+        autoflush();
     }
 
    /**
@@ -250,7 +377,7 @@ public final class StdOut {
      */
     public static void print(int x) {
         out.print(x);
-        out.flush();
+        autoflush();
     }
 
    /**
@@ -260,7 +387,7 @@ public final class StdOut {
      */
     public static void print(long x) {
         out.print(x);
-        out.flush();
+        autoflush();
     }
 
    /**
@@ -270,7 +397,7 @@ public final class StdOut {
      */
     public static void print(short x) {
         out.print(x);
-        out.flush();
+        autoflush();
     }
 
    /**
@@ -280,7 +407,7 @@ public final class StdOut {
      */
     public static void print(byte x) {
         out.print(x);
-        out.flush();
+        autoflush();
     }
 
    /**
@@ -293,7 +420,7 @@ public final class StdOut {
      */
     public static void printf(String format, Object... args) {
         out.printf(LOCALE, format, args);
-        out.flush();
+        autoflush();
     }
 
    /**
@@ -306,7 +433,7 @@ public final class StdOut {
      */
     public static void printf(Locale locale, String format, Object... args) {
         out.printf(locale, format, args);
-        out.flush();
+        autoflush();
     }
 
    /**
@@ -321,6 +448,135 @@ public final class StdOut {
         StdOut.println(17);
         StdOut.println(true);
         StdOut.printf("%.6f\n", 1.0/7.0);
+
+        // buffered mode
+        StdOut.enableBuffering();
+        for (int i = 0; i < 10; i++)
+            StdOut.println("line " + i);
+        StdOut.disableBuffering();
+    }
+
+    // an output stream that fills byte buffers and passes the full ones to a
+    // writer thread, which writes them to the channel and gives them back
+    private static final class ChannelOutputStream extends OutputStream {
+        private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+        private final WritableByteChannel channel;
+        private final boolean closeChannel;
+        private final BlockingQueue<ByteBuffer> full = new ArrayBlockingQueue<ByteBuffer>(BUFFERS + 1);
+        private final BlockingQueue<ByteBuffer> free = new ArrayBlockingQueue<ByteBuffer>(BUFFERS);
+        private final Thread writer;
+        private ByteBuffer current;
+        private long submitted;            // buffers passed to the writer thread
+        private long written;              // buffers written by it, guarded by this
+        private volatile IOException failure;
+        private boolean closed;
+
+        ChannelOutputStream(WritableByteChannel channel, boolean closeChannel) {
+            this.channel = channel;
+            this.closeChannel = closeChannel;
+            for (int i = 1; i < BUFFERS; i++)
+                free.add(ByteBuffer.allocateDirect(BUFFER_SIZE));
+            current = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            writer = new Thread(this::drain, "stdout-writer");
+            writer.setDaemon(true);
+            writer.start();
+        }
+
+        // the writer thread
+        private void drain() {
+            try {
+                while (true) {
+                    ByteBuffer buffer = full.take();
+                    if (buffer == END) return;
+                    try {
+                        while (buffer.hasRemaining())
+                            channel.write(buffer);
+                    }
+                    catch (IOException e) {
+                        if (failure == null) failure = e;
+                    }
+                    buffer.clear();
+                    free.put(buffer);
+                    synchronized (this) {
+                        written++;
+                        notifyAll();
+                    }
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!current.hasRemaining()) submit();
+            current.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (!current.hasRemaining()) submit();
+                int n = Math.min(len, current.remaining());
+                current.put(b, off, n);
+                off += n;
+                len -= n;
+            }
+        }
+
+        // passes the current buffer to the writer thread and takes a free one
+        private void submit() throws IOException {
+            if (closed) throw new IOException("stream closed");
+            if (failure != null) throw failure;
+            current.flip();
+            try {
+                full.put(current);
+                submitted++;
+                current = free.take();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while writing the output", e);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (closed) return;
+            if (current.position() > 0) submit();
+            synchronized (this) {
+                try {
+                    while (written < submitted && writer.isAlive())
+                        wait();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("interrupted while writing the output", e);
+                }
+            }
+            if (failure != null) throw failure;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            try {
+                flush();
+            }
+            finally {
+                closed = true;
+                full.add(END);
+                try {
+                    writer.join();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (closeChannel) channel.close();
+            }
+        }
     }
 
 }
@@ -1,5 +1,9 @@
 package draw;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
 /******************************************************************************
  *  Compilation:  javac StdStats.java
  *  Execution:    java StdStats < input.txt
@@ -48,6 +52,12 @@ package draw;
  */
 public final class StdStats {
 
+    // chunks of at most this many values are summarized by a single thread
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    // line and point plots with more values per pixel column than this are decimated
+    private static final int POINTS_PER_COLUMN = 2;
+
     private StdStats() { }
 
     /**
@@ -452,19 +462,182 @@ public final class StdStats {
         return sum;
     }
 
+    /**
+     * Returns the count, mean, variance, min and max of the specified array,
+     * computed in a single pass over the memory.
+     *
+     * @param  a the array
+     * @return an accumulator holding the values of {@code a[]}
+     * @throws IllegalArgumentException if {@code a} is {@code null}
+     */
+    public static Accumulator summary(double[] a) {
+        validateNotNull(a);
+        return summary(a, 0, a.length);
+    }
+
+    /**
+     * Returns the count, mean, variance, min and max of the specified subarray,
+     * computed in a single pass over the memory.
+     *
+     * @param a the array
+     * @param lo the left endpoint of the subarray (inclusive)
+     * @param hi the right endpoint of the subarray (exclusive)
+     * @return an accumulator holding the values of {@code a[lo..hi)}
+     * @throws IllegalArgumentException if {@code a} is {@code null}
+     * @throws IllegalArgumentException unless {@code (0 <= lo) && (lo <= hi) && (hi <= a.length)}
+     */
+    public static Accumulator summary(double[] a, int lo, int hi) {
+        validateNotNull(a);
+        validateSubarrayIndices(lo, hi, a.length);
+        Accumulator accumulator = new Accumulator();
+        accumulator.addAll(a, lo, hi);
+        return accumulator;
+    }
+
+    /**
+     * Returns the count, mean, variance, min and max of the specified array,
+     * computed by all the cores of the common fork/join pool: the array is split in
+     * halves down to chunks of {@code PARALLEL_THRESHOLD} values, and the summaries
+     * of the halves are combined pairwise.
+     *
+     * @param  a the array
+     * @return an accumulator holding the values of {@code a[]}
+     * @throws IllegalArgumentException if {@code a} is {@code null}
+     */
+    public static Accumulator parallelSummary(double[] a) {
+        validateNotNull(a);
+        return ForkJoinPool.commonPool().invoke(new SummaryTask(a, 0, a.length));
+    }
+
+    /**
+     * Returns the average value in the specified array, computed in parallel.
+     *
+     * @param  a the array
+     * @return the average value in the array {@code a[]};
+     *         {@code Double.NaN} if no such value
+     */
+    public static double parallelMean(double[] a) {
+        return parallelSummary(a).mean();
+    }
+
+    /**
+     * Returns the sample variance in the specified array, computed in parallel.
+     *
+     * @param  a the array
+     * @return the sample variance in the array {@code a[]};
+     *         {@code Double.NaN} if no such value
+     */
+    public static double parallelVar(double[] a) {
+        return parallelSummary(a).var();
+    }
+
+    /**
+     * Returns the sample standard deviation in the specified array, computed in parallel.
+     *
+     * @param  a the array
+     * @return the sample standard deviation in the array {@code a[]};
+     *         {@code Double.NaN} if no such value
+     */
+    public static double parallelStddev(double[] a) {
+        return parallelSummary(a).stddev();
+    }
+
+    /**
+     * Returns the minimum value in the specified array, computed in parallel.
+     *
+     * @param  a the array
+     * @return the minimum value in the array {@code a[]};
+     *         {@code Double.POSITIVE_INFINITY} if no such value
+     */
+    public static double parallelMin(double[] a) {
+        return parallelSummary(a).min();
+    }
+
+    /**
+     * Returns the maximum value in the specified array, computed in parallel.
+     *
+     * @param  a the array
+     * @return the maximum value in the array {@code a[]};
+     *         {@code Double.NEGATIVE_INFINITY} if no such value
+     */
+    public static double parallelMax(double[] a) {
+        return parallelSummary(a).max();
+    }
+
+    // summary of a[lo..hi), split in halves until the chunks are small enough
+    private static class SummaryTask extends RecursiveTask<Accumulator> {
+        private static final long serialVersionUID = 1L;
+        private final double[] a;
+        private final int lo, hi;
+
+        SummaryTask(double[] a, int lo, int hi) {
+            this.a = a;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        protected Accumulator compute() {
+            if (hi - lo <= PARALLEL_THRESHOLD) {
+                Accumulator accumulator = new Accumulator();
+                accumulator.addAll(a, lo, hi);
+                return accumulator;
+            }
+            int mid = lo + (hi - lo) / 2;
+            SummaryTask left = new SummaryTask(a, lo, mid);
+            left.fork();
+            Accumulator right = new SummaryTask(a, mid, hi).compute();
+            Accumulator result = left.join();
+            result.merge(right);
+            return result;
+        }
+    }
+
    /**
      * Plots the points (0, <em>a</em><sub>0</sub>), (1, <em>a</em><sub>1</sub>), ...,
      * (<em>n</em>-1, <em>a</em><sub><em>n</em>-1</sub>) to standard draw.
+     * The points are drawn as one frame, even if double buffering is off.
+     * If there are more points than pixel columns, only the smallest and
+     * the largest value of each column are drawn.
      *
      * @param a the array of values
      */
     public static void plotPoints(double[] a) {
         validateNotNull(a);
         int n = a.length;
+        boolean buffered = beginFrame();
         StdDraw.setXscale(-1, n);
         StdDraw.setPenRadius(1.0 / (3.0 * n));
+        if (n > POINTS_PER_COLUMN * StdDraw.getCanvasWidth()) {
+            plotDecimated(null, a, StdDraw.getCanvasWidth(), false);
+        }
+        else {
+            for (int i = 0; i < n; i++) {
+                StdDraw.point(i, a[i]);
+            }
+        }
+        endFrame(buffered);
+    }
+
+   /**
+     * Plots the points (0, <em>a</em><sub>0</sub>), (1, <em>a</em><sub>1</sub>), ...,
+     * (<em>n</em>-1, <em>a</em><sub><em>n</em>-1</sub>) on the specified canvas.
+     * If there are more points than pixel columns, only the smallest and
+     * the largest value of each column are drawn.
+     *
+     * @param canvas the canvas
+     * @param a the array of values
+     */
+    public static void plotPoints(Canvas canvas, double[] a) {
+        validateNotNull(a);
+        int n = a.length;
+        canvas.setXscale(-1, n);
+        canvas.setPenRadius(1.0 / (3.0 * n));
+        if (n > POINTS_PER_COLUMN * canvas.width()) {
+            plotDecimated(canvas, a, canvas.width(), false);
+            return;
+        }
         for (int i = 0; i < n; i++) {
-            StdDraw.point(i, a[i]);
+            canvas.point(i, a[i]);
         }
     }
 
@@ -473,16 +646,52 @@ public final class StdStats {
      * (<em>i</em>, <em>a</em><sub><em>i</em></sub>) to
      * (<em>i</em>+1, <em>a</em><sub><em>i</em>+1</sub>) for 
      * each <em>i</em> to standard draw.
+     * The segments are drawn as one frame, even if double buffering is off.
+     * If there are more values than pixel columns, each column is drawn as
+     * a vertical segment from its smallest to its largest value, joined to
+     * the next column, which looks the same at a fraction of the cost.
      *
      * @param a the array of values
      */
     public static void plotLines(double[] a) {
         validateNotNull(a);
         int n = a.length;
+        boolean buffered = beginFrame();
         StdDraw.setXscale(-1, n);
         StdDraw.setPenRadius();
+        if (n > POINTS_PER_COLUMN * StdDraw.getCanvasWidth()) {
+            plotDecimated(null, a, StdDraw.getCanvasWidth(), true);
+        }
+        else {
+            for (int i = 1; i < n; i++) {
+                StdDraw.line(i-1, a[i-1], i, a[i]);
+            }
+        }
+        endFrame(buffered);
+    }
+
+   /**
+     * Plots the line segments connecting
+     * (<em>i</em>, <em>a</em><sub><em>i</em></sub>) to
+     * (<em>i</em>+1, <em>a</em><sub><em>i</em>+1</sub>) for
+     * each <em>i</em> on the specified canvas.
+     * If there are more values than pixel columns, each column is drawn as
+     * a vertical segment from its smallest to its largest value.
+     *
+     * @param canvas the canvas
+     * @param a the array of values
+     */
+    public static void plotLines(Canvas canvas, double[] a) {
+        validateNotNull(a);
+        int n = a.length;
+        canvas.setXscale(-1, n);
+        canvas.setPenRadius();
+        if (n > POINTS_PER_COLUMN * canvas.width()) {
+            plotDecimated(canvas, a, canvas.width(), true);
+            return;
+        }
         for (int i = 1; i < n; i++) {
-            StdDraw.line(i-1, a[i-1], i, a[i]);
+            canvas.line(i-1, a[i-1], i, a[i]);
         }
     }
 
@@ -490,16 +699,109 @@ public final class StdStats {
      * Plots bars from (0, <em>a</em><sub><em>i</em></sub>) to
      * (<em>a</em><sub><em>i</em></sub>) for each <em>i</em>
      * to standard draw.
+     * The bars are drawn as one frame, even if double buffering is off.
      *
      * @param a the array of values
      */
     public static void plotBars(double[] a) {
         validateNotNull(a);
         int n = a.length;
+        boolean buffered = beginFrame();
         StdDraw.setXscale(-1, n);
         for (int i = 0; i < n; i++) {
             StdDraw.filledRectangle(i, a[i]/2, 0.25, a[i]/2);
         }
+        endFrame(buffered);
+    }
+
+   /**
+     * Plots bars from (0, <em>a</em><sub><em>i</em></sub>) to
+     * (<em>a</em><sub><em>i</em></sub>) for each <em>i</em>
+     * on the specified canvas.
+     *
+     * @param canvas the canvas
+     * @param a the array of values
+     */
+    public static void plotBars(Canvas canvas, double[] a) {
+        validateNotNull(a);
+        int n = a.length;
+        canvas.setXscale(-1, n);
+        for (int i = 0; i < n; i++) {
+            canvas.filledRectangle(i, a[i]/2, 0.25, a[i]/2);
+        }
+    }
+
+    // plots of n values on x in [-1, n]: the values of a pixel column are reduced to their first,
+    // last, smallest and largest one (in parallel for large arrays), so the number of shapes drawn
+    // depends on the width of the canvas, not on n. draws on standard draw if canvas is null
+    private static void plotDecimated(Canvas canvas, double[] a, int width, boolean lines) {
+        int n = a.length;
+        double[][] columns = new double[width][];
+        IntStream range = IntStream.range(0, width);
+        if (n >= PARALLEL_THRESHOLD) range = range.parallel();
+        range.forEach(c -> columns[c] = column(a, columnStart(c, n, width), columnStart(c+1, n, width)));
+
+        double previousX = Double.NaN;
+        double previousLast = Double.NaN;
+        for (double[] column : columns) {
+            if (column == null) continue;
+            double x = column[0];
+            if (lines) {
+                if (!Double.isNaN(previousX) && !Double.isNaN(previousLast) && !Double.isNaN(column[1]))
+                    line(canvas, previousX, previousLast, x, column[1]);
+                if (!Double.isNaN(column[3])) line(canvas, x, column[3], x, column[4]);
+                previousX = x;
+                previousLast = column[2];
+            }
+            else if (!Double.isNaN(column[3])) {
+                point(canvas, x, column[3]);
+                if (column[4] != column[3]) point(canvas, x, column[4]);
+            }
+        }
+    }
+
+    // first index drawn in pixel column c, the x-coordinate i maps to the pixel width*(i+1)/(n+1)
+    private static int columnStart(int c, int n, int width) {
+        if (c >= width) return n;
+        int i = (int) Math.ceil((double) c * (n + 1) / width) - 1;
+        return Math.max(0, Math.min(i, n));
+    }
+
+    // {x, first, last, min, max} of a[lo..hi), NaN min and max if all are NaN, null if empty
+    private static double[] column(double[] a, int lo, int hi) {
+        if (lo >= hi) return null;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = lo; i < hi; i++) {
+            if (a[i] < min) min = a[i];
+            if (a[i] > max) max = a[i];
+        }
+        if (min > max) min = max = Double.NaN;
+        return new double[] { (lo + hi - 1) / 2.0, a[lo], a[hi-1], min, max };
+    }
+
+    private static void line(Canvas canvas, double x0, double y0, double x1, double y1) {
+        if (canvas == null) StdDraw.line(x0, y0, x1, y1);
+        else canvas.line(x0, y0, x1, y1);
+    }
+
+    private static void point(Canvas canvas, double x, double y) {
+        if (canvas == null) StdDraw.point(x, y);
+        else canvas.point(x, y);
+    }
+
+    // without double buffering every shape would repaint the window: draw offscreen
+    // and show the plot once, returns whether double buffering was already on
+    private static boolean beginFrame() {
+        boolean buffered = StdDraw.isDoubleBuffered();
+        StdDraw.enableDoubleBuffering();
+        return buffered;
+    }
+
+    private static void endFrame(boolean buffered) {
+        if (buffered) return;
+        StdDraw.show();
+        StdDraw.disableDoubleBuffering();
     }
 
     // throw an IllegalArgumentException if x is null
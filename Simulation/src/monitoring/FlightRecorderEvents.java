@@ -0,0 +1,147 @@
+package monitoring;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+//the Java Flight Recorder event types of the simulations. they are defined when the class loads with
+//jdk.jfr.EventFactory, through reflection, so that nothing else refers to a jdk.jfr type: the tree builds for Java 8
+//and runs on a JVM without JFR, where load() returns null and FlightRecorderProbe does nothing
+final class FlightRecorderEvents {
+
+	final Type run; //a replication, from its first event to the stop, framing the samples taken during it
+	final Type sample; //state and speed, every FlightRecorderProbe.SAMPLE_INTERVAL events of a run
+	final Type warmUp; //the mean queue length settled (Simulation.isInSteadyState)
+	final Type splittingStage; //a stage of MMCLSplitting: the plain cycles, the run to every level, the last stage
+	final Type checkpoint; //a new global virtual time of TimeWarpNetwork
+
+	private final Class<?> annotationElement;
+	private final Constructor<?> annotation; //AnnotationElement(Class, Object)
+	private final Constructor<?> field; //ValueDescriptor(Class, String, List)
+	private final Method create; //EventFactory.create(List, List)
+	private final Method newEvent, begin, end, shouldCommit, set, commit;
+
+	//the single check for JFR: null if the jdk.jfr classes are missing or refuse the definitions
+	static FlightRecorderEvents load() {
+		try {
+			return new FlightRecorderEvents();
+		} catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+			return null;
+		}
+	}
+
+	private FlightRecorderEvents() throws ReflectiveOperationException {
+		Class<?> event = Class.forName("jdk.jfr.Event");
+		Class<?> factory = Class.forName("jdk.jfr.EventFactory");
+		annotationElement = Class.forName("jdk.jfr.AnnotationElement");
+		annotation = annotationElement.getConstructor(Class.class, Object.class);
+		field = Class.forName("jdk.jfr.ValueDescriptor").getConstructor(Class.class, String.class, List.class);
+		create = factory.getMethod("create", List.class, List.class);
+		newEvent = factory.getMethod("newEvent");
+		begin = event.getMethod("begin");
+		end = event.getMethod("end");
+		shouldCommit = event.getMethod("shouldCommit");
+		set = event.getMethod("set", int.class, Object.class);
+		commit = event.getMethod("commit");
+
+		run = define("simulationModels.Run", "Simulation Run",
+				"A replication of a simulation model, from the first event to the stop condition",
+				String.class, "model", "Model",
+				String.class, "engine", "Engine",
+				long.class, "events", "Events",
+				double.class, "clock", "Simulated Time",
+				long.class, "served", "Served Jobs",
+				long.class, "dropped", "Dropped Jobs",
+				String.class, "stopReason", "Stopped By");
+		sample = define("simulationModels.Sample", "Simulation Sample",
+				"State and speed of a running simulation, sampled at a fixed number of events",
+				long.class, "events", "Events",
+				double.class, "clock", "Simulated Time",
+				int.class, "jobsInSystem", "Jobs in System",
+				double.class, "eventsPerSecond", "Events per Second");
+		warmUp = define("simulationModels.WarmUp", "Warm-up Completed",
+				"The mean number of jobs in the system reached its steady state",
+				String.class, "model", "Model",
+				long.class, "events", "Events",
+				double.class, "clock", "Simulated Time",
+				double.class, "meanJobsInSystem", "Mean Jobs in System");
+		splittingStage = define("simulationModels.SplittingStage", "Splitting Stage",
+				"A stage of the splitting estimator of the dropping probability",
+				int.class, "stage", "Stage",
+				int.class, "trajectories", "Trajectories",
+				int.class, "entrances", "Entrance States Found");
+		checkpoint = define("simulationModels.Checkpoint", "GVT Checkpoint",
+				"The Time Warp workers agreed on a new global virtual time",
+				long.class, "round", "Round",
+				double.class, "gvt", "Global Virtual Time");
+	}
+
+	//an event type in the Simulation category without stack traces, fields given as (type, name, label) triples
+	private Type define(String name, String label, String description, Object... fields)
+			throws ReflectiveOperationException {
+		List<Object> annotations = Arrays.asList(
+				annotation("jdk.jfr.Name", name),
+				annotation("jdk.jfr.Label", label),
+				annotation("jdk.jfr.Category", new String[] {"Simulation"}),
+				annotation("jdk.jfr.Description", description),
+				annotation("jdk.jfr.StackTrace", Boolean.FALSE));
+		List<Object> descriptors = new ArrayList<>();
+		for (int i = 0; i < fields.length; i += 3)
+			descriptors.add(field.newInstance(fields[i], fields[i + 1],
+					Collections.singletonList(annotation("jdk.jfr.Label", fields[i + 2]))));
+		return new Type(create.invoke(null, annotations, descriptors));
+	}
+
+	private Object annotation(String type, Object value) throws ReflectiveOperationException {
+		return annotation.newInstance(Class.forName(type).asSubclass(Annotation.class), value);
+	}
+
+	//an event type, its events are plain Objects (jdk.jfr.Event)
+	final class Type {
+
+		private final Object factory;
+
+		private Type(Object factory) {
+			this.factory = factory;
+		}
+
+		//a new event with its start time taken now
+		Object begin() {
+			Object event = call(newEvent, factory);
+			call(begin, event);
+			return event;
+		}
+
+		void end(Object event) {
+			call(end, event);
+		}
+
+		//false if JFR isn't recording this type (or its threshold isn't met), the values are then not needed
+		boolean shouldCommit(Object event) {
+			return (Boolean)call(shouldCommit, event);
+		}
+
+		//sets the fields in their order of definition and writes the event
+		void commit(Object event, Object... values) {
+			for (int i = 0; i < values.length; i++)
+				call(set, event, i, values[i]);
+			call(commit, event);
+		}
+	}
+
+	private static Object call(Method method, Object target, Object... arguments) {
+		try {
+			return method.invoke(target, arguments);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException("Error: Could not call " + method.getName(), e);
+		} catch (InvocationTargetException e) {
+			throw new IllegalStateException("Error: " + method.getName() + " failed", e.getCause());
+		}
+	}
+
+}
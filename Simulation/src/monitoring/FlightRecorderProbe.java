@@ -0,0 +1,96 @@
+package monitoring;
+
+import simulationModels.Simulation;
+
+//emits the Java Flight Recorder events of the simulations: the runs, samples taken during them, the end of the
+//warm-up, the stages of the splitting estimator and the Time Warp checkpoints. the run loop only calls it every
+//SAMPLE_INTERVAL events and at the stop, and with JFR off (or these events disabled) shouldCommit() is false and
+//nothing is filled in, so it costs nothing measurable. on a JVM without JFR every method returns at once
+public class FlightRecorderProbe {
+
+	public static final long SAMPLE_INTERVAL = 1 << 16; //a power of 2, checked with a mask
+
+	private static final FlightRecorderEvents EVENTS = FlightRecorderEvents.load(); //null without JFR
+
+	private Object run; //the run in progress
+	private Object stage; //the splitting stage in progress
+	private long lastNanos;
+	private long lastEvents;
+
+	//true if the JVM has JFR and the event types could be defined
+	public static boolean isAvailable() {
+		return EVENTS != null;
+	}
+
+	//called by the simulation before event k, k % SAMPLE_INTERVAL == 0 or the run is stopping
+	public void record(Simulation simulation, long k, boolean running) {
+		if(EVENTS == null)
+			return;
+		if(k == 0) {
+			run = EVENTS.run.begin();
+			lastNanos = System.nanoTime();
+			lastEvents = simulation.getNumberOfEvents();
+		}
+		if(!running) {
+			end(simulation);
+			return;
+		}
+		if(k == 0)
+			return;
+		Object sample = EVENTS.sample.begin();
+		if(EVENTS.sample.shouldCommit(sample)) {
+			long now = System.nanoTime();
+			long events = simulation.getNumberOfEvents();
+			double eventsPerSecond = now > lastNanos ? (events - lastEvents) * 1e9 / (now - lastNanos) : 0;
+			EVENTS.sample.commit(sample, events, simulation.getClock(), simulation.getNumberOfJobsInSystem(),
+					eventsPerSecond);
+			lastNanos = now;
+			lastEvents = events;
+		}
+	}
+
+	private void end(Simulation simulation) {
+		String stopReason = simulation.getRunControl().getStopReason();
+		String model = simulation.getClass().getSimpleName();
+		if("steady state".equals(stopReason)) {
+			Object warmUp = EVENTS.warmUp.begin();
+			if(EVENTS.warmUp.shouldCommit(warmUp))
+				EVENTS.warmUp.commit(warmUp, model, simulation.getNumberOfEvents(), simulation.getClock(),
+						simulation.getMeanQueueLength());
+		}
+		if(run == null)
+			return;
+		EVENTS.run.end(run);
+		if(EVENTS.run.shouldCommit(run))
+			EVENTS.run.commit(run, model, simulation.isJumpChain() ? "jump chain" : "event list",
+					simulation.getNumberOfEvents(), simulation.getClock(), simulation.getNumberServed(),
+					simulation.getNumberDropped(), stopReason);
+		run = null;
+	}
+
+	//a stage of the splitting estimator starts
+	public void beginSplittingStage() {
+		if(EVENTS != null)
+			stage = EVENTS.splittingStage.begin();
+	}
+
+	//the stage started last ends after the given number of trajectories, which found that many entrance states
+	public void endSplittingStage(int index, int trajectories, int entrances) {
+		if(stage == null)
+			return;
+		EVENTS.splittingStage.end(stage);
+		if(EVENTS.splittingStage.shouldCommit(stage))
+			EVENTS.splittingStage.commit(stage, index, trajectories, entrances);
+		stage = null;
+	}
+
+	//the Time Warp workers agreed on a new global virtual time
+	public static void checkpoint(long round, double gvt) {
+		if(EVENTS == null)
+			return;
+		Object checkpoint = EVENTS.checkpoint.begin();
+		if(EVENTS.checkpoint.shouldCommit(checkpoint))
+			EVENTS.checkpoint.commit(checkpoint, round, gvt);
+	}
+
+}
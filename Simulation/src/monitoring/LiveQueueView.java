@@ -0,0 +1,221 @@
+package monitoring;
+
+import java.awt.Color;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import draw.StdDraw;
+import simulationModels.Simulation;
+
+//live animation of a running simulation in StdDraw: the queue as a bar, a lamp per server (busy, idle or broken)
+//and a rolling chart of the number of jobs in the system.
+//the simulation thread only puts an immutable snapshot in a slot every publishInterval events (one writer, no
+//locks, the older snapshot is simply replaced); a renderer thread takes the latest one at a fixed frame rate and
+//draws it with double buffering, so a slow screen never holds the simulation back
+public class LiveQueueView {
+
+	//what the renderer needs from the simulation at one moment
+	private static final class Snapshot {
+		final double clock;
+		final long events;
+		final int jobs;
+		final int busy;
+		final int broken;
+		final boolean finished;
+
+		Snapshot(double clock, long events, int jobs, int busy, int broken, boolean finished) {
+			this.clock = clock;
+			this.events = events;
+			this.jobs = jobs;
+			this.busy = busy;
+			this.broken = broken;
+			this.finished = finished;
+		}
+	}
+
+	private static final Color IDLE = Color.LIGHT_GRAY;
+	private static final Color BUSY = new Color(40, 160, 60);
+	private static final Color BROKEN = new Color(200, 40, 40);
+	private static final int WIDTH = 600;
+	private static final int HEIGHT = 500;
+
+	private final int numberOfServers;
+	private final int maxLength; //L, the most jobs the system holds
+	private final AtomicReference<Snapshot> slot = new AtomicReference<>();
+	private long publishInterval;
+	private int framesPerSecond;
+	private ScheduledExecutorService renderer;
+
+	//used by the renderer thread only
+	private final double[] chartClock;
+	private final double[] chartJobs;
+	private int chartStart, chartSize;
+	private Snapshot drawn;
+	private long drawnNanos;
+	private double eventsPerSecond;
+
+	public LiveQueueView(int numberOfServers, int maxLength) {
+		if(numberOfServers < 1)
+			throw new IllegalArgumentException("Error: The number of servers has to be 1 or more");
+		if(maxLength < numberOfServers)
+			throw new IllegalArgumentException("Error: L is not allowed to be smaller than c");
+		this.numberOfServers = numberOfServers;
+		this.maxLength = maxLength;
+		this.publishInterval = 4096;
+		this.framesPerSecond = 30;
+		this.chartClock = new double[400];
+		this.chartJobs = new double[chartClock.length];
+	}
+
+	//called by the simulation thread before event k
+	public void publish(Simulation simulation, boolean running) {
+		slot.lazySet(new Snapshot(simulation.getClock(), simulation.getNumberOfEvents(),
+				simulation.getNumberOfJobsInSystem(), simulation.getBusyServers(), simulation.getBrokenServers(), !running));
+	}
+
+	//opens the window and starts drawing at the frame rate
+	public void start() {
+		if(renderer != null)
+			return;
+		StdDraw.setCanvasSize(WIDTH, HEIGHT);
+		StdDraw.enableDoubleBuffering();
+		chartStart = chartSize = 0;
+		drawn = null;
+		renderer = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "live-queue-view");
+			thread.setDaemon(true);
+			return thread;
+		});
+		renderer.scheduleAtFixedRate(this::frame, 0, 1000000000L / framesPerSecond, TimeUnit.NANOSECONDS);
+	}
+
+	//stops drawing, the window keeps the last frame
+	public void stop() {
+		if(renderer == null)
+			return;
+		//the final state is drawn by the renderer too, so it never runs alongside a frame in progress (the queued task
+		//still runs after shutdown, only the periodic one is cancelled)
+		renderer.execute(this::frame);
+		renderer.shutdown();
+		try {
+			renderer.awaitTermination(1, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		renderer = null;
+	}
+
+	private void frame() {
+		Snapshot snapshot = slot.get();
+		if(snapshot == null || snapshot == drawn)
+			return;
+		long now = System.nanoTime();
+		if(drawn != null && now > drawnNanos && snapshot.events >= drawn.events)
+			eventsPerSecond = (snapshot.events - drawn.events) * 1e9 / (now - drawnNanos);
+		else if(drawn != null) //a new run
+			chartStart = chartSize = 0;
+		drawn = snapshot;
+		drawnNanos = now;
+		addToChart(snapshot);
+
+		StdDraw.clear();
+		StdDraw.setXscale(0, 1);
+		StdDraw.setYscale(0, 1);
+		StdDraw.setPenColor(StdDraw.BLACK);
+		StdDraw.textLeft(0.03, 0.96, String.format("t = %.2f   events = %d   %.0f events/s%s", snapshot.clock,
+				snapshot.events, snapshot.finished ? 0 : eventsPerSecond, snapshot.finished ? "   (finished)" : ""));
+		drawQueue(snapshot);
+		drawServers(snapshot);
+		drawChart();
+		StdDraw.show();
+	}
+
+	//the jobs waiting, out of the L - c places of the queue
+	private void drawQueue(Snapshot snapshot) {
+		int waiting = Math.max(snapshot.jobs - snapshot.busy, 0);
+		int places = maxLength - numberOfServers;
+		StdDraw.textLeft(0.03, 0.87, "Queue: " + waiting + " / " + places);
+		if(places == 0)
+			return;
+		double fill = Math.min((double)waiting / places, 1);
+		StdDraw.setPenColor(StdDraw.BOOK_BLUE);
+		if(fill > 0)
+			StdDraw.filledRectangle(0.1 + 0.4 * fill, 0.81, 0.4 * fill, 0.025);
+		StdDraw.setPenColor(StdDraw.BLACK);
+		StdDraw.rectangle(0.5, 0.81, 0.4, 0.025);
+	}
+
+	//the broken servers first, then the busy ones, then the idle ones
+	private void drawServers(Snapshot snapshot) {
+		StdDraw.setPenColor(StdDraw.BLACK);
+		StdDraw.textLeft(0.03, 0.73, "Servers: " + snapshot.busy + " busy, " + snapshot.broken + " broken");
+		int perRow = Math.min(numberOfServers, 40);
+		int rows = (numberOfServers + perRow - 1) / perRow;
+		double step = 0.9 / perRow;
+		double radius = Math.min(0.35 * step, Math.min(0.025, 0.1 / rows)); //in x units, the canvas is wider than high
+		for (int i = 0; i < numberOfServers; i++) {
+			if(i < snapshot.broken)
+				StdDraw.setPenColor(BROKEN);
+			else if(i < snapshot.broken + snapshot.busy)
+				StdDraw.setPenColor(BUSY);
+			else
+				StdDraw.setPenColor(IDLE);
+			double y = 0.65 - (i / perRow) * 2.4 * radius * WIDTH / HEIGHT;
+			StdDraw.filledEllipse(0.05 + step * (i % perRow + 0.5), y, radius, radius * WIDTH / HEIGHT);
+		}
+	}
+
+	private void addToChart(Snapshot snapshot) {
+		int index = (chartStart + chartSize) % chartClock.length;
+		chartClock[index] = snapshot.clock;
+		chartJobs[index] = snapshot.jobs;
+		if(chartSize < chartClock.length)
+			chartSize++;
+		else
+			chartStart = (chartStart + 1) % chartClock.length;
+	}
+
+	//the last frames' numbers of jobs against the simulated time, in the box (0.1, 0.05) - (0.95, 0.45)
+	private void drawChart() {
+		StdDraw.setPenColor(StdDraw.BLACK);
+		StdDraw.rectangle(0.525, 0.25, 0.425, 0.2);
+		StdDraw.textRight(0.09, 0.45, Integer.toString(maxLength));
+		StdDraw.textRight(0.09, 0.05, "0");
+		if(chartSize < 2)
+			return;
+		double first = chartClock[chartStart];
+		double last = chartClock[(chartStart + chartSize - 1) % chartClock.length];
+		double width = last > first ? last - first : 1;
+		StdDraw.setPenColor(StdDraw.BOOK_RED);
+		for (int j = 1; j < chartSize; j++) {
+			int a = (chartStart + j - 1) % chartClock.length;
+			int b = (chartStart + j) % chartClock.length;
+			StdDraw.line(0.1 + 0.85 * (chartClock[a] - first) / width, 0.05 + 0.4 * chartJobs[a] / maxLength,
+					0.1 + 0.85 * (chartClock[b] - first) / width, 0.05 + 0.4 * chartJobs[b] / maxLength);
+		}
+	}
+
+	public long getPublishInterval() {
+		return publishInterval;
+	}
+
+	public void setPublishInterval(long publishInterval) {
+		if(publishInterval < 1)
+			throw new IllegalArgumentException("Error: The publish interval has to be 1 or more events");
+		this.publishInterval = publishInterval;
+	}
+
+	public int getFramesPerSecond() {
+		return framesPerSecond;
+	}
+
+	//takes effect at the next start()
+	public void setFramesPerSecond(int framesPerSecond) {
+		if(framesPerSecond < 1)
+			throw new IllegalArgumentException("Error: The frame rate has to be 1 or more");
+		this.framesPerSecond = framesPerSecond;
+	}
+
+}
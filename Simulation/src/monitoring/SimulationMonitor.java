@@ -0,0 +1,237 @@
+package monitoring;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import auxMath.Quantiles;
+import simulationModels.Simulation;
+
+//JMX view of a running simulation. the engine keeps counting in its own plain fields, and every publishInterval events
+//(and at the end of the run) it copies them here into volatile fields, so watching a run costs one modulo per event.
+//every publish also closes a batch: the means over the batches give confidence intervals of the main estimates
+public class SimulationMonitor implements SimulationMonitorMBean {
+
+	private volatile long publishInterval;
+	private double z; //normal quantile of the confidence level
+	private ObjectName objectName; //null if not registered
+
+	//published values
+	private volatile boolean running;
+	private volatile long events;
+	private volatile long arrivals;
+	private volatile long servedJobs;
+	private volatile long droppedJobs;
+	private volatile long failures;
+	private volatile long repairs;
+	private volatile double eventsPerSecond;
+	private volatile double clock;
+	private volatile int jobsInSystem;
+	private volatile int busyServers;
+	private volatile int brokenServers;
+	private volatile double meanJobsInSystem;
+	private volatile double throughput;
+	private volatile double droppingProbability;
+	private volatile double[] halfWidths = {Double.NaN, Double.NaN, Double.NaN};
+	private volatile long batches;
+
+	//state of the previous publish, only touched by the simulation thread
+	private long lastNanos;
+	private long lastEvents;
+	private double lastClock;
+	private double lastJobsArea;
+	private long lastServed;
+	private long lastDropped;
+	//running mean and sum of squared deviations of every batch quantity (Welford)
+	private double[] batchMean = new double[3];
+	private double[] batchM2 = new double[3];
+
+	public SimulationMonitor() {
+		this(100000);
+	}
+
+	public SimulationMonitor(long publishInterval) {
+		setPublishInterval(publishInterval);
+		this.z = Quantiles.normal(0.975);
+	}
+
+	//makes the monitor visible to jconsole as simulationModels:type=Simulation,name=<name>
+	public void register(String name) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			objectName = new ObjectName("simulationModels:type=Simulation,name=" + ObjectName.quote(name));
+			server.registerMBean(this, objectName);
+		} catch (JMException e) {
+			objectName = null;
+			throw new IllegalStateException("Error: Could not register the monitor " + name, e);
+		}
+	}
+
+	public void unregister() {
+		if(objectName == null)
+			return;
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+		} catch (JMException e) {
+			throw new IllegalStateException("Error: Could not unregister the monitor " + objectName, e);
+		} finally {
+			objectName = null;
+		}
+	}
+
+	//called by the simulation before event k
+	public void publish(Simulation simulation, long k, boolean running) {
+		long now = System.nanoTime();
+		long eventsNow = simulation.getNumberOfEvents();
+		double clockNow = simulation.getClock();
+		double jobsArea = simulation.getJobsArea();
+		long served = simulation.getNumberServed();
+		long dropped = simulation.getNumberDropped();
+		if(k == 0) { //a new run
+			lastNanos = now;
+			lastEvents = eventsNow;
+			lastClock = clockNow;
+			lastJobsArea = jobsArea;
+			lastServed = served;
+			lastDropped = dropped;
+			batchMean = new double[3];
+			batchM2 = new double[3];
+			batches = 0;
+			halfWidths = new double[] {Double.NaN, Double.NaN, Double.NaN};
+			eventsPerSecond = 0;
+		} else if(running && clockNow > lastClock) { //the last, partial batch of a run is left out
+			if(now > lastNanos)
+				eventsPerSecond = (eventsNow - lastEvents) * 1e9 / (now - lastNanos);
+			double elapsed = clockNow - lastClock;
+			long jobs = (served - lastServed) + (dropped - lastDropped);
+			addBatch(new double[] {(jobsArea - lastJobsArea) / elapsed, (served - lastServed) / elapsed,
+					jobs == 0 ? 0 : (dropped - lastDropped) / (double)jobs});
+			lastNanos = now;
+			lastEvents = eventsNow;
+			lastClock = clockNow;
+			lastJobsArea = jobsArea;
+			lastServed = served;
+			lastDropped = dropped;
+		}
+		this.events = eventsNow;
+		this.arrivals = simulation.getNumberOfArrivals();
+		this.servedJobs = served;
+		this.droppedJobs = dropped;
+		this.failures = simulation.getNumberOfFailures();
+		this.repairs = simulation.getNumberOfRepairs();
+		this.clock = clockNow;
+		this.jobsInSystem = simulation.getNumberOfJobsInSystem();
+		this.busyServers = simulation.getBusyServers();
+		this.brokenServers = simulation.getBrokenServers();
+		this.meanJobsInSystem = simulation.getMeanQueueLength();
+		this.throughput = clockNow > 0 ? served / clockNow : 0;
+		this.droppingProbability = served + dropped > 0 ? dropped / (double)(served + dropped) : 0;
+		this.running = running;
+	}
+
+	private void addBatch(double[] values) {
+		long n = batches + 1;
+		double[] widths = new double[values.length];
+		for (int i = 0; i < values.length; i++) {
+			double delta = values[i] - batchMean[i];
+			batchMean[i] += delta / n;
+			batchM2[i] += delta * (values[i] - batchMean[i]);
+			widths[i] = n < 2 ? Double.NaN : z * Math.sqrt(batchM2[i] / (n - 1) / n);
+		}
+		halfWidths = widths;
+		batches = n;
+	}
+
+	public boolean isRunning() {
+		return running;
+	}
+
+	public long getEvents() {
+		return events;
+	}
+
+	public long getArrivals() {
+		return arrivals;
+	}
+
+	public long getServedJobs() {
+		return servedJobs;
+	}
+
+	public long getDroppedJobs() {
+		return droppedJobs;
+	}
+
+	public long getFailures() {
+		return failures;
+	}
+
+	public long getRepairs() {
+		return repairs;
+	}
+
+	public double getEventsPerSecond() {
+		return eventsPerSecond;
+	}
+
+	public double getClock() {
+		return clock;
+	}
+
+	public int getJobsInSystem() {
+		return jobsInSystem;
+	}
+
+	public int getWaitingJobs() {
+		return Math.max(jobsInSystem - busyServers, 0);
+	}
+
+	public int getBusyServers() {
+		return busyServers;
+	}
+
+	public int getBrokenServers() {
+		return brokenServers;
+	}
+
+	public double getMeanJobsInSystem() {
+		return meanJobsInSystem;
+	}
+
+	public double getMeanJobsInSystemHalfWidth() {
+		return halfWidths[0];
+	}
+
+	public double getThroughput() {
+		return throughput;
+	}
+
+	public double getThroughputHalfWidth() {
+		return halfWidths[1];
+	}
+
+	public double getDroppingProbability() {
+		return droppingProbability;
+	}
+
+	public double getDroppingProbabilityHalfWidth() {
+		return halfWidths[2];
+	}
+
+	public long getBatches() {
+		return batches;
+	}
+
+	public long getPublishInterval() {
+		return publishInterval;
+	}
+
+	public void setPublishInterval(long publishInterval) {
+		if(publishInterval < 1)
+			throw new IllegalArgumentException("Error: The publish interval has to be 1 or more events");
+		this.publishInterval = publishInterval;
+	}
+
+}
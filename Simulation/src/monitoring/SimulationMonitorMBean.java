@@ -0,0 +1,37 @@
+package monitoring;
+
+//the attributes of a running simulation seen from jconsole (or any JMX client)
+public interface SimulationMonitorMBean {
+
+	boolean isRunning();
+
+	//events processed by type
+	long getEvents();
+	long getArrivals();
+	long getServedJobs();
+	long getDroppedJobs();
+	long getFailures();
+	long getRepairs();
+
+	double getEventsPerSecond();
+	double getClock();
+
+	//the current state
+	int getJobsInSystem();
+	int getWaitingJobs();
+	int getBusyServers();
+	int getBrokenServers();
+
+	//current estimates and the half widths of their confidence intervals (batch means, one batch per publish)
+	double getMeanJobsInSystem();
+	double getMeanJobsInSystemHalfWidth();
+	double getThroughput();
+	double getThroughputHalfWidth();
+	double getDroppingProbability();
+	double getDroppingProbabilityHalfWidth();
+	long getBatches();
+
+	long getPublishInterval();
+	void setPublishInterval(long publishInterval);
+
+}
@@ -0,0 +1,311 @@
+package monitoring;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+
+//the number of jobs in the system and of busy servers over the simulated time of one run, fed by the state records of
+//the simulation (every period the system stayed in a state). the time is cut into fixed buckets and every bucket
+//keeps the time weighted mean, the minimum and the maximum of both; finished buckets are streamed to a CSV or
+//binary file. for plotting, a second series of at most 2*targetPoints points is kept: when it fills up, neighbouring
+//points are merged in pairs (means weighted by time, min of the minima, max of the maxima) and later buckets are
+//merged as many at a time, so the memory stays constant however long the run is. getDownsampled() reduces it to
+//targetPoints points with the largest triangle three buckets (LTTB) algorithm on the mean number of jobs.
+public class TimeSeriesRecorder {
+
+	public static final int BINARY_MAGIC = 0x51545331; //"QTS1"
+	private static final String HEADER = "time,meanJobs,minJobs,maxJobs,meanBusy,minBusy,maxBusy";
+
+	private double bucketWidth;
+	private int targetPoints;
+
+	//the bucket being filled
+	private long bucketIndex;
+	private double bucketTime; //time covered so far
+	private double jobsArea;
+	private double busyArea;
+	private int minJobs, maxJobs, minBusy, maxBusy;
+
+	//downsampled series, points merge stride buckets each
+	private int size;
+	private double[] time, span, meanJobs, meanBusy;
+	private int[] minJobsOf, maxJobsOf, minBusyOf, maxBusyOf;
+	private long stride;
+	private long pending; //buckets merged into the point at index size so far
+
+	private PrintWriter csv;
+	private DataOutputStream binary;
+
+	public TimeSeriesRecorder(double bucketWidth, int targetPoints) {
+		if(!(bucketWidth > 0))
+			throw new IllegalArgumentException("Error: The bucket width has to be positive");
+		if(targetPoints < 3)
+			throw new IllegalArgumentException("Error: At least 3 target points are needed");
+		this.bucketWidth = bucketWidth;
+		this.targetPoints = targetPoints;
+		int capacity = 2 * targetPoints + 1; //one more for the point being merged
+		time = new double[capacity];
+		span = new double[capacity];
+		meanJobs = new double[capacity];
+		meanBusy = new double[capacity];
+		minJobsOf = new int[capacity];
+		maxJobsOf = new int[capacity];
+		minBusyOf = new int[capacity];
+		maxBusyOf = new int[capacity];
+		reset();
+	}
+
+	//forgets the recorded series (the output file stays open)
+	public void reset() {
+		bucketIndex = 0;
+		size = 0;
+		stride = 1;
+		pending = 0;
+		clearBucket();
+	}
+
+	private void clearBucket() {
+		bucketTime = 0;
+		jobsArea = 0;
+		busyArea = 0;
+		minJobs = minBusy = Integer.MAX_VALUE;
+		maxJobs = maxBusy = Integer.MIN_VALUE;
+	}
+
+	//streams every finished bucket to a CSV file
+	public void openCsv(String file) {
+		close();
+		try {
+			csv = new PrintWriter(new BufferedWriter(new FileWriter(file)));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error: Could not open " + file, e);
+		}
+		csv.println(HEADER);
+	}
+
+	//streams every finished bucket to a binary file: the magic number and the bucket width, then per bucket
+	//meanJobs (double), minJobs, maxJobs (int), meanBusy (double), minBusy, maxBusy (int), 32 bytes in all
+	public void openBinary(String file) {
+		close();
+		try {
+			binary = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+			binary.writeInt(BINARY_MAGIC);
+			binary.writeDouble(bucketWidth);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error: Could not open " + file, e);
+		}
+	}
+
+	//the system had the given number of jobs and busy servers from start for the given duration
+	public void record(double start, double duration, int jobs, int busy) {
+		if(!(duration > 0))
+			return;
+		double end = start + duration;
+		double bucketEnd = (bucketIndex + 1) * bucketWidth;
+		while (end >= bucketEnd) {
+			add(jobs, busy, bucketEnd - start);
+			finishBucket();
+			start = bucketEnd;
+			bucketEnd = (bucketIndex + 1) * bucketWidth;
+		}
+		add(jobs, busy, end - start);
+	}
+
+	private void add(int jobs, int busy, double duration) {
+		if(duration <= 0)
+			return;
+		bucketTime += duration;
+		jobsArea += jobs * duration;
+		busyArea += busy * duration;
+		minJobs = Math.min(minJobs, jobs);
+		maxJobs = Math.max(maxJobs, jobs);
+		minBusy = Math.min(minBusy, busy);
+		maxBusy = Math.max(maxBusy, busy);
+	}
+
+	private void finishBucket() {
+		if(bucketTime > 0) {
+			double start = bucketIndex * bucketWidth;
+			write(start, jobsArea / bucketTime, minJobs, maxJobs, busyArea / bucketTime, minBusy, maxBusy);
+			addPoint(start, bucketTime, jobsArea / bucketTime, minJobs, maxJobs, busyArea / bucketTime, minBusy, maxBusy);
+		}
+		bucketIndex++;
+		clearBucket();
+	}
+
+	private void write(double start, double jobs, int minJobs, int maxJobs, double busy, int minBusy, int maxBusy) {
+		if(csv != null)
+			csv.println(start + "," + jobs + "," + minJobs + "," + maxJobs + "," + busy + "," + minBusy + "," + maxBusy);
+		if(binary != null) {
+			try {
+				binary.writeDouble(jobs);
+				binary.writeInt(minJobs);
+				binary.writeInt(maxJobs);
+				binary.writeDouble(busy);
+				binary.writeInt(minBusy);
+				binary.writeInt(maxBusy);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Error: Could not write the time series", e);
+			}
+		}
+	}
+
+	private void addPoint(double start, double duration, double jobs, int minJobs, int maxJobs, double busy,
+			int minBusy, int maxBusy) {
+		if(pending == 0) {
+			time[size] = start;
+			span[size] = duration;
+			meanJobs[size] = jobs;
+			meanBusy[size] = busy;
+			minJobsOf[size] = minJobs;
+			maxJobsOf[size] = maxJobs;
+			minBusyOf[size] = minBusy;
+			maxBusyOf[size] = maxBusy;
+		} else {
+			merge(size, start, duration, jobs, minJobs, maxJobs, busy, minBusy, maxBusy);
+		}
+		if(++pending < stride)
+			return;
+		pending = 0;
+		size++;
+		if(size == 2 * targetPoints) { //merge the points in pairs, from now on a point takes twice as many buckets
+			for (int i = 0; i < targetPoints; i++) {
+				copy(2 * i, i);
+				merge(i, time[2 * i + 1], span[2 * i + 1], meanJobs[2 * i + 1], minJobsOf[2 * i + 1], maxJobsOf[2 * i + 1],
+						meanBusy[2 * i + 1], minBusyOf[2 * i + 1], maxBusyOf[2 * i + 1]);
+			}
+			size = targetPoints;
+			stride *= 2;
+		}
+	}
+
+	private void copy(int from, int to) {
+		time[to] = time[from];
+		span[to] = span[from];
+		meanJobs[to] = meanJobs[from];
+		meanBusy[to] = meanBusy[from];
+		minJobsOf[to] = minJobsOf[from];
+		maxJobsOf[to] = maxJobsOf[from];
+		minBusyOf[to] = minBusyOf[from];
+		maxBusyOf[to] = maxBusyOf[from];
+	}
+
+	private void merge(int i, double start, double duration, double jobs, int minJobs, int maxJobs, double busy,
+			int minBusy, int maxBusy) {
+		double total = span[i] + duration;
+		meanJobs[i] = (meanJobs[i] * span[i] + jobs * duration) / total;
+		meanBusy[i] = (meanBusy[i] * span[i] + busy * duration) / total;
+		span[i] = total;
+		time[i] = Math.min(time[i], start);
+		minJobsOf[i] = Math.min(minJobsOf[i], minJobs);
+		maxJobsOf[i] = Math.max(maxJobsOf[i], maxJobs);
+		minBusyOf[i] = Math.min(minBusyOf[i], minBusy);
+		maxBusyOf[i] = Math.max(maxBusyOf[i], maxBusy);
+	}
+
+	//the series reduced to at most targetPoints points, rows of {time, meanJobs, minJobs, maxJobs, meanBusy,
+	//minBusy, maxBusy}, the time is the middle of the period a point covers
+	public double[][] getDownsampled() {
+		int n = size + (pending > 0 ? 1 : 0);
+		double[] x = new double[n];
+		for (int i = 0; i < n; i++)
+			x[i] = time[i] + span[i] / 2;
+		int[] selected = lttb(x, meanJobs, n, targetPoints);
+		double[][] rows = new double[selected.length][];
+		for (int j = 0; j < selected.length; j++) {
+			int i = selected[j];
+			rows[j] = new double[] {x[i], meanJobs[i], minJobsOf[i], maxJobsOf[i], meanBusy[i], minBusyOf[i], maxBusyOf[i]};
+		}
+		return rows;
+	}
+
+	//indices of the points kept by the largest triangle three buckets algorithm: the first and the last point stay,
+	//the others are cut into threshold - 2 buckets and from every bucket the point making the largest triangle with
+	//the point kept before it and the mean of the next bucket is kept
+	public static int[] lttb(double[] x, double[] y, int n, int threshold) {
+		if(n <= threshold) {
+			int[] all = new int[n];
+			for (int i = 0; i < n; i++)
+				all[i] = i;
+			return all;
+		}
+		int[] selected = new int[threshold];
+		double every = (double)(n - 2) / (threshold - 2);
+		int a = 0;
+		for (int j = 0; j < threshold - 2; j++) {
+			int nextStart = (int)((j + 1) * every) + 1;
+			int nextEnd = Math.min((int)((j + 2) * every) + 1, n);
+			double meanX = 0, meanY = 0;
+			for (int i = nextStart; i < nextEnd; i++) {
+				meanX += x[i];
+				meanY += y[i];
+			}
+			meanX /= nextEnd - nextStart;
+			meanY /= nextEnd - nextStart;
+			int start = (int)(j * every) + 1;
+			int end = nextStart;
+			double maxArea = -1;
+			int chosen = start;
+			for (int i = start; i < end; i++) {
+				double area = Math.abs((x[a] - meanX) * (y[i] - y[a]) - (x[a] - x[i]) * (meanY - y[a]));
+				if(area > maxArea) {
+					maxArea = area;
+					chosen = i;
+				}
+			}
+			selected[j + 1] = chosen;
+			a = chosen;
+		}
+		selected[threshold - 1] = n - 1;
+		return selected;
+	}
+
+	public void writeDownsampledCsv(String file) {
+		try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file)))) {
+			out.println(HEADER);
+			for (double[] row : getDownsampled())
+				out.println(row[0] + "," + row[1] + "," + (int)row[2] + "," + (int)row[3] + "," + row[4] + ","
+						+ (int)row[5] + "," + (int)row[6]);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error: Could not write " + file, e);
+		}
+	}
+
+	//ends the series at the last recorded time (the last bucket may be partial) and closes the output file
+	public void close() {
+		if(bucketTime > 0)
+			finishBucket();
+		if(csv != null) {
+			csv.close();
+			csv = null;
+		}
+		if(binary != null) {
+			try {
+				binary.close();
+			} catch (IOException e) {
+				throw new UncheckedIOException("Error: Could not close the time series", e);
+			} finally {
+				binary = null;
+			}
+		}
+	}
+
+	public double getBucketWidth() {
+		return bucketWidth;
+	}
+
+	public int getTargetPoints() {
+		return targetPoints;
+	}
+
+	//number of finished buckets so far
+	public long getNumberOfBuckets() {
+		return bucketIndex;
+	}
+
+}
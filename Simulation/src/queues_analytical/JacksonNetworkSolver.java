@@ -0,0 +1,171 @@
+package queues_analytical;
+
+//product form solution of an open Jackson network: the traffic equations lambda = gamma + lambda * P give the total
+//arrival rate of every station, and then each station behaves like an independent M/M/c queue.
+//stations with a finite capacity are solved as independent M/M/c/L queues with the same arrival rate, which is only
+//an approximation (losses break the product form).
+public class JacksonNetworkSolver {
+
+	public static final int INFINITE_CAPACITY = Integer.MAX_VALUE;
+
+	private int numberOfStations;
+	private double[] externalArrivalRates; //gamma
+	private double[] serviceRates; //mu of every server of the station
+	private int[] servers; //c
+	private int[] capacities; //L, INFINITE_CAPACITY for none
+	//routing matrix in compressed sparse rows: the routes out of station i are rowStart[i] .. rowStart[i+1]-1
+	private int[] rowStart;
+	private int[] routeTo;
+	private double[] routeProbability;
+
+	private double[] arrivalRates; //lambda, solution of the traffic equations
+	private double[] utilizations; //per server
+	private double[] meanNumberOfJobs;
+	private double[] meanResponseTimes;
+	private double[] throughputs;
+	private boolean stable;
+
+	public JacksonNetworkSolver(double[] externalArrivalRates, double[] serviceRates, int[] servers, int[] capacities,
+			int[] rowStart, int[] routeTo, double[] routeProbability) {
+		this.numberOfStations = servers.length;
+		this.externalArrivalRates = externalArrivalRates;
+		this.serviceRates = serviceRates;
+		this.servers = servers;
+		this.capacities = capacities;
+		this.rowStart = rowStart;
+		this.routeTo = routeTo;
+		this.routeProbability = routeProbability;
+	}
+
+	//solves lambda_j = gamma_j + sum_i lambda_i p_ij by fixed point iteration (converges for an open network)
+	public static double[] solveTrafficEquations(double[] externalArrivalRates, int[] rowStart, int[] routeTo,
+			double[] routeProbability) {
+		int n = externalArrivalRates.length;
+		double[] lambda = externalArrivalRates.clone();
+		double[] next = new double[n];
+		for (int iteration = 0; iteration < 1000000; iteration++) {
+			System.arraycopy(externalArrivalRates, 0, next, 0, n);
+			for (int i = 0; i < n; i++) {
+				for (int k = rowStart[i]; k < rowStart[i+1]; k++)
+					next[routeTo[k]] += lambda[i] * routeProbability[k];
+			}
+			double change = 0;
+			double total = 0;
+			for (int i = 0; i < n; i++) {
+				change += Math.abs(next[i] - lambda[i]);
+				total += next[i];
+			}
+			double[] temp = lambda;
+			lambda = next;
+			next = temp;
+			if(change <= 1e-13 * total)
+				return lambda;
+		}
+		throw new ArithmeticException("The traffic equations did not converge, is the network closed?");
+	}
+
+	public void calculateAll() {
+		arrivalRates = solveTrafficEquations(externalArrivalRates, rowStart, routeTo, routeProbability);
+		utilizations = new double[numberOfStations];
+		meanNumberOfJobs = new double[numberOfStations];
+		meanResponseTimes = new double[numberOfStations];
+		throughputs = new double[numberOfStations];
+		stable = true;
+		for (int i = 0; i < numberOfStations; i++) {
+			double lambda = arrivalRates[i];
+			double mu = serviceRates[i];
+			int c = servers[i];
+			if(lambda == 0)
+				continue;
+			if(capacities[i] != INFINITE_CAPACITY) {
+				M_M_c_L station = new M_M_c_L(lambda, mu, c, capacities[i]);
+				station.calculateAll();
+				utilizations[i] = station.getU();
+				meanNumberOfJobs[i] = station.getE_n();
+				throughputs[i] = station.getThroughPut();
+				meanResponseTimes[i] = station.getE_t();
+				continue;
+			}
+			double a = lambda / mu; //offered load
+			double rho = a / c;
+			if(rho >= 1) {
+				stable = false;
+				utilizations[i] = 1;
+				meanNumberOfJobs[i] = Double.POSITIVE_INFINITY;
+				meanResponseTimes[i] = Double.POSITIVE_INFINITY;
+				throughputs[i] = c * mu;
+				continue;
+			}
+			//P_0 of an M/M/c queue, with the terms a^k/k! built iteratively to avoid overflowing the factorials
+			double term = 1;
+			double sum = 0;
+			for (int k = 0; k < c; k++) {
+				sum += term;
+				term *= a / (k + 1);
+			}
+			//term is a^c/c! now
+			double p0 = 1 / (sum + term / (1 - rho));
+			double erlangC = term / (1 - rho) * p0; //probability of waiting
+			double meanInQueue = erlangC * rho / (1 - rho);
+			utilizations[i] = rho;
+			meanNumberOfJobs[i] = meanInQueue + a;
+			throughputs[i] = lambda;
+			meanResponseTimes[i] = meanNumberOfJobs[i] / lambda;
+		}
+	}
+
+	//mean number of jobs in the whole network
+	public double getTotalMeanNumberOfJobs() {
+		double total = 0;
+		for (double n : meanNumberOfJobs)
+			total += n;
+		return total;
+	}
+
+	//mean time a job spends in the network (Little's law over the whole network)
+	public double getMeanSojournTime() {
+		double totalExternal = 0;
+		for (double gamma : externalArrivalRates)
+			totalExternal += gamma;
+		return getTotalMeanNumberOfJobs() / totalExternal;
+	}
+
+	public void viewPerformance() {
+		calculateAll();
+		System.out.println("Network Type: Open Jackson Network");
+		System.out.println("Number of stations = " + numberOfStations);
+		if(!stable)
+			System.out.println("Warning: some stations have a utilization of 1 or more, the network is unstable");
+		System.out.println("Mean Number of Jobs in the Network = " + getTotalMeanNumberOfJobs());
+		System.out.println("Mean Sojourn Time in the Network = " + getMeanSojournTime());
+	}
+
+	public int getNumberOfStations() {
+		return numberOfStations;
+	}
+
+	public double[] getArrivalRates() {
+		return arrivalRates;
+	}
+
+	public double[] getUtilizations() {
+		return utilizations;
+	}
+
+	public double[] getMeanNumberOfJobs() {
+		return meanNumberOfJobs;
+	}
+
+	public double[] getMeanResponseTimes() {
+		return meanResponseTimes;
+	}
+
+	public double[] getThroughputs() {
+		return throughputs;
+	}
+
+	public boolean isStable() {
+		return stable;
+	}
+
+}
@@ -0,0 +1,386 @@
+package queues_analytical;
+
+import auxMath.Matrix;
+
+//the breakdown model of M_M_c_L_Breakdown with an infinite buffer (the limit of a very large L), solved with the
+//matrix-geometric method. the chain over (n jobs, b broken servers) is a quasi-birth-death process: the levels are n
+//and the phases are b. from level c on every working server is busy, so the blocks stop depending on n
+//(A0 = arrivals, A1 = failures and repairs, A2 = service ends and failures of busy servers) and pi_{c+k} = pi_c R^k.
+//R is found by logarithmic reduction, and the levels below c by a level-dependent recursion, so the cost depends on c
+//only (O(c^4)), not on the buffer size.
+public class M_M_c_Breakdown extends Queue {
+
+	private int c;
+	private int m; //phases: 0..c broken servers
+	private double failureRate; //per working server
+	private double repairRate; //per repairman
+	private int numberOfRepairMen;
+	private double tolerance;
+
+	private double[][] R;
+	private double[][] RInverse; //(I - R)^-1
+	private double[][] boundary; //pi_0 .. pi_c
+	private int reductionSteps;
+	private boolean stable;
+	private double E_b; //mean number of broken servers
+	private double E_busy; //mean number of busy servers
+
+	//one repairman, or one for every broken server
+	public M_M_c_Breakdown(double lambda, double mu, int c, double failureRate, double repairRate,
+			boolean multipleRepairMen) {
+		this(lambda, mu, c, failureRate, repairRate, multipleRepairMen ? c : 1);
+	}
+
+	public M_M_c_Breakdown(double lambda, double mu, int c, double failureRate, double repairRate,
+			int numberOfRepairMen) {
+		super(lambda, mu);
+		if(c < 1)
+			throw new IllegalArgumentException("Error: The number of servers has to be 1 or more");
+		if(failureRate <= 0 || repairRate <= 0)
+			throw new IllegalArgumentException("Error: The failure and repair rates have to be positive");
+		if(numberOfRepairMen < 1)
+			throw new IllegalArgumentException("Error: The number of repairmen has to be 1 or more");
+		this.c = c;
+		this.m = c + 1;
+		this.failureRate = failureRate;
+		this.repairRate = repairRate;
+		this.numberOfRepairMen = Math.min(numberOfRepairMen, c);
+		this.tolerance = 1e-14;
+	}
+
+	private int busy(int n, int b) {
+		return Math.min(n, c - b);
+	}
+
+	private int repairing(int b) {
+		return Math.min(b, numberOfRepairMen);
+	}
+
+	//level n -> n+1
+	private double[][] up() {
+		double[][] U = new double[m][m];
+		for (int b = 0; b < m; b++)
+			U[b][b] = lambda;
+		return U;
+	}
+
+	//level n -> n-1: a service ends, or a busy server breaks down and drops its job
+	private double[][] down(int n) {
+		double[][] D = new double[m][m];
+		for (int b = 0; b < m; b++) {
+			D[b][b] = busy(n, b) * mu;
+			if(b < c)
+				D[b][b + 1] = busy(n, b) * failureRate;
+		}
+		return D;
+	}
+
+	//inside level n: idle servers break down, broken ones get repaired
+	private double[][] local(int n) {
+		double[][] Q = new double[m][m];
+		for (int b = 0; b < m; b++) {
+			int working = c - b;
+			if(b < c)
+				Q[b][b + 1] = (working - busy(n, b)) * failureRate;
+			if(b > 0)
+				Q[b][b - 1] = repairing(b) * repairRate;
+			Q[b][b] = -(lambda + busy(n, b) * mu + working * failureRate + repairing(b) * repairRate);
+		}
+		return Q;
+	}
+
+	//P(b broken servers), the phase process on its own is a birth-death chain
+	private double[] brokenMarginal() {
+		double[] marginal = new double[m];
+		double max = 0;
+		for (int b = 1; b < m; b++) {
+			marginal[b] = marginal[b - 1] + Math.log((c - b + 1) * failureRate / (repairing(b) * repairRate));
+			max = Math.max(max, marginal[b]);
+		}
+		double sum = 0;
+		for (int b = 0; b < m; b++) {
+			marginal[b] = Math.exp(marginal[b] - max);
+			sum += marginal[b];
+		}
+		for (int b = 0; b < m; b++)
+			marginal[b] /= sum;
+		return marginal;
+	}
+
+	//the mean drift condition: jobs arrive slower than the mean service capacity of the repeating levels
+	public boolean isStable() {
+		double[] phases = brokenMarginal();
+		double capacity = 0;
+		for (int b = 0; b < m; b++)
+			capacity += phases[b] * (c - b) * (mu + failureRate);
+		return lambda < capacity;
+	}
+
+	//G (A2 + A1 G + A0 G^2 = 0) by logarithmic reduction (Latouche and Ramaswami), then R = A0 (-(A1 + A0 G))^-1
+	private void computeR() {
+		double[][] A0 = up();
+		double[][] A1 = local(c);
+		double[][] A2 = down(c);
+		double[][] I = Matrix.identity(m);
+		double[][] minusA1Inverse = Matrix.inverse(scale(A1, -1));
+		double[][] B0 = Matrix.multiply(minusA1Inverse, A0);
+		double[][] B2 = Matrix.multiply(minusA1Inverse, A2);
+		double[][] G = B2;
+		double[][] T = B0;
+		for (reductionSteps = 1; reductionSteps <= 100; reductionSteps++) {
+			double[][] U = Matrix.add(Matrix.multiply(B0, B2), Matrix.multiply(B2, B0));
+			double[][] M = Matrix.inverse(Matrix.add(I, scale(U, -1)));
+			B0 = Matrix.multiply(M, Matrix.multiply(B0, B0));
+			B2 = Matrix.multiply(M, Matrix.multiply(B2, B2));
+			G = Matrix.add(G, Matrix.multiply(T, B2));
+			T = Matrix.multiply(T, B0);
+			//G is stochastic for a recurrent process, and once T vanishes G does not change any more (round-off)
+			double error = 0;
+			double remaining = 0;
+			for (int i = 0; i < m; i++) {
+				double rowSum = 0;
+				double rowSumT = 0;
+				for (int j = 0; j < m; j++) {
+					rowSum += G[i][j];
+					rowSumT += T[i][j];
+				}
+				error = Math.max(error, Math.abs(1 - rowSum));
+				remaining = Math.max(remaining, rowSumT);
+			}
+			if(error < tolerance || remaining < tolerance)
+				break;
+		}
+		R = Matrix.multiply(A0, Matrix.inverse(scale(Matrix.add(A1, Matrix.multiply(A0, G)), -1)));
+		RInverse = Matrix.inverse(Matrix.add(I, scale(R, -1)));
+	}
+
+	public void solve() {
+		stable = isStable();
+		if(!stable)
+			return;
+		computeR();
+		//pi_{n+1} = pi_n R_n below level c: R_{c-1} = A0 (-(local(c) + R A2))^-1, R_{n-1} = A0 (-(local(n) + R_n down(n+1)))^-1
+		double[][][] Rn = new double[c][][];
+		double[][] next = R;
+		for (int n = c; n >= 1; n--) {
+			next = Matrix.multiply(up(), Matrix.inverse(scale(Matrix.add(local(n), Matrix.multiply(next, down(n + 1))), -1)));
+			Rn[n - 1] = next;
+		}
+		//mass of all the levels from n on, per unit of pi_n: v_c = (I-R)^-1 1, v_n = 1 + R_n v_{n+1}
+		double[] v = Matrix.multiply(RInverse, ones());
+		for (int n = c - 1; n >= 0; n--) {
+			v = Matrix.multiply(Rn[n], v);
+			for (int b = 0; b < m; b++)
+				v[b] += 1;
+		}
+		//pi_0 (local(0) + R_0 down(1)) = 0, one equation replaced by the normalization pi_0 v_0 = 1
+		double[][] M = Matrix.add(local(0), Matrix.multiply(Rn[0], down(1)));
+		double[][] system = new double[m][m];
+		for (int i = 0; i < m; i++) {
+			for (int j = 0; j < m; j++)
+				system[i][j] = M[j][i];
+		}
+		system[m - 1] = v;
+		double[] rightSide = new double[m];
+		rightSide[m - 1] = 1;
+		boundary = new double[c + 1][];
+		boundary[0] = Matrix.solve(system, rightSide);
+		for (int n = 1; n <= c; n++)
+			boundary[n] = Matrix.multiply(boundary[n - 1], Rn[n - 1]);
+		//the levels from c on: sum_k pi_c R^k = pi_c (I-R)^-1
+		double[] tail = Matrix.multiply(boundary[c], RInverse);
+		E_b = 0;
+		E_busy = 0;
+		for (int b = 0; b < m; b++) {
+			for (int n = 0; n < c; n++) {
+				E_b += b * boundary[n][b];
+				E_busy += busy(n, b) * boundary[n][b];
+			}
+			E_b += b * tail[b];
+			E_busy += (c - b) * tail[b];
+		}
+	}
+
+	//pi_n, the probabilities of the phases at level n
+	public double[] level(int n) {
+		if(n <= c)
+			return boundary[n];
+		double[] pi = boundary[c];
+		for (int k = c; k < n; k++)
+			pi = Matrix.multiply(pi, R);
+		return pi;
+	}
+
+	//probability of (n jobs, b broken servers)
+	public double P(int n, int b) {
+		return level(n)[b];
+	}
+
+	@Override
+	public void calculateAll() {
+		solve();
+		super.calculateAll();
+	}
+
+	//probability that there are i jobs at the system
+	public double P_i(int i) {
+		if(!stable)
+			return 0;
+		double sum = 0;
+		for (double p : level(i))
+			sum += p;
+		return sum;
+	}
+
+	protected void view_P_i() {
+		System.out.println("if i<=c, P(i) = pi_i 1 (boundary levels)");
+		System.out.println("else, P(i) = pi_c R^(i-c) 1");
+	}
+
+	protected void Calc_p() {
+		p = lambda/(mu*c);
+	}
+
+	protected void Calc_P_0() {
+		P_0 = P_i(0);
+	}
+
+	//sum_{n<c} n pi_n 1 + sum_k (c+k) pi_c R^k 1 = ... + c pi_c (I-R)^-1 1 + pi_c R (I-R)^-2 1
+	protected void Calc_E_n() {
+		if(!stable) {
+			E_n = Double.POSITIVE_INFINITY;
+			return;
+		}
+		E_n = 0;
+		for (int n = 1; n < c; n++)
+			E_n += n * P_i(n);
+		double[] tail = Matrix.multiply(boundary[c], RInverse);
+		double[] shifted = Matrix.multiply(Matrix.multiply(tail, R), RInverse);
+		for (int b = 0; b < m; b++)
+			E_n += c * tail[b] + shifted[b];
+	}
+
+	protected void Calc_throughPut() {
+		throughPut = stable ? mu * E_busy : Double.NaN;
+	}
+
+	protected void Calc_E_t() {
+		E_t = E_n/throughPut;
+	}
+
+	protected void Calc_E_s() {
+		E_s = 1/(mu + failureRate); //until the service ends or the server breaks down
+	}
+
+	//per arriving job, dropped jobs wait 0 (as in the simulation)
+	protected void Calc_E_w() {
+		E_w = E_m / lambda;
+	}
+
+	protected void Calc_E_m() {
+		E_m = E_n - E_busy;
+	}
+
+	protected void Calc_u() {
+		u = stable ? E_busy / c : 1;
+	}
+
+	//all the working servers are busy: n >= c-b
+	protected void Calc_P_busy() {
+		if(!stable) {
+			P_busy = 1;
+			return;
+		}
+		P_busy = 0;
+		for (int b = 0; b < m; b++) {
+			for (int n = c - b; n < c; n++)
+				P_busy += boundary[n][b];
+		}
+		for (double p : Matrix.multiply(boundary[c], RInverse))
+			P_busy += p;
+	}
+
+	protected void Calc_P_QueueNotEmpty() {
+		if(!stable) {
+			P_QueueNotEmpty = 1;
+			return;
+		}
+		P_QueueNotEmpty = 0;
+		for (int b = 0; b < m; b++) {
+			for (int n = c - b + 1; n < c; n++)
+				P_QueueNotEmpty += boundary[n][b];
+		}
+		for (int b = 1; b < m; b++) //at level c only the phases with a broken server have a queue
+			P_QueueNotEmpty += boundary[c][b];
+		for (double p : Matrix.multiply(Matrix.multiply(boundary[c], R), RInverse)) //above level c there always is one
+			P_QueueNotEmpty += p;
+	}
+
+	@Override
+	public void viewPerformance() {
+		System.out.println("Queue Type: M/M/c with server breakdowns (infinite buffer)");
+		System.out.println("Number of servers = " + c);
+		System.out.println("Number of repairmen = " + numberOfRepairMen);
+		if(boundary == null) //calculateAll already solved it (an unstable queue has no boundary, its check is cheap)
+			solve();
+		if(!stable) {
+			System.out.println("Warning: the arrival rate is above the mean service capacity, the queue is unstable");
+			return;
+		}
+		System.out.println("Logarithmic reduction steps = " + reductionSteps);
+		super.viewPerformance();
+		System.out.println("Mean number of broken servers = " + E_b);
+		System.out.println("Availability (probability that a server is up) = " + getAvailability());
+		System.out.println("Dropping Probability = " + getP_drop());
+	}
+
+	private double[] ones() {
+		double[] one = new double[m];
+		for (int b = 0; b < m; b++)
+			one[b] = 1;
+		return one;
+	}
+
+	private static double[][] scale(double[][] A, double factor) {
+		double[][] scaled = new double[A.length][A[0].length];
+		for (int i = 0; i < A.length; i++) {
+			for (int j = 0; j < A[0].length; j++)
+				scaled[i][j] = factor * A[i][j];
+		}
+		return scaled;
+	}
+
+	public double[][] getR() {
+		return R;
+	}
+
+	public double getE_b() {
+		return E_b;
+	}
+
+	public double getAvailability() {
+		return 1 - E_b / c;
+	}
+
+	public double getP_down() {
+		return E_b / c;
+	}
+
+	//only busy servers breaking down drop jobs, the buffer never overflows
+	public double getP_drop() {
+		return failureRate * E_busy / lambda;
+	}
+
+	public int getReductionSteps() {
+		return reductionSteps;
+	}
+
+	public double getTolerance() {
+		return tolerance;
+	}
+
+	public void setTolerance(double tolerance) {
+		this.tolerance = tolerance;
+	}
+
+}
@@ -0,0 +1,324 @@
+package queues_analytical;
+
+//M/M/c/L queue whose servers break down (exponential time between failures, also when idle) and are repaired
+//(exponential repair time) by k repairmen, each working on one broken server at a time. a job being served by a
+//server that breaks down is dropped. there is no closed form, so the stationary distribution of the chain over the states
+//(n jobs, b broken servers) is solved numerically.
+//the generator is never stored: its rates follow from (n, b), which keeps the memory at one double per state.
+//for a fixed b the states form a birth-death chain in n, so the solver is a block Gauss-Seidel/SOR over b where every
+//block (a tridiagonal system) is solved directly, and only failures and repairs are iterated.
+//every server fails at the same rate busy or idle, so the number of broken servers is a birth-death chain of its own;
+//after every sweep each block is scaled to that exact marginal (aggregation), which speeds up the convergence a lot.
+public class M_M_c_L_Breakdown extends Queue {
+
+	private int c;
+	private int L;
+	private double failureRate; //per working server
+	private double repairRate; //per repairman
+	private int numberOfRepairMen;
+
+	//probabilities below this are set to 0 (subnormal doubles make the arithmetic very slow)
+	private static final double TINY = 1e-250;
+
+	private double[] pi; //pi[b*(L+1) + n]
+	private double relaxation; //SOR factor, 1 is plain Gauss-Seidel
+	private double tolerance;
+	private int maxIterations;
+	private int iterations;
+	private double E_b; //mean number of broken servers
+	private double E_busy; //mean number of busy servers
+	private double P_drop; //probability that a job is dropped (full system or breakdown during service)
+
+	//one repairman, or one for every broken server
+	public M_M_c_L_Breakdown(double lambda, double mu, int c, int L, double failureRate, double repairRate,
+			boolean multipleRepairMen) {
+		this(lambda, mu, c, L, failureRate, repairRate, multipleRepairMen ? c : 1);
+	}
+
+	public M_M_c_L_Breakdown(double lambda, double mu, int c, int L, double failureRate, double repairRate,
+			int numberOfRepairMen) {
+		super(lambda, mu);
+		if(c < 1)
+			throw new IllegalArgumentException("Error: The number of servers has to be 1 or more");
+		if(L < c)
+			throw new IllegalArgumentException("Error: L is not allowed to be smaller than c");
+		if(failureRate <= 0 || repairRate <= 0)
+			throw new IllegalArgumentException("Error: The failure and repair rates have to be positive");
+		if(numberOfRepairMen < 1)
+			throw new IllegalArgumentException("Error: The number of repairmen has to be 1 or more");
+		this.c = c;
+		this.L = L;
+		this.failureRate = failureRate;
+		this.repairRate = repairRate;
+		this.numberOfRepairMen = Math.min(numberOfRepairMen, c);
+		this.relaxation = 1;
+		this.tolerance = 1e-12;
+		this.maxIterations = 100000;
+	}
+
+	private int busy(int n, int b) {
+		return Math.min(n, c - b);
+	}
+
+	private int repairing(int b) {
+		return Math.min(b, numberOfRepairMen);
+	}
+
+	public void solve() {
+		int size = L + 1;
+		pi = new double[(c + 1) * size];
+		double[] diagonal = new double[size];
+		double[] block = new double[size];
+		double[] brokenMarginal = brokenMarginal();
+		//start from the M/M/(c-b)/L distribution of the jobs in every block, exact if no server ever failed
+		for (int b = 0; b <= c; b++) {
+			int offset = b * size;
+			double blockSum = pi[offset] = 1;
+			for (int n = 1; n <= L; n++) {
+				int working = Math.max(busy(n, b), 1); //no server at all: the queue only fills up
+				pi[offset + n] = pi[offset + n - 1] * lambda / (working * mu);
+				if(pi[offset + n] > 1e200) { //rescale the block instead of overflowing
+					for (int i = 0; i <= n; i++)
+						pi[offset + i] *= 1e-200;
+					blockSum *= 1e-200;
+				}
+				blockSum += pi[offset + n];
+			}
+			for (int n = 0; n <= L; n++) {
+				pi[offset + n] *= brokenMarginal[b] / blockSum;
+				if(pi[offset + n] < TINY)
+					pi[offset + n] = 0;
+			}
+		}
+		for (iterations = 1; iterations <= maxIterations; iterations++) {
+			double change = 0;
+			double sum = 0;
+			for (int b = 0; b <= c; b++) {
+				int offset = b * size;
+				int below = offset - size;
+				int above = offset + size;
+				int working = c - b;
+				double repairsIn = b < c ? repairing(b + 1) * repairRate : 0;
+				double otherOut = working * failureRate + repairing(b) * repairRate; //rates that leave the block
+				//the birth-death part inside the block, solved with the Thomas algorithm:
+				//outRate(n) x_n - lambda x_{n-1} - busy(n+1) mu x_{n+1} = flows in from the blocks b-1 and b+1
+				for (int n = 0; n <= L; n++) {
+					double in = 0;
+					if(b > 0) {
+						in += pi[below + n] * (working + 1 - Math.min(n, working + 1)) * failureRate; //an idle server failed
+						if(n < L)
+							in += pi[below + n + 1] * Math.min(n + 1, working + 1) * failureRate; //a busy server failed
+					}
+					if(b < c)
+						in += pi[above + n] * repairsIn;
+					double d = (n < L ? lambda : 0) + Math.min(n, working) * mu + otherOut;
+					if(n > 0) {
+						double factor = lambda / diagonal[n - 1];
+						d -= factor * Math.min(n, working) * mu;
+						in += factor * block[n - 1];
+					}
+					diagonal[n] = d;
+					block[n] = in;
+				}
+				double blockSum = 0;
+				double next = 0;
+				for (int n = L; n >= 0; n--) {
+					double x = block[n];
+					if(n < L)
+						x += Math.min(n + 1, working) * mu * next;
+					x /= diagonal[n];
+					next = x;
+					double value = (1 - relaxation) * pi[offset + n] + relaxation * x;
+					if(value < TINY)
+						value = 0;
+					change += Math.abs(value - pi[offset + n]);
+					pi[offset + n] = value;
+					blockSum += value;
+				}
+				sum += blockSum;
+				if(blockSum > 0) {
+					double scale = brokenMarginal[b] / blockSum;
+					for (int n = 0; n <= L; n++)
+						pi[offset + n] *= scale;
+				}
+			}
+			if(change <= tolerance * sum)
+				break;
+		}
+		//measures needed by the performance values
+		E_b = 0;
+		E_busy = 0;
+		double P_full = 0;
+		for (int b = 0; b <= c; b++) {
+			for (int n = 0; n <= L; n++) {
+				double p = pi[b * size + n];
+				E_b += b * p;
+				E_busy += busy(n, b) * p;
+			}
+			P_full += pi[b * size + L];
+		}
+		P_drop = (lambda * P_full + failureRate * E_busy) / lambda;
+	}
+
+	//P(b broken servers): births (c-b)*failureRate, deaths repairing(b)*repairRate
+	private double[] brokenMarginal() {
+		double[] marginal = new double[c + 1];
+		double max = 0;
+		for (int b = 1; b <= c; b++) { //in logs as well
+			marginal[b] = marginal[b - 1] + Math.log((c - b + 1) * failureRate / (repairing(b) * repairRate));
+			max = Math.max(max, marginal[b]);
+		}
+		double sum = 0;
+		for (int b = 0; b <= c; b++) {
+			marginal[b] = Math.exp(marginal[b] - max);
+			sum += marginal[b];
+		}
+		for (int b = 0; b <= c; b++)
+			marginal[b] /= sum;
+		return marginal;
+	}
+
+	//probability of (n jobs, b broken servers)
+	public double P(int n, int b) {
+		return pi[b * (L + 1) + n];
+	}
+
+	@Override
+	public void calculateAll() {
+		solve();
+		super.calculateAll();
+	}
+
+	//probability that there are i jobs at the system
+	public double P_i(int i) {
+		double sum = 0;
+		for (int b = 0; b <= c; b++)
+			sum += pi[b * (L + 1) + i];
+		return sum;
+	}
+
+	protected void view_P_i() {
+		System.out.println("P(i) = sum over b of P(i jobs, b broken servers), solved numerically");
+	}
+
+	protected void Calc_p() {
+		if(pi == null)
+			solve();
+		p = lambda/(mu*c);
+	}
+
+	protected void Calc_P_0() {
+		P_0 = P_i(0);
+	}
+
+	protected void Calc_E_n() {
+		E_n = 0;
+		for (int i = 1; i <= L; i++)
+			E_n += i * P_i(i);
+	}
+
+	//jobs that finish their service
+	protected void Calc_throughPut() {
+		throughPut = mu * E_busy;
+	}
+
+	protected void Calc_E_t() {
+		E_t = E_n/throughPut;
+	}
+
+	protected void Calc_E_s() {
+		E_s = 1/(mu + failureRate); //until the service ends or the server breaks down
+	}
+
+	//per arriving job, dropped jobs wait 0 (as in the simulation)
+	protected void Calc_E_w() {
+		E_w = E_m / lambda;
+	}
+
+	protected void Calc_E_m() {
+		E_m = E_n - E_busy;
+	}
+
+	protected void Calc_u() {
+		u = E_busy / c;
+	}
+
+	//all the working servers are busy
+	protected void Calc_P_busy() {
+		P_busy = 0;
+		for (int b = 0; b <= c; b++) {
+			for (int n = c - b; n <= L; n++)
+				P_busy += pi[b * (L + 1) + n];
+		}
+	}
+
+	protected void Calc_P_QueueNotEmpty() {
+		P_QueueNotEmpty = 0;
+		for (int b = 0; b <= c; b++) {
+			for (int n = c - b + 1; n <= L; n++)
+				P_QueueNotEmpty += pi[b * (L + 1) + n];
+		}
+	}
+
+	@Override
+	public void viewPerformance() {
+		System.out.println("Queue Type: M/M/c/L with server breakdowns");
+		System.out.println("Number of servers = " + c);
+		System.out.println("Max number of jobs in the system(L) = " + L);
+		System.out.println("Number of repairmen = " + numberOfRepairMen);
+		if(pi == null) //calculateAll already solved it
+			solve();
+		System.out.println("Number of states = " + pi.length + ", solved in " + iterations + " iterations");
+		super.viewPerformance();
+		System.out.println("Mean number of broken servers = " + E_b);
+		System.out.println("Probability that a server is down = " + getP_down());
+		System.out.println("Dropping Probability = " + P_drop);
+	}
+
+	public double getE_b() {
+		return E_b;
+	}
+
+	public double getP_down() {
+		return E_b / c;
+	}
+
+	public double getP_drop() {
+		return P_drop;
+	}
+
+	public int getIterations() {
+		return iterations;
+	}
+
+	public int getNumberOfStates() {
+		return (c + 1) * (L + 1);
+	}
+
+	public double getRelaxation() {
+		return relaxation;
+	}
+
+	public void setRelaxation(double relaxation) {
+		if(relaxation <= 0 || relaxation >= 2)
+			throw new IllegalArgumentException("Error: The relaxation factor has to be in (0, 2)");
+		this.relaxation = relaxation;
+	}
+
+	public double getTolerance() {
+		return tolerance;
+	}
+
+	public void setTolerance(double tolerance) {
+		this.tolerance = tolerance;
+	}
+
+	public int getMaxIterations() {
+		return maxIterations;
+	}
+
+	public void setMaxIterations(int maxIterations) {
+		this.maxIterations = maxIterations;
+	}
+
+}
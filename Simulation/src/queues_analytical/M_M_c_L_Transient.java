@@ -0,0 +1,199 @@
+package queues_analytical;
+
+import java.util.ArrayList;
+
+//transient distribution of the number of jobs in an M/M/c/L queue, P(n jobs at time t), by uniformization:
+//with q = lambda + c*mu the chain is a discrete chain P = I + Q/q observed at the jumps of a Poisson process of rate q,
+//so p(t) = sum_k Poisson(k; qt) * p(0) P^k. The generator Q is tridiagonal (births lambda, deaths min(n,c)*mu), so a
+//step costs O(L), and all the requested times share the same vectors p(0) P^k in one pass over k.
+//the Poisson weights are computed Fox-Glynn style: scaled from the mode outwards (no underflow for large qt) and cut
+//where the remaining tails are below epsilon, then normalized.
+public class M_M_c_L_Transient {
+
+	private double lambda;
+	private double mu;
+	private int c;
+	private int L;
+	private int initialJobs;
+	private double epsilon; //truncation error of the Poisson weights
+
+	private double[] times;
+	private double[][] distributions; //distributions[time index][n]
+	private double[] meanQueueLengths;
+	private long numberOfSteps; //matrix-vector products done
+
+	public M_M_c_L_Transient(double lambda, double mu, int c, int L) {
+		if(L < c)
+			throw new IllegalArgumentException("Error: L is not allowed to be smaller than c");
+		this.lambda = lambda;
+		this.mu = mu;
+		this.c = c;
+		this.L = L;
+		this.initialJobs = 0;
+		this.epsilon = 1e-10;
+	}
+
+	//computes the distribution and the mean queue length at every time of the grid (in any order)
+	public void solve(double[] times) {
+		this.times = times.clone();
+		int n = L + 1;
+		distributions = new double[times.length][n];
+		meanQueueLengths = new double[times.length];
+		//rates of the tridiagonal generator divided by the uniformization rate
+		double q = lambda + c*mu;
+		double[] up = new double[n];
+		double[] down = new double[n];
+		double[] stay = new double[n];
+		for (int i = 0; i < n; i++) {
+			up[i] = i < L ? lambda / q : 0;
+			down[i] = Math.min(i, c) * mu / q;
+			stay[i] = 1 - up[i] - down[i];
+		}
+		//Poisson weights of every time
+		int[] left = new int[times.length];
+		double[][] weights = new double[times.length][];
+		int lastStep = 0;
+		for (int j = 0; j < times.length; j++) {
+			if(times[j] < 0)
+				throw new IllegalArgumentException("Error: The times have to be 0 or more");
+			double[] window = poissonWeights(q * times[j], epsilon);
+			left[j] = (int)window[0];
+			weights[j] = new double[window.length - 1];
+			System.arraycopy(window, 1, weights[j], 0, weights[j].length);
+			lastStep = Math.max(lastStep, left[j] + weights[j].length - 1);
+		}
+		double[] v = new double[n];
+		double[] next = new double[n];
+		v[initialJobs] = 1;
+		numberOfSteps = 0;
+		for (int k = 0; ; k++) {
+			//add the k-th term to every time whose window contains k
+			for (int j = 0; j < times.length; j++) {
+				int index = k - left[j];
+				if(index < 0 || index >= weights[j].length)
+					continue;
+				double w = weights[j][index];
+				double[] p = distributions[j];
+				for (int i = 0; i < n; i++)
+					p[i] += w * v[i];
+			}
+			if(k == lastStep)
+				break;
+			//v = v P
+			for (int i = 0; i < n; i++) {
+				double value = v[i] * stay[i];
+				if(i > 0)
+					value += v[i-1] * up[i-1];
+				if(i < L)
+					value += v[i+1] * down[i+1];
+				next[i] = value;
+			}
+			double[] temp = v;
+			v = next;
+			next = temp;
+			numberOfSteps++;
+		}
+		for (int j = 0; j < times.length; j++) {
+			double mean = 0;
+			for (int i = 0; i < n; i++)
+				mean += i * distributions[j][i];
+			meanQueueLengths[j] = mean;
+		}
+	}
+
+	//Poisson(rate) weights that hold all but epsilon of the mass: {left truncation point, w_left, ..., w_right}
+	//the weights are built from the mode with a scaled start and stopped when a geometric bound of the tail
+	//beyond the current term is below epsilon/2 of the mass so far
+	public static double[] poissonWeights(double rate, double epsilon) {
+		if(rate == 0)
+			return new double[] {0, 1};
+		int mode = (int)Math.floor(rate);
+		//going right from the mode the ratio of consecutive terms is rate/(i+1) < 1
+		ArrayList<Double> rightTerms = new ArrayList<>();
+		double w = 1;
+		double total = 1;
+		int i = mode;
+		while (true) {
+			double ratio = rate / (i + 1);
+			if(ratio < 1 && w * ratio / (1 - ratio) < epsilon / 2 * total)
+				break;
+			w *= ratio;
+			total += w;
+			rightTerms.add(w);
+			i++;
+		}
+		//going left from the mode the ratio is i/rate <= 1, and it only gets smaller
+		ArrayList<Double> leftTerms = new ArrayList<>();
+		w = 1;
+		i = mode;
+		while (i > 0) {
+			double ratio = i / rate;
+			if(ratio < 1 && w * ratio / (1 - ratio) < epsilon / 2 * total)
+				break;
+			w *= ratio;
+			total += w;
+			leftTerms.add(w);
+			i--;
+		}
+		double[] window = new double[2 + leftTerms.size() + rightTerms.size()];
+		window[0] = mode - leftTerms.size();
+		int k = 1;
+		for (int j = leftTerms.size() - 1; j >= 0; j--)
+			window[k++] = leftTerms.get(j) / total;
+		window[k++] = 1 / total;
+		for (double term : rightTerms)
+			window[k++] = term / total;
+		return window;
+	}
+
+	public void viewPerformance() {
+		System.out.println("Queue Type: M/M/c/L (transient)");
+		System.out.println("Number of servers = " + c);
+		System.out.println("Max number of jobs in the system(L) = " + L);
+		System.out.println("Jobs in the system at time 0 = " + initialJobs);
+		System.out.println("Uniformization steps = " + numberOfSteps);
+		for (int j = 0; j < times.length; j++)
+			System.out.println("t = " + times[j] + ": Mean Queue Length(En) = " + meanQueueLengths[j] + ", P(n = L) = "
+					+ distributions[j][L]);
+	}
+
+	public double[] getTimes() {
+		return times;
+	}
+
+	public double[][] getDistributions() {
+		return distributions;
+	}
+
+	//P(i jobs at the j-th time)
+	public double P_i(int j, int i) {
+		return distributions[j][i];
+	}
+
+	public double[] getMeanQueueLengths() {
+		return meanQueueLengths;
+	}
+
+	public long getNumberOfSteps() {
+		return numberOfSteps;
+	}
+
+	public int getInitialJobs() {
+		return initialJobs;
+	}
+
+	public void setInitialJobs(int initialJobs) {
+		if(initialJobs < 0 || initialJobs > L)
+			throw new IllegalArgumentException("Error: The initial number of jobs has to be between 0 and L");
+		this.initialJobs = initialJobs;
+	}
+
+	public double getEpsilon() {
+		return epsilon;
+	}
+
+	public void setEpsilon(double epsilon) {
+		this.epsilon = epsilon;
+	}
+
+}
@@ -0,0 +1,193 @@
+package randomGens;
+
+import draw.ConcurrentHistogram;
+
+//samples an empirical distribution given as a histogram in O(1) with Walker's alias method: one uniform picks
+//a column of the alias table, the same uniform decides between the column's bin and its alias, and what is left
+//of it places the value uniformly inside the bin (so the CDF is the histogram's CDF interpolated linearly)
+public class EmpiricalGenerator extends RandomGenerator {
+
+	private final double[] lower; //lower[i] lower edge of bin i
+	private final double[] width; //width[i] width of bin i
+	private final double[] probability; //probability[i] chance that column i keeps its own bin
+	private final int[] alias; //alias[i] the bin column i gives otherwise
+	private UniformStream stream; //null means the shared Math.random source
+
+	private EmpiricalGenerator(double[] lower, double[] width, double[] probability, int[] alias,
+			UniformStream stream) {
+		this.lower = lower;
+		this.width = width;
+		this.probability = probability;
+		this.alias = alias;
+		this.stream = stream;
+	}
+
+	public double generate() {
+		double u = stream == null ? UniformGenerator.generate() : stream.generate();
+		double scaled = u * probability.length;
+		int column = (int)scaled;
+		if(column == probability.length) //rounding of u close to 1
+			column--;
+		double fraction = scaled - column;
+		double p = probability[column];
+		if(fraction < p)
+			return lower[column] + width[column] * (fraction / p);
+		int bin = alias[column];
+		return lower[bin] + width[bin] * ((fraction - p) / (1 - p));
+	}
+
+	//the same distribution driven by another stream (the tables are shared, not copied)
+	public EmpiricalGenerator withStream(UniformStream stream) {
+		EmpiricalGenerator generator = new EmpiricalGenerator(lower, width, probability, alias, stream);
+		generator.setMean(getMean());
+		generator.setVariance(getVariance());
+		return generator;
+	}
+
+	public int getNumberOfBins() {
+		return lower.length;
+	}
+
+	public UniformStream getStream() {
+		return stream;
+	}
+
+	public void setStream(UniformStream stream) {
+		this.stream = stream;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	//collects a histogram (bin edges and weights) and builds the alias table from it in O(bins)
+	public static class Builder {
+
+		private double[] edges;
+		private double[] weights;
+		private UniformStream stream;
+
+		//n bins given by n+1 increasing edges and n non negative weights (counts or probabilities)
+		public Builder histogram(double[] edges, double[] weights) {
+			if(edges.length < 2 || weights.length != edges.length - 1)
+				throw new IllegalArgumentException("Error: n bins need n+1 edges and n weights");
+			this.edges = edges.clone();
+			this.weights = weights.clone();
+			return this;
+		}
+
+		public Builder histogram(double[] edges, long[] counts) {
+			double[] weights = new double[counts.length];
+			for (int i = 0; i < counts.length; i++)
+				weights[i] = counts[i];
+			return histogram(edges, weights);
+		}
+
+		//the bins of a recorded histogram (the underflow and overflow counts are left out)
+		public Builder histogram(ConcurrentHistogram histogram) {
+			return histogram(histogram.edges(), histogram.counts());
+		}
+
+		//bins the raw samples into sqrt(n) equal width bins between the smallest and the largest one
+		public Builder samples(double[] samples) {
+			return samples(samples, (int)Math.ceil(Math.sqrt(samples.length)));
+		}
+
+		//bins the raw samples into the given number of equal width bins between the smallest and the largest one,
+		//two passes over the samples
+		public Builder samples(double[] samples, int bins) {
+			if(samples.length == 0)
+				throw new IllegalArgumentException("Error: There are no samples");
+			if(bins < 1)
+				throw new IllegalArgumentException("Error: At least one bin is needed");
+			double min = Double.POSITIVE_INFINITY;
+			double max = Double.NEGATIVE_INFINITY;
+			for (double x : samples) {
+				if(Double.isNaN(x) || Double.isInfinite(x))
+					throw new IllegalArgumentException("Error: The samples have to be finite");
+				min = Math.min(min, x);
+				max = Math.max(max, x);
+			}
+			if(max == min) { //a single value, keep a tiny bin around it
+				max = min + Math.max(Math.ulp(min), Double.MIN_NORMAL);
+				bins = 1;
+			}
+			double[] edges = new double[bins + 1];
+			for (int i = 0; i <= bins; i++)
+				edges[i] = min + (max - min) * i / bins;
+			edges[bins] = max;
+			double[] weights = new double[bins];
+			double scale = bins / (max - min);
+			for (double x : samples)
+				weights[Math.min((int)((x - min) * scale), bins - 1)]++;
+			this.edges = edges;
+			this.weights = weights;
+			return this;
+		}
+
+		public Builder stream(UniformStream stream) {
+			this.stream = stream;
+			return this;
+		}
+
+		//Vose's O(n) construction: the bins below the average weight are topped up by the ones above it
+		public EmpiricalGenerator build() {
+			if(edges == null)
+				throw new IllegalArgumentException("Error: No histogram or samples were given");
+			int n = weights.length;
+			double total = 0;
+			for (int i = 0; i < n; i++) {
+				if(!(weights[i] >= 0) || Double.isInfinite(weights[i]))
+					throw new IllegalArgumentException("Error: The weights have to be finite and non negative");
+				if(!(edges[i + 1] > edges[i]))
+					throw new IllegalArgumentException("Error: The edges have to be increasing");
+				total += weights[i];
+			}
+			if(total == 0)
+				throw new IllegalArgumentException("Error: The histogram is empty");
+			double[] lower = new double[n];
+			double[] width = new double[n];
+			double[] probability = new double[n];
+			int[] alias = new int[n];
+			double mean = 0;
+			double secondMoment = 0;
+			int[] small = new int[n];
+			int[] large = new int[n];
+			int smalls = 0, larges = 0;
+			for (int i = 0; i < n; i++) {
+				lower[i] = edges[i];
+				width[i] = edges[i + 1] - edges[i];
+				double p = weights[i] / total;
+				double middle = lower[i] + width[i] / 2;
+				mean += p * middle;
+				secondMoment += p * (middle * middle + width[i] * width[i] / 12); //uniform inside the bin
+				probability[i] = p * n;
+				alias[i] = i;
+				if(probability[i] < 1)
+					small[smalls++] = i;
+				else
+					large[larges++] = i;
+			}
+			while (smalls > 0 && larges > 0) {
+				int s = small[--smalls];
+				int l = large[--larges];
+				alias[s] = l;
+				probability[l] -= 1 - probability[s];
+				if(probability[l] < 1)
+					small[smalls++] = l;
+				else
+					large[larges++] = l;
+			}
+			//what is left is 1 up to rounding
+			while (larges > 0)
+				probability[large[--larges]] = 1;
+			while (smalls > 0)
+				probability[small[--smalls]] = 1;
+			EmpiricalGenerator generator = new EmpiricalGenerator(lower, width, probability, alias, stream);
+			generator.setMean(mean);
+			generator.setVariance(Math.max(0, secondMoment - mean * mean));
+			return generator;
+		}
+	}
+
+}
@@ -2,13 +2,29 @@ package randomGens;
 
 public class ExponentialGenerator extends RandomGenerator{
 
+	private UniformStream stream; //null means the shared Math.random source
+
 	public ExponentialGenerator(double mean) {
+		this(mean, null);
+	}
+	
+	public ExponentialGenerator(double mean, UniformStream stream) {
 		this.setMean(mean);
 		this.setVariance(mean*mean);
+		this.stream = stream;
 	}
 	
 	public double generate()
 	{
-		return -Math.log(UniformGenerator.generate())*this.getMean();
+		double u = stream == null ? UniformGenerator.generate() : stream.generate();
+		return -Math.log(u)*this.getMean();
+	}
+
+	public UniformStream getStream() {
+		return stream;
+	}
+
+	public void setStream(UniformStream stream) {
+		this.stream = stream;
 	}
 }
@@ -0,0 +1,362 @@
+package randomGens;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.IntFunction;
+
+import auxMath.Quantiles;
+
+//statistical tests of a generator against its distribution. the samples are streamed in parallel, a shard per stream,
+//and nothing is stored: every shard keeps counts and sums, merged at the end, so 10^9 samples and more are fine.
+// - mean: z test of the sample mean against the mean of the generator
+// - chi-square: counts in equiprobable bins (equal steps of the CDF)
+// - Kolmogorov-Smirnov: largest distance between the empirical CDF and the CDF, measured at 2^20 equally spaced
+//   values of the CDF. it is at most 2^-20 below the exact statistic, far less than the critical value even at
+//   10^10 samples
+// - serial autocorrelation at several lags, within every stream
+// - inter-stream correlation of the streams i and i+1 drawn in lockstep, for split streams
+//a test passes if its p-value is at least alpha; the lags share alpha, and so do the stream pairs (Bonferroni)
+public class GeneratorTestSuite {
+
+	private static final int GRID = 1 << 20;
+	private static final int BLOCK = 1 << 16; //samples summed apart before being added to the totals
+
+	//the outcome of one test
+	public static class Result {
+		private final String name;
+		private final double statistic;
+		private final double pValue;
+		private final boolean passed;
+
+		Result(String name, double statistic, double pValue, double alpha) {
+			this.name = name;
+			this.statistic = statistic;
+			this.pValue = pValue;
+			this.passed = pValue >= alpha;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public double getStatistic() {
+			return statistic;
+		}
+
+		public double getPValue() {
+			return pValue;
+		}
+
+		public boolean isPassed() {
+			return passed;
+		}
+	}
+
+	//what a shard found
+	private static class Shard {
+		int[] cells = new int[GRID]; //samples per step of the CDF (ints: half the cache misses of longs)
+		long[] grid; //the cells of all the shards, set on the merged one
+		long count;
+		double sum; //of the deviations from the mean of the generator
+		double sumSquares;
+		double[] lagSums; //of the products of deviations lag samples apart
+		long[] lagCounts;
+
+		void merge(Shard other) {
+			if(grid == null) {
+				grid = new long[GRID];
+				addCells(this);
+			}
+			addCells(other);
+			count += other.count;
+			sum += other.sum;
+			sumSquares += other.sumSquares;
+			for (int l = 0; l < lagSums.length; l++) {
+				lagSums[l] += other.lagSums[l];
+				lagCounts[l] += other.lagCounts[l];
+			}
+		}
+
+		private void addCells(Shard shard) {
+			for (int i = 0; i < GRID; i++)
+				grid[i] += shard.cells[i];
+			shard.cells = null;
+		}
+	}
+
+	private IntFunction<RandomGenerator> generatorOfStream;
+	private DoubleUnaryOperator cdf;
+	private int numberOfShards;
+	private int chiSquareBins;
+	private int[] lags;
+	private double alpha;
+	private long interStreamSamples;
+	private ArrayList<Result> results;
+
+	//generatorOfStream(i) gives a new generator drawing from stream i (the same numbers every time it is called),
+	//cdf is the CDF of the distribution it should follow
+	public GeneratorTestSuite(IntFunction<RandomGenerator> generatorOfStream, DoubleUnaryOperator cdf) {
+		this.generatorOfStream = generatorOfStream;
+		this.cdf = cdf;
+		this.numberOfShards = Runtime.getRuntime().availableProcessors();
+		this.chiSquareBins = 1024;
+		this.lags = new int[] {1, 2, 3, 5, 10};
+		this.alpha = 0.01;
+		this.interStreamSamples = 10000000;
+		this.results = new ArrayList<>();
+	}
+
+	//the exponential generators of the application, stream i seeded with mix(seed + i)
+	public static GeneratorTestSuite exponential(double mean, long seed) {
+		return new GeneratorTestSuite(i -> new ExponentialGenerator(mean, new UniformStream(UniformStream.mix(seed + i))),
+				x -> x <= 0 ? 0 : -Math.expm1(-x / mean));
+	}
+
+	//runs every test on the given number of samples (split among the shards) and prints the report, true if all passed
+	public boolean run(long samples) {
+		if(samples < 2L * numberOfShards * (lags[lags.length - 1] + 1))
+			throw new IllegalArgumentException("Error: Too few samples for the tests");
+		long start = System.nanoTime();
+		results.clear();
+		ExecutorService pool = Executors.newFixedThreadPool(numberOfShards);
+		try {
+			ArrayList<Future<Shard>> shards = new ArrayList<>();
+			for (int i = 0; i < numberOfShards; i++) {
+				RandomGenerator rg = generatorOfStream.apply(i);
+				long count = samples / numberOfShards + (i < samples % numberOfShards ? 1 : 0);
+				shards.add(pool.submit(() -> runShard(rg, count)));
+			}
+			int pairs = Math.max(numberOfShards - 1, 1);
+			ArrayList<Future<double[]>> correlations = new ArrayList<>();
+			for (int i = 0; i < pairs; i++) {
+				RandomGenerator first = generatorOfStream.apply(i);
+				RandomGenerator second = generatorOfStream.apply(i + 1);
+				long count = Math.min(interStreamSamples, samples);
+				correlations.add(pool.submit(() -> correlate(first, second, count)));
+			}
+			Shard total = shards.get(0).get();
+			for (int i = 1; i < numberOfShards; i++)
+				total.merge(shards.get(i).get());
+			if(total.grid == null) { //a single shard
+				total.grid = new long[GRID];
+				total.addCells(total);
+			}
+			RandomGenerator reference = generatorOfStream.apply(0);
+			testMean(total, reference);
+			testChiSquare(total);
+			testKolmogorovSmirnov(total);
+			testAutocorrelation(total);
+			for (int i = 0; i < pairs; i++) {
+				double[] c = correlations.get(i).get();
+				double z = c[0] * Math.sqrt(c[1]);
+				results.add(new Result("Correlation of streams " + i + " and " + (i + 1), c[0],
+						2 * Quantiles.normalUpperTail(Math.abs(z)), alpha / pairs));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Error: A shard of the test suite failed", e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+		return report(samples, System.nanoTime() - start);
+	}
+
+	private Shard runShard(RandomGenerator rg, long samples) {
+		Shard shard = new Shard();
+		shard.lagSums = new double[lags.length];
+		shard.lagCounts = new long[lags.length];
+		int maxLag = lags[lags.length - 1];
+		int ringSize = Integer.highestOneBit(maxLag) * 2;
+		int mask = ringSize - 1;
+		double[] ring = new double[ringSize]; //the last deviations
+		double mean = rg.getMean();
+		double[] lagBlock = new double[lags.length];
+		for (long done = 0; done < samples; done += BLOCK) {
+			long end = Math.min(done + BLOCK, samples);
+			double sum = 0;
+			double sumSquares = 0;
+			for (int l = 0; l < lags.length; l++)
+				lagBlock[l] = 0;
+			for (long i = done; i < end; i++) {
+				double x = rg.generate();
+				int cell = (int)(cdf.applyAsDouble(x) * GRID);
+				shard.cells[cell < 0 ? 0 : cell >= GRID ? GRID - 1 : cell]++;
+				double d = x - mean;
+				sum += d;
+				sumSquares += d * d;
+				int position = (int)i & mask;
+				for (int l = 0; l < lags.length; l++) //the ring starts with zeros, the first products don't count
+					lagBlock[l] += d * ring[(position - lags[l]) & mask];
+				ring[position] = d;
+			}
+			shard.sum += sum;
+			shard.sumSquares += sumSquares;
+			for (int l = 0; l < lags.length; l++)
+				shard.lagSums[l] += lagBlock[l];
+		}
+		shard.count = samples;
+		for (int l = 0; l < lags.length; l++)
+			shard.lagCounts[l] = Math.max(samples - lags[l], 0);
+		return shard;
+	}
+
+	//{correlation, samples} of two streams drawn side by side
+	private static double[] correlate(RandomGenerator first, RandomGenerator second, long samples) {
+		double mean1 = first.getMean();
+		double mean2 = second.getMean();
+		double products = 0, squares1 = 0, squares2 = 0;
+		for (long done = 0; done < samples; done += BLOCK) {
+			long end = Math.min(done + BLOCK, samples);
+			double p = 0, s1 = 0, s2 = 0;
+			for (long i = done; i < end; i++) {
+				double d1 = first.generate() - mean1;
+				double d2 = second.generate() - mean2;
+				p += d1 * d2;
+				s1 += d1 * d1;
+				s2 += d2 * d2;
+			}
+			products += p;
+			squares1 += s1;
+			squares2 += s2;
+		}
+		return new double[] {products / Math.sqrt(squares1 * squares2), samples};
+	}
+
+	private void testMean(Shard total, RandomGenerator reference) {
+		double difference = total.sum / total.count;
+		double z = difference / Math.sqrt(reference.getVariance() / total.count);
+		results.add(new Result("Mean (z)", z, 2 * Quantiles.normalUpperTail(Math.abs(z)), alpha));
+	}
+
+	//Wilson-Hilferty: (X/df)^(1/3) is close to normal, good for the hundreds of degrees of freedom used here
+	private void testChiSquare(Shard total) {
+		int cellsPerBin = GRID / chiSquareBins;
+		double expected = (double)total.count / chiSquareBins;
+		double statistic = 0;
+		for (int b = 0; b < chiSquareBins; b++) {
+			long observed = 0;
+			for (int i = b * cellsPerBin; i < (b + 1) * cellsPerBin; i++)
+				observed += total.grid[i];
+			statistic += (observed - expected) * (observed - expected) / expected;
+		}
+		int df = chiSquareBins - 1;
+		double z = (Math.cbrt(statistic / df) - (1 - 2.0 / (9 * df))) / Math.sqrt(2.0 / (9 * df));
+		results.add(new Result("Chi-square (" + chiSquareBins + " bins)", statistic, Quantiles.normalUpperTail(z), alpha));
+	}
+
+	//the asymptotic Kolmogorov distribution with Stephens' correction for n
+	private void testKolmogorovSmirnov(Shard total) {
+		double n = total.count;
+		double d = 0;
+		long below = 0; //samples under the value where the CDF is i/GRID
+		for (int i = 1; i <= GRID; i++) {
+			below += total.grid[i - 1];
+			d = Math.max(d, Math.abs(below / n - (double)i / GRID));
+		}
+		double lambda = (Math.sqrt(n) + 0.12 + 0.11 / Math.sqrt(n)) * d;
+		double p = 1;
+		if(lambda >= 0.2) {
+			p = 0;
+			for (int k = 1; k <= 100; k++) {
+				double term = Math.exp(-2.0 * k * k * lambda * lambda);
+				p += (k % 2 == 1 ? 2 : -2) * term;
+				if(term < 1e-16)
+					break;
+			}
+			p = Math.min(Math.max(p, 0), 1);
+		}
+		results.add(new Result("Kolmogorov-Smirnov (D)", d, p, alpha));
+	}
+
+	//r(lag) * sqrt(n) is standard normal for independent samples
+	private void testAutocorrelation(Shard total) {
+		double variance = total.sumSquares / total.count;
+		for (int l = 0; l < lags.length; l++) {
+			double r = total.lagSums[l] / total.lagCounts[l] / variance;
+			double z = r * Math.sqrt(total.lagCounts[l]);
+			results.add(new Result("Autocorrelation at lag " + lags[l], r, 2 * Quantiles.normalUpperTail(Math.abs(z)),
+					alpha / lags.length));
+		}
+	}
+
+	private boolean report(long samples, long nanos) {
+		System.out.println("---------------- Generator Test Suite ----------------\n");
+		System.out.println("Samples: " + samples + " in " + numberOfShards + " streams, alpha: " + alpha);
+		int failed = 0;
+		for (Result result : results) {
+			System.out.println(String.format("%-36s statistic: %-14.6g p-value: %-10.4g %s", result.getName(),
+					result.getStatistic(), result.getPValue(), result.isPassed() ? "PASS" : "FAIL"));
+			if(!result.isPassed())
+				failed++;
+		}
+		System.out.println(String.format("Time: %.3f s (%.0f samples/s)", nanos / 1e9, samples / (nanos / 1e9)));
+		System.out.println(failed == 0 ? "All tests passed" : failed + " of " + results.size() + " tests failed");
+		return failed == 0;
+	}
+
+	public ArrayList<Result> getResults() {
+		return results;
+	}
+
+	public int getNumberOfShards() {
+		return numberOfShards;
+	}
+
+	public void setNumberOfShards(int numberOfShards) {
+		if(numberOfShards < 1)
+			throw new IllegalArgumentException("Error: The number of shards has to be 1 or more");
+		this.numberOfShards = numberOfShards;
+	}
+
+	public int getChiSquareBins() {
+		return chiSquareBins;
+	}
+
+	//a power of 2, at most 2^20
+	public void setChiSquareBins(int chiSquareBins) {
+		if(chiSquareBins < 2 || chiSquareBins > GRID || Integer.bitCount(chiSquareBins) != 1)
+			throw new IllegalArgumentException("Error: The number of bins has to be a power of 2 between 2 and " + GRID);
+		this.chiSquareBins = chiSquareBins;
+	}
+
+	public int[] getLags() {
+		return lags.clone();
+	}
+
+	//increasing positive lags
+	public void setLags(int[] lags) {
+		if(lags.length == 0)
+			throw new IllegalArgumentException("Error: At least one lag is needed");
+		for (int l = 0; l < lags.length; l++)
+			if(lags[l] < 1 || (l > 0 && lags[l] <= lags[l - 1]))
+				throw new IllegalArgumentException("Error: The lags have to be positive and increasing");
+		this.lags = lags.clone();
+	}
+
+	public double getAlpha() {
+		return alpha;
+	}
+
+	public void setAlpha(double alpha) {
+		if(!(alpha > 0 && alpha < 1))
+			throw new IllegalArgumentException("Error: alpha has to be in (0, 1)");
+		this.alpha = alpha;
+	}
+
+	public long getInterStreamSamples() {
+		return interStreamSamples;
+	}
+
+	public void setInterStreamSamples(long interStreamSamples) {
+		if(interStreamSamples < 2)
+			throw new IllegalArgumentException("Error: The inter-stream test needs 2 samples or more");
+		this.interStreamSamples = interStreamSamples;
+	}
+
+}
@@ -0,0 +1,62 @@
+package randomGens;
+
+//hands out non-overlapping random streams to replications: replication r starts r long jumps (r*2^192 numbers)
+//after the seed, and its k-th substream (one per kind of random quantity) k jumps (k*2^128 numbers) after that.
+//the family keeps a cursor at the next replication, so each replication costs a fixed number of jumps no matter
+//how many came before it, and next() is synchronized so parallel workers can share one family
+public class ReplicationStreams {
+
+	private final long seed;
+	private final int substreams; //substreams per replication
+	private XoshiroStream cursor; //start of the next replication
+	private long replications; //handed out so far
+
+	public ReplicationStreams(long seed, int substreams) {
+		if(substreams < 1 || substreams > 65536)
+			throw new IllegalArgumentException("Error: The number of substreams has to be in [1, 65536]");
+		this.seed = seed;
+		this.substreams = substreams;
+		this.cursor = new XoshiroStream(seed);
+	}
+
+	//the substreams of the next replication
+	public UniformStream[] next() {
+		return next(false);
+	}
+
+	//the substreams of the next replication, mirrored (U -> 1-U) if antithetic
+	public synchronized UniformStream[] next(boolean antithetic) {
+		UniformStream[] streams = new UniformStream[substreams];
+		XoshiroStream position = cursor.copy();
+		for (int k = 0; k < substreams; k++) {
+			XoshiroStream stream = position.copy();
+			streams[k] = antithetic ? stream.mirror() : stream;
+			if(k < substreams - 1)
+				position.jump();
+		}
+		cursor.longJump();
+		replications++;
+		return streams;
+	}
+
+	//mirrors every stream of a replication, for the antithetic twin of a run
+	public static UniformStream[] mirror(UniformStream[] streams) {
+		UniformStream[] mirrored = new UniformStream[streams.length];
+		for (int k = 0; k < streams.length; k++)
+			mirrored[k] = streams[k].mirror();
+		return mirrored;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public int getSubstreams() {
+		return substreams;
+	}
+
+	public synchronized long getReplications() {
+		return replications;
+	}
+
+}
@@ -1,49 +1,181 @@
 package randomGens;
 
 import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
 import draw.Histogram;
 import draw.StdDraw;
 
+//checks a generator against its mean and variance and draws the histogram of its samples. nothing is stored: a pilot
+//run fixes the range of the histogram (two-phase binning), then the samples are streamed into it, the ones out of
+//the range are only counted. the parallel version runs a shard per core, each with its own generator and its own
+//Histogram, and merges the shards at the end
 public class TestGenerator {
-	
+
+	private static final int PILOT_SAMPLES = 100000;
+	private static final int MAX_BINS = 1000; //more bars than that can't be told apart on the canvas
+
+	//what a shard found
+	private static class Shard {
+		Histogram histogram;
+		long count;
+		double mean;
+		double m2; //sum of the squared deviations from the mean
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+		long below; //samples under the histogram range
+		long above;
+
+		//Chan et al. update of the mean and the deviations with the ones of another shard
+		void merge(Shard other) {
+			long n = count + other.count;
+			if(n == 0)
+				return;
+			double delta = other.mean - mean;
+			mean += delta * other.count / n;
+			m2 += other.m2 + delta * delta * ((double)count * other.count / n);
+			count = n;
+			min = Math.min(min, other.min);
+			max = Math.max(max, other.max);
+			below += other.below;
+			above += other.above;
+			histogram.merge(other.histogram);
+		}
+	}
+
 	public static void test(RandomGenerator rg)
 	{
-		double testMean = 0.0;
-		double firstTest = rg.generate();
-		double max = firstTest;
-		double min = firstTest;
-		double temp;
-		int numberOfTests = 1000000;
-		ArrayList<Double> generatedList = new ArrayList<>();
-		generatedList.add(firstTest);
-		for (int i = 0; i < (numberOfTests-1); ++i) {
-			temp = rg.generate();
-			testMean += temp;
-			generatedList.add(temp);
-			if(temp>max)
-				max = temp;
-			else if(temp<min)
-				min = temp;
+		test(rg, 1000000);
+	}
+
+	//streams the samples in this thread
+	public static void test(RandomGenerator rg, long numberOfTests)
+	{
+		long start = System.nanoTime();
+		double[] range = pilot(rg, numberOfTests);
+		Shard result = runShard(rg, numberOfTests, range, bins(numberOfTests));
+		report(rg, result, range, System.nanoTime() - start);
+	}
+
+	//streams the samples on every core, generatorOfShard(i) gives the generator of shard i (and of the pilot run for
+	//i = the number of shards), they should draw from independent streams
+	public static void test(IntFunction<RandomGenerator> generatorOfShard, long numberOfTests)
+	{
+		test(generatorOfShard, numberOfTests, Runtime.getRuntime().availableProcessors());
+	}
+
+	public static void test(IntFunction<RandomGenerator> generatorOfShard, long numberOfTests, int numberOfShards)
+	{
+		if(numberOfShards < 1)
+			throw new IllegalArgumentException("Error: The number of shards has to be 1 or more");
+		long start = System.nanoTime();
+		RandomGenerator pilotGenerator = generatorOfShard.apply(numberOfShards);
+		double[] range = pilot(pilotGenerator, numberOfTests);
+		int bins = bins(numberOfTests);
+		ExecutorService pool = Executors.newFixedThreadPool(numberOfShards);
+		try {
+			ArrayList<Future<Shard>> futures = new ArrayList<>();
+			for (int i = 0; i < numberOfShards; i++) {
+				RandomGenerator rg = generatorOfShard.apply(i);
+				long samples = numberOfTests / numberOfShards + (i < numberOfTests % numberOfShards ? 1 : 0);
+				futures.add(pool.submit(() -> runShard(rg, samples, range, bins)));
+			}
+			Shard result = futures.get(0).get();
+			for (int i = 1; i < numberOfShards; i++)
+				result.merge(futures.get(i).get());
+			report(pilotGenerator, result, range, System.nanoTime() - start);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Error: A shard of the test failed", e.getCause());
+		} finally {
+			pool.shutdown();
 		}
-		testMean /= numberOfTests;
+	}
 
-		System.out.println(
-				"Mean to be tested : " + Double.toString(rg.getMean()) + ", Measured Mean : " + Double.toString(testMean));
-		generateHistogram(numberOfTests, generatedList, min, max);	
-	}
-	
-	private static void generateHistogram(int sampleSize, ArrayList<Double> samples, double min, double max)
-	{
-		int histogramSize = (int)Math.sqrt(sampleSize);
-		double histogramIntervalWidth = (max-min)/histogramSize;
-		
-		
-		Histogram graphical = new Histogram(histogramSize);
-		for (double value:samples) {
-			if(value < max)
-				graphical.addDataPoint((int)((value-min-Math.ulp(value))/histogramIntervalWidth));
+	//the range of the histogram and a rough mean from a first small sample (its draws are not part of the test)
+	private static double[] pilot(RandomGenerator rg, long numberOfTests)
+	{
+		if(numberOfTests < 1)
+			throw new IllegalArgumentException("Error: The number of tests has to be 1 or more");
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+		double sum = 0;
+		for (int i = 0; i < PILOT_SAMPLES; i++) {
+			double value = rg.generate();
+			min = Math.min(min, value);
+			max = Math.max(max, value);
+			sum += value;
+		}
+		if(max == min) //a constant, give it a bin of its own
+			max = min + Math.max(Math.abs(min), 1) * 1e-9;
+		double margin = (max - min) / (bins(numberOfTests) - 1); //half a bin on each side, the pilot misses the extremes
+		if(bins(numberOfTests) == 1)
+			margin = 0;
+		return new double[] {min - margin / 2, max + margin / 2, sum / PILOT_SAMPLES};
+	}
+
+	private static int bins(long numberOfTests)
+	{
+		return (int)Math.max(1, Math.min(Math.sqrt(numberOfTests), MAX_BINS));
+	}
+
+	private static Shard runShard(RandomGenerator rg, long samples, double[] range, int bins)
+	{
+		Shard shard = new Shard();
+		shard.histogram = new Histogram(bins);
+		double min = range[0];
+		double max = range[1];
+		double scale = bins / (max - min);
+		double shift = range[2]; //sums of the deviations from a value close to the mean don't cancel out
+		double sum = 0;
+		double sumSquares = 0;
+		double smallest = Double.POSITIVE_INFINITY;
+		double largest = Double.NEGATIVE_INFINITY;
+		for (long i = 0; i < samples; i++) {
+			double value = rg.generate();
+			double deviation = value - shift;
+			sum += deviation;
+			sumSquares += deviation * deviation;
+			if(value < smallest)
+				smallest = value;
+			if(value > largest)
+				largest = value;
+			if(value < min) {
+				shard.below++;
+			} else if(value > max) {
+				shard.above++;
+			} else {
+				int bin = (int)((value - min) * scale);
+				shard.histogram.addDataPoint(bin < bins ? bin : bins - 1); //the maximum goes to the last bin
+			}
 		}
+		shard.count = samples;
+		if(samples > 0) {
+			shard.mean = shift + sum / samples;
+			shard.m2 = Math.max(sumSquares - sum * sum / samples, 0);
+		}
+		shard.min = smallest;
+		shard.max = largest;
+		return shard;
+	}
+
+	private static void report(RandomGenerator rg, Shard result, double[] range, long nanos)
+	{
+		double variance = result.count > 1 ? result.m2 / (result.count - 1) : 0;
+		System.out.println(
+				"Mean to be tested : " + Double.toString(rg.getMean()) + ", Measured Mean : " + Double.toString(result.mean));
+		System.out.println(
+				"Variance to be tested : " + Double.toString(rg.getVariance()) + ", Measured Variance : " + Double.toString(variance));
+		System.out.println("Samples: " + result.count + ", min: " + result.min + ", max: " + result.max);
+		System.out.println("Histogram range: [" + range[0] + ", " + range[1] + "], " + result.below + " samples below it, "
+				+ result.above + " above it");
+		System.out.println(String.format("Time: %.3f s (%.0f samples/s)", nanos / 1e9, result.count / (nanos / 1e9)));
 		StdDraw.setCanvasSize(500, 400);
-        graphical.draw();
+		result.histogram.draw();
 	}
 }
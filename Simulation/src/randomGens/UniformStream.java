@@ -0,0 +1,61 @@
+package randomGens;
+
+import java.util.Random;
+
+//a seedable stream of U(0,1) numbers (exclusive of 0 and 1)
+//an antithetic stream returns 1-U where the normal stream with the same seed returns U
+public class UniformStream {
+
+	private Random random;
+	private long seed;
+	private boolean antithetic;
+
+	public UniformStream(long seed) {
+		this(seed, false);
+	}
+
+	public UniformStream(long seed, boolean antithetic) {
+		this.seed = seed;
+		this.antithetic = antithetic;
+		this.random = new Random(seed);
+	}
+
+	public double generate() {
+		double r;
+		do {
+			r = nextUniform();
+		} while (r == 0.0 || r == 1.0);
+		return antithetic ? 1 - r : r;
+	}
+
+	//the raw U[0,1) source of the stream
+	protected double nextUniform() {
+		return random.nextDouble();
+	}
+
+	//restarts the stream from its seed
+	public void reset() {
+		random.setSeed(seed);
+	}
+
+	//a new stream that replays this stream mirrored (U becomes 1-U)
+	public UniformStream mirror() {
+		return new UniformStream(seed, !antithetic);
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public boolean isAntithetic() {
+		return antithetic;
+	}
+
+	//scrambles a seed so that consecutive seeds give unrelated streams (SplitMix64 finalizer)
+	public static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+}
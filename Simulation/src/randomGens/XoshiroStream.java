@@ -0,0 +1,113 @@
+package randomGens;
+
+//a U(0,1) stream from the xoshiro256** generator (period 2^256 - 1), which can jump ahead:
+//jump() skips 2^128 numbers and longJump() skips 2^192, so streams made by jumping from one seed never overlap
+//(a replication would need more than 2^128 numbers to run into the next one)
+public class XoshiroStream extends UniformStream {
+
+	//jump polynomials of the generator (Blackman and Vigna)
+	private static final long[] JUMP = {0x180ec6d33cfd0abaL, 0xd5a61266f0c9392cL, 0xa9582618e03fc9aaL,
+			0x39abdc4529b1661cL};
+	private static final long[] LONG_JUMP = {0x76e15d3efefdcbbfL, 0xc5004e441c522fb3L, 0x77710069854ee241L,
+			0x39109bb02acbe635L};
+
+	private long s0, s1, s2, s3; //current state
+	private long[] start; //state the stream restarts from
+
+	public XoshiroStream(long seed) {
+		this(seed, false);
+	}
+
+	//the state is filled from the seed with SplitMix64, as the authors recommend, so it is never all zero
+	public XoshiroStream(long seed, boolean antithetic) {
+		super(seed, antithetic);
+		long x = seed;
+		s0 = mix(x += 0x9e3779b97f4a7c15L);
+		s1 = mix(x += 0x9e3779b97f4a7c15L);
+		s2 = mix(x += 0x9e3779b97f4a7c15L);
+		s3 = mix(x + 0x9e3779b97f4a7c15L);
+		start = state();
+	}
+
+	//a stream that starts where the other one is now
+	private XoshiroStream(XoshiroStream other, boolean antithetic) {
+		super(other.getSeed(), antithetic);
+		s0 = other.s0;
+		s1 = other.s1;
+		s2 = other.s2;
+		s3 = other.s3;
+		start = state();
+	}
+
+	public long nextLong() {
+		long result = Long.rotateLeft(s1 * 5, 7) * 9;
+		long t = s1 << 17;
+		s2 ^= s0;
+		s3 ^= s1;
+		s1 ^= s2;
+		s0 ^= s3;
+		s2 ^= t;
+		s3 = Long.rotateLeft(s3, 45);
+		return result;
+	}
+
+	//the top 53 bits, a multiple of 2^-53 in [0,1)
+	@Override
+	protected double nextUniform() {
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+
+	//moves the stream 2^128 numbers ahead, the restart point stays where it was
+	public void jump() {
+		jump(JUMP);
+	}
+
+	//moves the stream 2^192 numbers ahead, the restart point stays where it was
+	public void longJump() {
+		jump(LONG_JUMP);
+	}
+
+	private void jump(long[] polynomial) {
+		long t0 = 0, t1 = 0, t2 = 0, t3 = 0;
+		for (long word : polynomial)
+			for (int b = 0; b < 64; b++) {
+				if((word & (1L << b)) != 0) {
+					t0 ^= s0;
+					t1 ^= s1;
+					t2 ^= s2;
+					t3 ^= s3;
+				}
+				nextLong();
+			}
+		s0 = t0;
+		s1 = t1;
+		s2 = t2;
+		s3 = t3;
+	}
+
+	//a new stream starting at the current position of this one (this stream is not moved)
+	public XoshiroStream copy() {
+		return new XoshiroStream(this, isAntithetic());
+	}
+
+	@Override
+	public void reset() {
+		s0 = start[0];
+		s1 = start[1];
+		s2 = start[2];
+		s3 = start[3];
+	}
+
+	@Override
+	public UniformStream mirror() {
+		XoshiroStream mirrored = new XoshiroStream(this, !isAntithetic());
+		mirrored.start = start.clone();
+		mirrored.reset();
+		return mirrored;
+	}
+
+	private long[] state() {
+		return new long[] {s0, s1, s2, s3};
+	}
+
+}
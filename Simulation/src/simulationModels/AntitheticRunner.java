@@ -0,0 +1,165 @@
+package simulationModels;
+
+import auxMath.Quantiles;
+import randomGens.ReplicationStreams;
+import randomGens.UniformStream;
+
+//runs pairs of replications where the second one of each pair uses the mirrored (1-U) streams of the first,
+//and compares the paired estimator with the same number of independent replications
+public class AntitheticRunner {
+
+	public static final int WAITING_TIME = 0;
+	public static final int DROPPING_PROBABILITY = 1;
+	public static final int MEAN_QUEUE_LENGTH = 2;
+	private static final String[] NAMES = {"Average Waiting Time", "Dropping Probability", "Mean Queue Length"};
+
+	private Simulation model; //an MMCL or an MMCLBreakdown
+	private double[] parameters; //the arguments of the model's startSimulation
+	private int pairs;
+	private long seed;
+	private double confidenceLevel;
+	private double targetRelativePrecision; //relative CI half width we want to reach
+	private double[][] pairedObservations; //pairedObservations[pair][quantity], the average of the pair
+	private double[][] independentObservations; //independentObservations[replication][quantity], 2*pairs of them
+	private long antitheticEvents;
+	private long independentEvents;
+
+	public AntitheticRunner(MMCL mmcl, double meanInterArrivalTime, double meanServiceTime, int pairs) {
+		this((Simulation)mmcl, new double[] {meanInterArrivalTime, meanServiceTime}, pairs);
+	}
+
+	public AntitheticRunner(MMCLBreakdown mmclBreakdown, double meanInterArrivalTime, double meanServiceTime,
+			double meanTimeBetweenFailures, double meanTimeToRepair, int pairs) {
+		this((Simulation)mmclBreakdown, new double[] {meanInterArrivalTime, meanServiceTime, meanTimeBetweenFailures,
+				meanTimeToRepair}, pairs);
+	}
+
+	private AntitheticRunner(Simulation model, double[] parameters, int pairs) {
+		if(pairs < 2)
+			throw new IllegalArgumentException("Error: At least 2 pairs of replications are needed");
+		this.model = model;
+		this.parameters = parameters;
+		this.pairs = pairs;
+		this.seed = System.nanoTime();
+		this.confidenceLevel = 0.95;
+		this.targetRelativePrecision = 0.01;
+	}
+
+	public void run() {
+		pairedObservations = new double[pairs][NAMES.length];
+		independentObservations = new double[2*pairs][NAMES.length];
+		antitheticEvents = 0;
+		independentEvents = 0;
+		//every replication gets its own jump-ahead streams, so no two of them can overlap
+		ReplicationStreams family = new ReplicationStreams(seed, Simulation.NUMBER_OF_STREAMS);
+		for (int i = 0; i < pairs; i++) {
+			UniformStream[] streams = family.next();
+			double[] first = runReplication(streams);
+			antitheticEvents += model.getNumberOfEvents();
+			double[] second = runReplication(ReplicationStreams.mirror(streams));
+			antitheticEvents += model.getNumberOfEvents();
+			for (int q = 0; q < NAMES.length; q++)
+				pairedObservations[i][q] = (first[q] + second[q]) / 2;
+		}
+		//the baseline uses streams that the antithetic pairs never used
+		for (int i = 0; i < 2*pairs; i++) {
+			independentObservations[i] = runReplication(family.next());
+			independentEvents += model.getNumberOfEvents();
+		}
+		model.clearStreams();
+	}
+
+	private double[] runReplication(UniformStream[] streams) {
+		model.setStreams(streams);
+		if(model instanceof MMCL)
+			((MMCL)model).startSimulation(parameters[0], parameters[1]);
+		else
+			((MMCLBreakdown)model).startSimulation(parameters[0], parameters[1], parameters[2], parameters[3]);
+		return new double[] {model.getAverageWaitingTime(), model.getDroppingProbability(), model.getMeanQueueLength()};
+	}
+
+	//{mean, sample variance} of a column
+	private static double[] meanAndVariance(double[][] observations, int quantity) {
+		double mean = 0;
+		for (double[] row : observations)
+			mean += row[quantity];
+		mean /= observations.length;
+		double sumSquares = 0;
+		for (double[] row : observations)
+			sumSquares += (row[quantity] - mean) * (row[quantity] - mean);
+		return new double[] {mean, sumSquares / (observations.length - 1)};
+	}
+
+	//ratio of the work the independent replications need to reach the target precision to the work the pairs need
+	public double getSpeedup(int quantity) {
+		double independentVariance = meanAndVariance(independentObservations, quantity)[1];
+		double pairedVariance = meanAndVariance(pairedObservations, quantity)[1];
+		//a pair costs two replications
+		return independentVariance / (2 * pairedVariance);
+	}
+
+	//number of replications needed for the CI half width to be targetRelativePrecision of the mean
+	private double replicationsNeeded(double mean, double variance) {
+		double z = Quantiles.normal(1 - (1 - confidenceLevel)/2);
+		return Math.ceil(variance * (z / (targetRelativePrecision * mean)) * (z / (targetRelativePrecision * mean)));
+	}
+
+	public void showResults() {
+		System.out.println("---------------- Antithetic Variates Results ----------------\n");
+		System.out.println("Antithetic Pairs: " + pairs + " (" + antitheticEvents + " events)");
+		System.out.println("Independent Replications: " + 2*pairs + " (" + independentEvents + " events)");
+		System.out.println(String.format("Confidence Level: %.1f%%, Target Relative Precision: %.2f%%",
+				100*confidenceLevel, 100*targetRelativePrecision));
+		for (int q = 0; q < NAMES.length; q++) {
+			double[] paired = meanAndVariance(pairedObservations, q);
+			double[] independent = meanAndVariance(independentObservations, q);
+			System.out.println("\n" + NAMES[q] + ":");
+			System.out.println(String.format("\tAntithetic Estimate: %.6f +/- %.6f", paired[0],
+					Quantiles.halfWidth(paired[1], pairs, confidenceLevel)));
+			System.out.println(String.format("\tIndependent Estimate: %.6f +/- %.6f", independent[0],
+					Quantiles.halfWidth(independent[1], 2*pairs, confidenceLevel)));
+			if(independent[1] == 0 || paired[1] == 0) {
+				System.out.println("\tNo variability observed, no speedup to report");
+				continue;
+			}
+			double pairsNeeded = replicationsNeeded(paired[0], paired[1]);
+			double independentNeeded = replicationsNeeded(independent[0], independent[1]);
+			System.out.println(String.format("\tReplications Needed for the Target Precision: %.0f antithetic (%.0f pairs), %.0f independent",
+					2*pairsNeeded, pairsNeeded, independentNeeded));
+			System.out.println(String.format("\tSpeedup: %.4f", getSpeedup(q)));
+		}
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	public double getConfidenceLevel() {
+		return confidenceLevel;
+	}
+
+	public void setConfidenceLevel(double confidenceLevel) {
+		this.confidenceLevel = confidenceLevel;
+	}
+
+	public double getTargetRelativePrecision() {
+		return targetRelativePrecision;
+	}
+
+	public void setTargetRelativePrecision(double targetRelativePrecision) {
+		this.targetRelativePrecision = targetRelativePrecision;
+	}
+
+	public double[][] getPairedObservations() {
+		return pairedObservations;
+	}
+
+	public double[][] getIndependentObservations() {
+		return independentObservations;
+	}
+
+}
@@ -0,0 +1,187 @@
+package simulationModels;
+
+import auxMath.Matrix;
+import auxMath.Quantiles;
+import queues_analytical.M_M_c_L;
+
+//runs independent replications of the M/M/c/L simulation and uses observed quantities with known
+//analytical means (control variates) to reduce the variance of the estimates
+public class ControlVariateRunner {
+
+	//indices of the quantities observed in every replication
+	public static final int WAITING_TIME = 0;
+	public static final int DROPPING_PROBABILITY = 1;
+	public static final int MEAN_QUEUE_LENGTH = 2;
+	public static final int THROUGHPUT = 3;
+	public static final int SERVICE_TIME = 4; //control, known mean = mean service time
+	public static final int INTER_ARRIVAL_TIME = 5; //control, known mean = mean inter-arrival time
+	private static final String[] NAMES = {"Average Waiting Time", "Dropping Probability", "Mean Queue Length",
+			"Throughput", "Mean Service Time", "Mean Inter-arrival Time"};
+
+	private int numberOfServers;
+	private int maxLength;
+	private double meanInterArrivalTime;
+	private double meanServiceTime;
+	private int replications;
+	private double confidenceLevel;
+	private M_M_c_L theoritical;
+	private double[][] observations; //observations[replication][quantity]
+	private long totalEvents;
+
+	public ControlVariateRunner(int numberOfServers, int maxLength, double meanInterArrivalTime, double meanServiceTime,
+			int replications) {
+		if(replications < 5)
+			throw new IllegalArgumentException("Error: At least 5 replications are needed to estimate the control coefficients");
+		this.numberOfServers = numberOfServers;
+		this.maxLength = maxLength;
+		this.meanInterArrivalTime = meanInterArrivalTime;
+		this.meanServiceTime = meanServiceTime;
+		this.replications = replications;
+		this.confidenceLevel = 0.95;
+		this.theoritical = new M_M_c_L(1/meanInterArrivalTime, 1/meanServiceTime, numberOfServers, maxLength);
+	}
+
+	public void run() {
+		theoritical.calculateAll();
+		observations = new double[replications][NAMES.length];
+		totalEvents = 0;
+		MMCL mmcl = new MMCL(numberOfServers, maxLength);
+		mmcl.setJumpChain(false); //the sampled service times are needed as a control
+		for (int r = 0; r < replications; r++) {
+			mmcl.startSimulation(meanInterArrivalTime, meanServiceTime);
+			observations[r][WAITING_TIME] = mmcl.getAverageWaitingTime();
+			observations[r][DROPPING_PROBABILITY] = mmcl.getDroppingProbability();
+			observations[r][MEAN_QUEUE_LENGTH] = mmcl.getMeanQueueLength();
+			observations[r][THROUGHPUT] = mmcl.getThroughput();
+			observations[r][SERVICE_TIME] = mmcl.getObservedMeanServiceTime();
+			observations[r][INTER_ARRIVAL_TIME] = mmcl.getObservedMeanInterArrivalTime();
+			totalEvents += mmcl.getNumberOfEvents();
+		}
+	}
+
+	//the analytical mean of a control
+	public double getKnownMean(int control) {
+		switch(control) {
+			case SERVICE_TIME:
+				return meanServiceTime;
+			case INTER_ARRIVAL_TIME:
+				return meanInterArrivalTime;
+			case MEAN_QUEUE_LENGTH:
+				return theoritical.getE_n();
+			default:
+				throw new IllegalArgumentException("Quantity " + control + " has no known mean");
+		}
+	}
+
+	//the controls used for a target: the service and inter-arrival times, plus the queue length for the other targets
+	public int[] getControls(int target) {
+		if(target == MEAN_QUEUE_LENGTH)
+			return new int[] {SERVICE_TIME, INTER_ARRIVAL_TIME};
+		return new int[] {SERVICE_TIME, INTER_ARRIVAL_TIME, MEAN_QUEUE_LENGTH};
+	}
+
+	//plain replication estimate: {mean, variance of the mean, degrees of freedom}
+	public double[] crudeEstimate(int target) {
+		double mean = 0;
+		for (int r = 0; r < replications; r++)
+			mean += observations[r][target];
+		mean /= replications;
+		double sumSquares = 0;
+		for (int r = 0; r < replications; r++)
+			sumSquares += (observations[r][target] - mean) * (observations[r][target] - mean);
+		return new double[] {mean, sumSquares / (replications - 1) / replications, replications - 1};
+	}
+
+	//regresses the target on the centered controls (least squares with an intercept)
+	//the intercept is the controlled estimator: {estimate, variance of the estimate, degrees of freedom}
+	public double[] controlledEstimate(int target, int[] controls) {
+		int q = controls.length;
+		double[][] A = new double[q + 1][q + 1];
+		double[] b = new double[q + 1];
+		double[] row = new double[q + 1];
+		for (int r = 0; r < replications; r++) {
+			fillDesignRow(r, controls, row);
+			for (int i = 0; i <= q; i++) {
+				b[i] += row[i] * observations[r][target];
+				for (int j = 0; j <= q; j++)
+					A[i][j] += row[i] * row[j];
+			}
+		}
+		double[] coefficients;
+		double[][] inverse;
+		try {
+			coefficients = Matrix.solve(A, b);
+			inverse = Matrix.inverse(A);
+		} catch (ArithmeticException e) { //controls did not vary at all, nothing to gain
+			return crudeEstimate(target);
+		}
+		double residualSumSquares = 0;
+		for (int r = 0; r < replications; r++) {
+			fillDesignRow(r, controls, row);
+			double fitted = 0;
+			for (int i = 0; i <= q; i++)
+				fitted += coefficients[i] * row[i];
+			residualSumSquares += (observations[r][target] - fitted) * (observations[r][target] - fitted);
+		}
+		int degreesOfFreedom = replications - q - 1;
+		return new double[] {coefficients[0], residualSumSquares / degreesOfFreedom * inverse[0][0], degreesOfFreedom};
+	}
+
+	private void fillDesignRow(int r, int[] controls, double[] row) {
+		row[0] = 1;
+		for (int i = 0; i < controls.length; i++)
+			row[i + 1] = observations[r][controls[i]] - getKnownMean(controls[i]);
+	}
+
+	//variance reduction factor of the controlled estimator over the crude one
+	public double getVarianceReductionFactor(int target) {
+		return crudeEstimate(target)[1] / controlledEstimate(target, getControls(target))[1];
+	}
+
+	private double halfWidth(double[] estimate) {
+		return Quantiles.studentT(1 - (1 - confidenceLevel)/2, (int)estimate[2]) * Math.sqrt(estimate[1]);
+	}
+
+	public void showResults() {
+		System.out.println("---------------- Control Variates Results ----------------\n");
+		System.out.println("Replications: " + replications);
+		System.out.println("Total Number of Events: " + totalEvents);
+		System.out.println(String.format("Confidence Level: %.1f%%", 100*confidenceLevel));
+		double[] theoriticalValues = {theoritical.getE_w(), theoritical.P_i(maxLength), theoritical.getE_n(),
+				theoritical.getThroughPut()};
+		for (int target = WAITING_TIME; target <= THROUGHPUT; target++) {
+			double[] crude = crudeEstimate(target);
+			double[] controlled = controlledEstimate(target, getControls(target));
+			double varianceReduction = crude[1] / controlled[1];
+			System.out.println("\n" + NAMES[target] + ":");
+			System.out.println(String.format("\tCrude Estimate: %.6f +/- %.6f", crude[0], halfWidth(crude)));
+			System.out.println(String.format("\tControlled Estimate: %.6f +/- %.6f", controlled[0], halfWidth(controlled)));
+			System.out.println("\tTheoritical Value: " + theoriticalValues[target]);
+			System.out.print("\tControls Used:");
+			for (int control : getControls(target))
+				System.out.print(" [" + NAMES[control] + "]");
+			System.out.println();
+			System.out.println(String.format("\tVariance Reduction Factor: %.4f", varianceReduction));
+			//the CI width shrinks with the square root of the number of replications
+			System.out.println(String.format("\tEvents Needed Without Controls for the Same CI Width: %.0f",
+					varianceReduction * totalEvents));
+		}
+	}
+
+	public double[][] getObservations() {
+		return observations;
+	}
+
+	public long getTotalEvents() {
+		return totalEvents;
+	}
+
+	public double getConfidenceLevel() {
+		return confidenceLevel;
+	}
+
+	public void setConfidenceLevel(double confidenceLevel) {
+		this.confidenceLevel = confidenceLevel;
+	}
+
+}
@@ -0,0 +1,337 @@
+package simulationModels;
+
+import java.util.ArrayList;
+
+import components.EventList;
+import queues_analytical.JacksonNetworkSolver;
+import randomGens.UniformStream;
+
+//open queueing network of M/M/c/L stations: external Poisson arrivals, FIFO exponential servers and probabilistic
+//routing (a job leaving station i goes to station j with probability p_ij, and leaves the network otherwise).
+//all the stations share one future event list and only the number of jobs at each station is kept, so an event
+//costs O(log(number of pending events)) whatever the size of the network
+public class JacksonNetwork {
+
+	public static final int INFINITE_CAPACITY = JacksonNetworkSolver.INFINITE_CAPACITY;
+	//event types
+	private static final int EXTERNAL_ARRIVAL = 0;
+	private static final int DEPARTURE = 1;
+
+	private int numberOfStations;
+	private int[] servers; //c
+	private int[] capacities; //L
+	private double[] externalArrivalRates;
+	private double[] serviceRates;
+	private ArrayList<ArrayList<double[]>> routes; //routes.get(i) holds {to, probability} until the network is compiled
+	//compiled routing matrix (compressed sparse rows), cumulative probabilities for sampling
+	private int[] rowStart;
+	private int[] routeTo;
+	private double[] routeProbability;
+	private double[] cumulativeProbability;
+
+	private UniformStream stream;
+	private EventList eventList;
+	private double clock;
+	private long numberOfEvents;
+	//state and records of every station
+	private int[] jobs;
+	private double[] lastChange; //time of the last change of jobs[i]
+	private double[] jobsArea; //integral of the number of jobs over time
+	private double[] busyArea; //integral of the number of busy servers over time
+	private long[] arrivals;
+	private long[] departures;
+	private long[] drops;
+
+	public JacksonNetwork(int numberOfStations) {
+		this.numberOfStations = numberOfStations;
+		this.servers = new int[numberOfStations];
+		this.capacities = new int[numberOfStations];
+		this.externalArrivalRates = new double[numberOfStations];
+		this.serviceRates = new double[numberOfStations];
+		this.routes = new ArrayList<>();
+		for (int i = 0; i < numberOfStations; i++) {
+			routes.add(new ArrayList<double[]>());
+			servers[i] = 1;
+			capacities[i] = INFINITE_CAPACITY;
+			serviceRates[i] = 1;
+		}
+		this.stream = new UniformStream(System.nanoTime());
+	}
+
+	public void setStation(int station, int numberOfServers, int capacity, double externalArrivalRate, double serviceRate) {
+		if(numberOfServers < 1)
+			throw new IllegalArgumentException("Error: The number of servers has to be 1 or more");
+		if(capacity < numberOfServers)
+			throw new IllegalArgumentException("Error: L is not allowed to be smaller than c");
+		if(externalArrivalRate < 0 || serviceRate <= 0)
+			throw new IllegalArgumentException("Error: The rates have to be positive");
+		servers[station] = numberOfServers;
+		capacities[station] = capacity;
+		externalArrivalRates[station] = externalArrivalRate;
+		serviceRates[station] = serviceRate;
+	}
+
+	public void addRoute(int from, int to, double probability) {
+		if(probability <= 0 || probability > 1)
+			throw new IllegalArgumentException("Error: A routing probability has to be in (0, 1]");
+		routes.get(from).add(new double[] {to, probability});
+		rowStart = null; //needs compiling again
+	}
+
+	//builds the compressed sparse rows out of the added routes
+	private void compileRouting() {
+		int numberOfRoutes = 0;
+		for (ArrayList<double[]> row : routes)
+			numberOfRoutes += row.size();
+		rowStart = new int[numberOfStations + 1];
+		routeTo = new int[numberOfRoutes];
+		routeProbability = new double[numberOfRoutes];
+		cumulativeProbability = new double[numberOfRoutes];
+		int k = 0;
+		for (int i = 0; i < numberOfStations; i++) {
+			rowStart[i] = k;
+			double cumulative = 0;
+			for (double[] route : routes.get(i)) {
+				routeTo[k] = (int)route[0];
+				routeProbability[k] = route[1];
+				cumulative += route[1];
+				cumulativeProbability[k] = cumulative;
+				k++;
+			}
+			if(cumulative > 1 + 1e-9)
+				throw new IllegalArgumentException("Error: The routing probabilities out of station " + i + " add up to more than 1");
+		}
+		rowStart[numberOfStations] = k;
+	}
+
+	public void startSimulation(long maxEvents) {
+		reset();
+		for (long k = 0; k < maxEvents && !eventList.isEmpty(); k++)
+			nextEvent();
+		//close the time integrals at the final clock
+		for (int i = 0; i < numberOfStations; i++)
+			updateArea(i);
+	}
+
+	public void reset() {
+		if(rowStart == null)
+			compileRouting();
+		eventList = new EventList(2 * numberOfStations);
+		clock = 0;
+		numberOfEvents = 0;
+		jobs = new int[numberOfStations];
+		lastChange = new double[numberOfStations];
+		jobsArea = new double[numberOfStations];
+		busyArea = new double[numberOfStations];
+		arrivals = new long[numberOfStations];
+		departures = new long[numberOfStations];
+		drops = new long[numberOfStations];
+		for (int i = 0; i < numberOfStations; i++) {
+			if(externalArrivalRates[i] > 0)
+				eventList.add(exponential(externalArrivalRates[i]), EXTERNAL_ARRIVAL, i);
+		}
+	}
+
+	public void nextEvent() {
+		eventList.poll();
+		clock = eventList.getPolledTime();
+		int station = eventList.getPolledData();
+		numberOfEvents++;
+		if(eventList.getPolledType() == EXTERNAL_ARRIVAL) {
+			eventList.add(clock + exponential(externalArrivalRates[station]), EXTERNAL_ARRIVAL, station);
+			arrive(station);
+		} else {
+			updateArea(station);
+			jobs[station]--;
+			departures[station]++;
+			if(jobs[station] >= servers[station]) //a waiting job takes the server
+				eventList.add(clock + exponential(serviceRates[station]), DEPARTURE, station);
+			int next = route(station);
+			if(next >= 0)
+				arrive(next);
+		}
+	}
+
+	private void arrive(int station) {
+		arrivals[station]++;
+		if(jobs[station] >= capacities[station]) {
+			drops[station]++;
+			return;
+		}
+		updateArea(station);
+		jobs[station]++;
+		if(jobs[station] <= servers[station]) //a free server takes it right away
+			eventList.add(clock + exponential(serviceRates[station]), DEPARTURE, station);
+	}
+
+	//the next station of a job leaving the given one, -1 if it leaves the network
+	private int route(int station) {
+		int start = rowStart[station];
+		int end = rowStart[station + 1];
+		if(start == end)
+			return -1;
+		double u = stream.generate();
+		if(u >= cumulativeProbability[end - 1])
+			return -1;
+		//binary search for the first cumulative probability above u
+		int lo = start;
+		int hi = end - 1;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if(cumulativeProbability[mid] > u)
+				hi = mid;
+			else
+				lo = mid + 1;
+		}
+		return routeTo[lo];
+	}
+
+	private void updateArea(int station) {
+		double elapsed = clock - lastChange[station];
+		jobsArea[station] += jobs[station] * elapsed;
+		busyArea[station] += Math.min(jobs[station], servers[station]) * elapsed;
+		lastChange[station] = clock;
+	}
+
+	private double exponential(double rate) {
+		return -Math.log(stream.generate()) / rate;
+	}
+
+	public JacksonNetworkSolver getAnalyticalModel() {
+		if(rowStart == null)
+			compileRouting();
+		return new JacksonNetworkSolver(externalArrivalRates, serviceRates, servers, capacities, rowStart, routeTo,
+				routeProbability);
+	}
+
+	public double getMeanNumberOfJobs(int station) {
+		return jobsArea[station] / clock;
+	}
+
+	public double getUtilization(int station) {
+		return busyArea[station] / (servers[station] * clock);
+	}
+
+	public double getThroughput(int station) {
+		return departures[station] / clock;
+	}
+
+	public double getDroppingProbability(int station) {
+		return arrivals[station] == 0 ? 0 : drops[station] / (double)arrivals[station];
+	}
+
+	//mean time a job spends at a station per visit (Little's law)
+	public double getMeanResponseTime(int station) {
+		return getMeanNumberOfJobs(station) / getThroughput(station);
+	}
+
+	//calculates the simulation results, compares them with the product form solution, and then displays them
+	//stations are listed only up to maxStationsShown
+	public void calculateMetrics(int maxStationsShown) {
+		JacksonNetworkSolver theoritical = getAnalyticalModel();
+		theoritical.calculateAll();
+		System.out.println("---------------- Simulation Results ----------------\n");
+		System.out.println("Total Running Time: " + clock);
+		System.out.println("Total Number of Events: " + numberOfEvents);
+		double totalJobs = 0;
+		long totalDrops = 0;
+		for (int i = 0; i < numberOfStations; i++) {
+			totalJobs += getMeanNumberOfJobs(i);
+			totalDrops += drops[i];
+		}
+		System.out.println("Number of Dropped Jobs: " + totalDrops);
+		System.out.print("Mean Number of Jobs in the Network: " + totalJobs);
+		System.out.println(String.format(" (%.4f%%  of theortical value)", 100*totalJobs/theoritical.getTotalMeanNumberOfJobs()));
+		for (int i = 0; i < Math.min(numberOfStations, maxStationsShown); i++) {
+			System.out.println("Station " + i + " (c = " + servers[i] + "):");
+			System.out.print("\tThroughput: " + getThroughput(i));
+			System.out.println(String.format(" (%.4f%%  of theortical value)", 100*getThroughput(i)/theoritical.getThroughputs()[i]));
+			System.out.print("\tServer Utilization: " + getUtilization(i));
+			System.out.println(String.format(" (%.4f%%  of theortical value)", 100*getUtilization(i)/theoritical.getUtilizations()[i]));
+			System.out.print("\tMean Number of Jobs: " + getMeanNumberOfJobs(i));
+			System.out.println(String.format(" (%.4f%%  of theortical value)", 100*getMeanNumberOfJobs(i)/theoritical.getMeanNumberOfJobs()[i]));
+			System.out.print("\tResponse Time: " + getMeanResponseTime(i));
+			System.out.println(String.format(" (%.4f%%  of theortical value)", 100*getMeanResponseTime(i)/theoritical.getMeanResponseTimes()[i]));
+			if(capacities[i] != INFINITE_CAPACITY)
+				System.out.println("\tDropping Probability: " + getDroppingProbability(i));
+		}
+		System.out.println("\n---------------- Theoritical Results ----------------\n");
+		theoritical.viewPerformance();
+	}
+
+	//a random network for benchmarks: every station routes to routesPerStation random stations and lets a job leave
+	//with exitProbability, the service rates are set so that every server has the given utilization
+	public static JacksonNetwork randomNetwork(int numberOfStations, int numberOfServers, int routesPerStation,
+			double exitProbability, double utilization, long seed) {
+		JacksonNetwork network = new JacksonNetwork(numberOfStations);
+		network.stream = new UniformStream(seed);
+		UniformStream structure = new UniformStream(UniformStream.mix(seed));
+		double[] gamma = new double[numberOfStations];
+		for (int i = 0; i < numberOfStations; i++) {
+			gamma[i] = structure.generate();
+			for (int k = 0; k < routesPerStation; k++)
+				network.addRoute(i, (int)(structure.generate() * numberOfStations), (1 - exitProbability) / routesPerStation);
+		}
+		network.compileRouting();
+		double[] lambda = JacksonNetworkSolver.solveTrafficEquations(gamma, network.rowStart, network.routeTo,
+				network.routeProbability);
+		for (int i = 0; i < numberOfStations; i++)
+			network.setStation(i, numberOfServers, INFINITE_CAPACITY, gamma[i], lambda[i] / (numberOfServers * utilization));
+		return network;
+	}
+
+	//the network definition, shared with the parallel engine
+	int[] getServers() {
+		return servers;
+	}
+
+	int[] getCapacities() {
+		return capacities;
+	}
+
+	double[] getExternalArrivalRates() {
+		return externalArrivalRates;
+	}
+
+	double[] getServiceRates() {
+		return serviceRates;
+	}
+
+	int[] getRowStart() {
+		if(rowStart == null)
+			compileRouting();
+		return rowStart;
+	}
+
+	int[] getRouteTo() {
+		getRowStart();
+		return routeTo;
+	}
+
+	double[] getRouteProbability() {
+		getRowStart();
+		return routeProbability;
+	}
+
+	double[] getCumulativeProbability() {
+		getRowStart();
+		return cumulativeProbability;
+	}
+
+	public void setSeed(long seed) {
+		this.stream = new UniformStream(seed);
+	}
+
+	public int getNumberOfStations() {
+		return numberOfStations;
+	}
+
+	public double getClock() {
+		return clock;
+	}
+
+	public long getNumberOfEvents() {
+		return numberOfEvents;
+	}
+
+}
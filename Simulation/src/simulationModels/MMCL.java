@@ -3,11 +3,17 @@ package simulationModels;
 
 import components.Job;
 import components.Server;
+import randomGens.EmpiricalGenerator;
 import randomGens.ExponentialGenerator;
+import randomGens.RandomGenerator;
 
 public class MMCL extends Simulation {
 
 	private int maxLength;
+	private ExponentialGenerator interArrivalTimeGenerator;
+	private RandomGenerator sericeTimeGenerator;
+	private EmpiricalGenerator serviceTimeDistribution; //null means exponential service times
+	private Job nextJob; //the next job to arrive
 
 	public MMCL(int numberOfServers, int queueLength) {
 		super(numberOfServers);
@@ -20,108 +26,201 @@ public class MMCL extends Simulation {
 		this.maxLength = queueLength;
 
 	}
+	
+	//copies the state of the system (clock, jobs in the servers and the queue, next arrival) but not the records,
+	//the copy draws its future random numbers from new streams made from the seed
+	public MMCL(MMCL other, long seed) {
+		super(other.numberOfServers);
+		this.maxLength = other.maxLength;
+		for (Server server : other.servers)
+			servers.add(new Server(server));
+		for (Job job : other.queue)
+			queue.add(new Job(job));
+		this.nextJob = new Job(other.nextJob);
+		this.clock = other.clock;
+		this.jumpChain = other.jumpChain;
+		this.serviceTimeDistribution = other.serviceTimeDistribution;
+		setStreams(seed, false);
+		this.interArrivalTimeGenerator = createGenerator(other.interArrivalTimeGenerator.getMean(), ARRIVAL_STREAM);
+		this.sericeTimeGenerator = createServiceTimeGenerator(other.sericeTimeGenerator.getMean());
+	}
 
-	//for testing
-	public void showLogs() {
-		System.out.println("Showing the results : " + servedJobs.size() + "\n");
-		for (int i = 0; i < servedJobs.size(); ++i) {
-			System.out.println("Job ID : " + Integer.toString(servedJobs.get(i).getId()) + ",The waiting time is : "
-					+ Double.toString(servedJobs.get(i).getTimeInQueue()) + " arrival: "
-					+ servedJobs.get(i).getArrivalTime() + " service start, end: "
-					+ servedJobs.get(i).getServiceStartTime() + ", " + servedJobs.get(i).getServiceEndTime());
+	
+	public void startSimulation(double meanInterArrivalTime, double meanServiceTime) {
+		if(isJumpChain()) {
+			startJumpChain(meanInterArrivalTime, meanServiceTime);
+			return;
 		}
-
-		System.out.println("List of dropped jobs :" + droppedJobs.size() + "\n");
-		for (int i = 0; i < droppedJobs.size(); ++i) {
-			System.out.println("Job ID : " + Integer.toString(droppedJobs.get(i).getId()) + ",The waiting time is : "
-					+ Double.toString(droppedJobs.get(i).getTimeInQueue()) + " arrival: "
-					+ droppedJobs.get(i).getArrivalTime() + " service start, end: "
-					+ droppedJobs.get(i).getServiceStartTime() + ", " + droppedJobs.get(i).getServiceEndTime());
+		initialize(meanInterArrivalTime, meanServiceTime);
+		for (long k=0; keepRunning(k) ;k++) {
+			nextEvent();
 		}
 	}
-
 	
-	public void startSimulation(double meanInterArrivalTime, double meanServiceTime) {
+	//simulates only the number of jobs n in the system: the next transition comes after an exponential holding time
+	//with rate lambda + min(n,c)*mu, and it is an arrival with probability lambda/(lambda + min(n,c)*mu), so every
+	//transition is O(1) whatever c and L are. the waiting times come from the area under the queue length (Little)
+	public void startJumpChain(double meanInterArrivalTime, double meanServiceTime) {
 		reset();
-		ExponentialGenerator interArrivalTimeGenerator = new ExponentialGenerator(meanInterArrivalTime);
-		ExponentialGenerator sericeTimeGenerator = new ExponentialGenerator(meanServiceTime);
+		double lambda = 1/meanInterArrivalTime;
+		double mu = 1/meanServiceTime;
 		this.clock = 0;
-		double previousClock = 0;
-		int nextServerID;
-		int[] serverStatus; // holds index of first empty server and the number of empty servers
-
+		int jobs = 0;
+		for (long k=0; keepRunning(k) ;k++) {
+			int busy = Math.min(jobs, numberOfServers);
+			double totalRate = lambda + busy*mu;
+			double holdingTime = -Math.log(uniform(ARRIVAL_STREAM)) / totalRate;
+			if(clock + holdingTime > getHorizon()) { //the last period is cut at the horizon
+				recordJumpChainState(jobs, busy, 0, getHorizon() - clock);
+				clock = getHorizon();
+				continue;
+			}
+			numberOfEvents++;
+			recordJumpChainState(jobs, busy, 0, holdingTime);
+			advanceClock(holdingTime);
+			
+			if(uniform(SERVICE_STREAM) * totalRate < lambda) { //arrival
+				numberOfArrivals++;
+				lastArrivalTime = clock;
+				if(jobs >= maxLength) {
+					numberDropped++;
+				} else {
+					if(jobs >= numberOfServers) //all the servers are busy, it will wait
+						numberOfWaitingJobs++;
+					jobs++;
+				}
+			} else { //service end
+				jobs--;
+				numberServed++;
+			}
+			jumpChainJobs = jobs;
+		}
+	}
+	
+	//resets the system to empty with the first job arriving at time 0
+	public void initialize(double meanInterArrivalTime, double meanServiceTime) {
+		reset();
+		interArrivalTimeGenerator = createGenerator(meanInterArrivalTime, ARRIVAL_STREAM);
+		sericeTimeGenerator = createServiceTimeGenerator(meanServiceTime);
+		this.clock = 0;
+		
 		// System.out.println("Start Simulation Function !!!");
 		
-		Job nextJob = new Job(0.0, sericeTimeGenerator.generate());
-		double nextJobArrivalTime = 0;
+		nextJob = new Job(0.0, sericeTimeGenerator.generate());
+	}
 	
-		for (int k=0; !isInSteadyState(k) ;k++) {
+	//processes the next event (arrival or service end), returns true if it was an arrival (false if the horizon of the
+	//run came first, then the clock stops at the horizon)
+	public boolean nextEvent() {
+		double previousClock;
+		int nextServerID;
+		int[] serverStatus; // holds index of first empty server and the number of empty servers
+		double nextJobArrivalTime;
+		boolean arrival;
+		
+		/**
+		 * Need to know what is the next event and what time it is.
+		 */
+		// System.out.println("Iteration!");
+
+		nextServerID = getNextServer(); // the id of the next server going to finish, -1 if no server is busy
 			
-			/**
-			 * Need to know what is the next event and what time it is.
-			 */
-			// System.out.println("Iteration!");
-
-			nextServerID = getNextServer(); // the id of the next server going to finish, -1 if no server is busy
-				
-			nextJobArrivalTime = nextJob.getArrivalTime();
-
-			// Check the status of all servers
-			serverStatus = checkServers();
-
-			// in case all servers are empty and there is a job going to arrive
-			// in case the following server is not empty (as in case of all empty servers
-			// this condition will be satisfied)
-			// or there is more than one job with the same arrival time, so compare it with
-			// the clock time
-			if ((nextServerID == -1) || (nextJobArrivalTime <= servers.get(nextServerID).getJobBeingServed().getServiceEndTime())) {
-
-				previousClock = clock;
-				this.clock = nextJobArrivalTime; // Change the time
-				updateStateAndServerTimes(clock, previousClock);
-				
-				// Check that the maximum length is not exceeded
-				if (queue.size() + (numberOfServers - serverStatus[1]) >= maxLength) {
+		nextJobArrivalTime = nextJob.getArrivalTime();
+
+		double nextEventTime = nextServerID == -1 ? nextJobArrivalTime
+				: Math.min(nextJobArrivalTime, servers.get(nextServerID).getJobBeingServed().getServiceEndTime());
+		if(nextEventTime > getHorizon()) { //the last period is cut at the horizon, the event is left out
+			updateStateAndServerTimes(getHorizon(), clock);
+			clock = getHorizon();
+			return false;
+		}
+		numberOfEvents++;
+
+		// Check the status of all servers
+		serverStatus = checkServers();
+
+		// in case all servers are empty and there is a job going to arrive
+		// in case the following server is not empty (as in case of all empty servers
+		// this condition will be satisfied)
+		// or there is more than one job with the same arrival time, so compare it with
+		// the clock time
+		if ((nextServerID == -1) || (nextJobArrivalTime <= servers.get(nextServerID).getJobBeingServed().getServiceEndTime())) {
+
+			previousClock = clock;
+			this.clock = nextJobArrivalTime; // Change the time
+			updateStateAndServerTimes(clock, previousClock);
+			recordArrival(nextJob);
+			
+			// Check that the maximum length is not exceeded
+			if (queue.size() + (numberOfServers - serverStatus[1]) >= maxLength) {
+				if(!longRun)
 					droppedJobs.add(nextJob); // add the new job to the dropped list
-					//System.out.println("Job (dropped): " + Integer.toString(currentJobID));
-				} else {
-					queue.add(nextJob); // add the new arrived job to the queue
-					//System.out.println("Job (queue): " + Integer.toString(currentJobID));
-				}
-				
-				nextJob = new Job(clock + interArrivalTimeGenerator.generate(), sericeTimeGenerator.generate());
-				// System.out.println("Arrival");
+				recordDropped(nextJob);
+				//System.out.println("Job (dropped): " + Integer.toString(currentJobID));
+			} else {
+				queue.add(nextJob); // add the new arrived job to the queue
+				//System.out.println("Job (queue): " + Integer.toString(currentJobID));
+			}
+			
+			nextJob = new Job(clock + interArrivalTimeGenerator.generate(), sericeTimeGenerator.generate());
+			arrival = true;
+			// System.out.println("Arrival");
 
-			} else { //service end
+		} else { //service end
 
-				previousClock = clock;
-				this.clock = servers.get(nextServerID).getJobBeingServed().getServiceEndTime();
-				updateStateAndServerTimes(clock, previousClock);
+			previousClock = clock;
+			this.clock = servers.get(nextServerID).getJobBeingServed().getServiceEndTime();
+			updateStateAndServerTimes(clock, previousClock);
 
+			if(!longRun)
 				servedJobs.add(servers.get(nextServerID).getJobBeingServed());
+			recordServed(servers.get(nextServerID).getJobBeingServed());
 
-				servers.get(nextServerID).finishJob();
-				// System.out.println("Departure");
-			} 
-
-			// Push the jobs waiting in the queue to the servers if they are Idle
-			int i = 0;
-			while (queue.size() > 0 && i < servers.size()) {
-				// If the server is empty and there is a job, add the job to the server
-				if (servers.get(i).isEmptyStatus() == true) {
-					servers.get(i).addJob(queue.get(0), this.clock); // current system time
-					queue.remove(0);
-				}
-				// System.out.println("Push from the queue");
-				i++;
+			servers.get(nextServerID).finishJob();
+			arrival = false;
+			// System.out.println("Departure");
+		} 
+
+		// Push the jobs waiting in the queue to the servers if they are Idle
+		int i = 0;
+		while (queue.size() > 0 && i < servers.size()) {
+			// If the server is empty and there is a job, add the job to the server
+			if (servers.get(i).isEmptyStatus() == true) {
+				servers.get(i).addJob(queue.get(0), this.clock); // current system time
+				queue.remove(0);
 			}
-			
-                                         
+			// System.out.println("Push from the queue");
+			i++;
 		}
+		
+		return arrival;
 	}
 
 
 	
+	//exponential service times with the given mean, or the empirical distribution if one is set
+	private RandomGenerator createServiceTimeGenerator(double meanServiceTime) {
+		if(serviceTimeDistribution == null)
+			return createGenerator(meanServiceTime, SERVICE_STREAM);
+		return serviceTimeDistribution.withStream(streams == null ? null : streams[SERVICE_STREAM]);
+	}
+	
+	public EmpiricalGenerator getServiceTimeDistribution() {
+		return serviceTimeDistribution;
+	}
+	
+	//draws the service times from an empirical distribution (the mean service time given to startSimulation is then
+	//ignored), null goes back to exponential ones
+	public void setServiceTimeDistribution(EmpiricalGenerator serviceTimeDistribution) {
+		this.serviceTimeDistribution = serviceTimeDistribution;
+	}
+	
+	//the jump chain needs exponential service times, the event engine runs while an empirical distribution is set
+	@Override
+	public boolean isJumpChain() {
+		return jumpChain && serviceTimeDistribution == null;
+	}
+	
 	public int getNextServer() {
 
 		int nextServer = -1;
@@ -141,17 +240,22 @@ public class MMCL extends Simulation {
 	}
 	
 	
+	public int getMaxLength() {
+		return maxLength;
+	}
+	
 	public double getNumberOfJobsSoFar() {
-		return servedJobs.size() + droppedJobs.size();
+		return numberServed + numberDropped;
 	}
 	
 	public void calculateMetrics(queues_analytical.Queue theoritical) {
 		System.out.println("---------------- Simulation Results ----------------\n");
 		System.out.println("Total Running Time: " + clock);
-		int total =  droppedJobs.size() + servedJobs.size();
+		System.out.println("Number of Events: " + numberOfEvents + " (stopped by " + runControl.getStopReason() + ")");
+		long total =  numberDropped + numberServed;
 		System.out.println("Total Number of Jobs Encountered: " + total);
-		System.out.println("Number of Dropped Jobs: " + droppedJobs.size());
-		System.out.println("Dropping Probability: " + droppedJobs.size() / (double)total);
+		System.out.println("Number of Dropped Jobs: " + numberDropped);
+		System.out.println("Dropping Probability: " + numberDropped / (double)total);
 		super.calculateMetrics(theoritical);
 	}
 
@@ -1,16 +1,16 @@
 package simulationModels;
 
 
-import java.util.ArrayList;
-import java.util.Collections;
-
+import components.EventList;
 import components.Job;
+import components.RepairCrew;
 import components.Server;
 import randomGens.ExponentialGenerator;
 
 public class MMCLBreakdown extends Simulation {
 
 	private int maxLength;
+	private RepairCrew repairCrew; //of the last event simulation
 
 	public MMCLBreakdown(int numberOfServers, int queueLength) {
 		super(numberOfServers);
@@ -22,37 +22,20 @@ public class MMCLBreakdown extends Simulation {
 		this.maxLength = queueLength;
 	}
 
-	//just for testing
-	public void showLogs() {
-		System.out.println("Showing the results : " + servedJobs.size() + "\n");
-		for (int i = 0; i < servedJobs.size(); ++i) {
-			System.out.println("Job ID : " + Integer.toString(servedJobs.get(i).getId()) + ",The waiting time is : "
-					+ Double.toString(servedJobs.get(i).getTimeInQueue()) + " arrival: "
-					+ servedJobs.get(i).getArrivalTime() + " service start, end: "
-					+ servedJobs.get(i).getServiceStartTime() + ", " + servedJobs.get(i).getServiceEndTime());
-		}
-
-		System.out.println("List of dropped jobs :" + droppedJobs.size() + "\n");
-		for (int i = 0; i < droppedJobs.size(); ++i) {
-			System.out.println("Job ID : " + Integer.toString(droppedJobs.get(i).getId()) + ",The waiting time is : "
-					+ Double.toString(droppedJobs.get(i).getTimeInQueue()) + " arrival: "
-					+ droppedJobs.get(i).getArrivalTime() + " service start, end: "
-					+ droppedJobs.get(i).getServiceStartTime() + ", " + droppedJobs.get(i).getServiceEndTime());
-		}
-	}
-
-
 	public void startSimulation(double meanInterArrivalTime, double meanServiceTime, double meanTimeBetweenFailures,
 			double meanTimeToRepair) {
+		if(jumpChain) {
+			startJumpChain(meanInterArrivalTime, meanServiceTime, meanTimeBetweenFailures, meanTimeToRepair);
+			return;
+		}
 		reset();
-		ExponentialGenerator interArrivalTimeGenerator = new ExponentialGenerator(meanInterArrivalTime);
-		ExponentialGenerator sericeTimeGenerator = new ExponentialGenerator(meanServiceTime);
-		ExponentialGenerator timeBetweenFailuresGenerator = new ExponentialGenerator(meanTimeBetweenFailures);
-		ExponentialGenerator timeToRepairGenerator = new ExponentialGenerator(meanTimeToRepair);
+		ExponentialGenerator interArrivalTimeGenerator = createGenerator(meanInterArrivalTime, ARRIVAL_STREAM);
+		ExponentialGenerator sericeTimeGenerator = createGenerator(meanServiceTime, SERVICE_STREAM);
+		ExponentialGenerator timeBetweenFailuresGenerator = createGenerator(meanTimeBetweenFailures, FAILURE_STREAM);
+		ExponentialGenerator timeToRepairGenerator = createGenerator(meanTimeToRepair, REPAIR_STREAM);
 		this.clock = 0;
 		double previousClock = 0;
 		int nextServerID;
-		int nextServerID_repair;
 		int[] serverStatus; // holds index of first empty server and the number of empty servers
 
 
@@ -61,9 +44,12 @@ public class MMCLBreakdown extends Simulation {
 		Job nextJob = new Job(0.0, sericeTimeGenerator.generate());
 		double nextJobArrivalTime = 0;
 
-		ArrayList<Double> nextBreakdownsList = new ArrayList<>();
+		repairCrew = new RepairCrew(numberOfServers, numberOfRepairMen, repairDiscipline, timeToRepairGenerator);
+		for (int i = 0; i < numberOfServers; i++)
+			repairCrew.setPriority(i, repairPriorities[i]);
+		EventList nextBreakdowns = new EventList(numberOfServers); //next breakdown of every working server
 		for (int i = 0; i < servers.size(); i++) {
-			nextBreakdownsList.add(clock + timeBetweenFailuresGenerator.generate());
+			nextBreakdowns.add(clock + timeBetweenFailuresGenerator.generate(), 0, i);
 		}
 		double nextBreakDown; 
 		int nextBreakDownServer;
@@ -72,8 +58,7 @@ public class MMCLBreakdown extends Simulation {
 		
 		double nextRepairEnd;
 
-		for (int k=0; !isInSteadyState(k) ;k++) {
-			
+		for (long k=0; keepRunning(k) ;k++) {
 			/**
 			 * Need to know what is the next event and what time it is.
 			 */
@@ -88,19 +73,17 @@ public class MMCLBreakdown extends Simulation {
 			
 			nextJobArrivalTime = nextJob.getArrivalTime(); // The time of the next job arrival
 			
-			if (allBusyServers()) {
-				nextBreakDown = Double.POSITIVE_INFINITY;
-				nextBreakDownServer = -1;
-			} else {
-				nextBreakDown = Collections.min(nextBreakdownsList);
-				nextBreakDownServer = nextBreakdownsList.indexOf(nextBreakDown);
-			}
+			nextBreakDown = nextBreakdowns.peekTime(); //infinity if all the servers are broken
 			
-			nextServerID_repair = getNextRepair();
-			if(nextServerID_repair == -1)
-				nextRepairEnd = Double.POSITIVE_INFINITY; //no repairs pending
-			else
-				nextRepairEnd = servers.get(nextServerID_repair).getRepairedTime();
+			nextRepairEnd = repairCrew.getNextRepairTime(); //infinity if no repairs are in progress
+			
+			//the last period is cut at the horizon, the event is left out
+			if(Math.min(Math.min(nextJobArrivalTime, nextServiceEnd), Math.min(nextBreakDown, nextRepairEnd)) > getHorizon()) {
+				updateStateAndServerTimes_unreliable(getHorizon(), clock);
+				clock = getHorizon();
+				continue;
+			}
+			numberOfEvents++;
 			
 			//warning: the following booleans are not mutually exclusive, the first true one is considered (check if elses below)
 			//we are deciding which kind of event is next
@@ -126,10 +109,13 @@ public class MMCLBreakdown extends Simulation {
 				previousClock = clock;
 				this.clock = nextJobArrivalTime; // Change the time
 				updateStateAndServerTimes_unreliable(clock, previousClock); //update the records
+				recordArrival(nextJob);
 				
 				// Check that the maximum length is not exceeded
 				if (queue.size() + (numberOfServers - serverStatus[1]) >= maxLength) {
-					droppedJobs.add(nextJob); // add the new job to the dropped list
+					if(!longRun)
+						droppedJobs.add(nextJob); // add the new job to the dropped list
+					recordDropped(nextJob);
 					//System.out.println("Job (dropped): " + Integer.toString(currentJobID));
 				} else {
 					queue.add(nextJob); // add the new arrived job to the queue
@@ -145,29 +131,38 @@ public class MMCLBreakdown extends Simulation {
 				this.clock = servers.get(nextServerID).getJobBeingServed().getServiceEndTime();
 				updateStateAndServerTimes_unreliable(clock, previousClock); //update the records
 
-				servedJobs.add(servers.get(nextServerID).getJobBeingServed()); //store the finished job
+				if(!longRun)
+					servedJobs.add(servers.get(nextServerID).getJobBeingServed()); //store the finished job
+				recordServed(servers.get(nextServerID).getJobBeingServed());
 
 				servers.get(nextServerID).finishJob();  //make the server free again
 				// System.out.println("Departure");
 			} else if (repairCheck) {
 				
 				previousClock = clock;
-				this.clock = servers.get(nextServerID_repair).getRepairedTime();
+				this.clock = nextRepairEnd;
 				updateStateAndServerTimes_unreliable(clock, previousClock); //update the records
-						
-				servers.get(nextServerID_repair).repair();
-				nextBreakdownsList.set(nextServerID_repair, clock + timeBetweenFailuresGenerator.generate()); //set its next breakdown time
+				
+				numberOfRepairs++;
+				int repairedServer = repairCrew.completeRepair(); //the repairman moves on to the next broken server
+				servers.get(repairedServer).repair();
+				nextBreakdowns.add(clock + timeBetweenFailuresGenerator.generate(), 0, repairedServer); //set its next breakdown time
 				
 			} else {
 				previousClock = clock;
 				this.clock = nextBreakDown;
 				updateStateAndServerTimes_unreliable(clock, previousClock); //update the records
+				nextBreakdowns.poll();
+				numberOfFailures++;
+				nextBreakDownServer = nextBreakdowns.getPolledData();
 				
-				if(!servers.get(nextBreakDownServer).isEmptyStatus())
-					droppedJobs.add(servers.get(nextBreakDownServer).getJobBeingServed()); //drop the job being served
-				servers.get(nextBreakDownServer).breakDown(nextBreakDown, getRepairManBusyTime() + timeToRepairGenerator.generate());
-				
-				nextBreakdownsList.set(nextBreakDownServer, Double.POSITIVE_INFINITY); //we will update its next breakdown time once it's repaired
+				if(!servers.get(nextBreakDownServer).isEmptyStatus()) {
+					if(!longRun)
+						droppedJobs.add(servers.get(nextBreakDownServer).getJobBeingServed()); //drop the job being served
+					recordDropped(servers.get(nextBreakDownServer).getJobBeingServed());
+				}
+				servers.get(nextBreakDownServer).breakDown(nextBreakDown); //its next breakdown is set once it's repaired
+				repairCrew.fail(nextBreakDownServer, clock);
 					
 			}
 
@@ -175,7 +170,7 @@ public class MMCLBreakdown extends Simulation {
 			int i = 0;
 			while (queue.size() > 0 && i < servers.size()) {
 				// If the server is empty and there is a job, add the job to the server
-				if (servers.get(i).isEmptyStatus() == true && !servers.get(i).isBrokeDown(clock)) {
+				if (servers.get(i).isEmptyStatus() == true && !servers.get(i).isBroken()) {
 					servers.get(i).addJob(queue.get(0), this.clock); // current system time
 					queue.remove(0);
 				}
@@ -187,8 +182,75 @@ public class MMCLBreakdown extends Simulation {
 		}
 	}
 	
+	//simulates only the counts (jobs in the system n, broken servers b): c-b servers work and min(n, c-b) of them
+	//are busy. from (n, b) the next transition comes after an exponential holding time with the total rate of
+	//arrivals, service ends, failures of busy servers (the job is dropped), failures of idle servers and repairs
+	//(min(b, k) at a time with k repairmen), and each transition is picked with probability proportional to its rate
+	public void startJumpChain(double meanInterArrivalTime, double meanServiceTime, double meanTimeBetweenFailures,
+			double meanTimeToRepair) {
+		reset();
+		double lambda = 1/meanInterArrivalTime;
+		double mu = 1/meanServiceTime;
+		double failureRate = 1/meanTimeBetweenFailures;
+		double repairRate = 1/meanTimeToRepair;
+		this.clock = 0;
+		int jobs = 0;
+		int broken = 0;
+		for (long k=0; keepRunning(k) ;k++) {
+			int working = numberOfServers - broken;
+			int busy = Math.min(jobs, working);
+			int repairing = Math.min(broken, numberOfRepairMen);
+			double serviceRate = busy*mu;
+			double busyFailureRate = busy*failureRate;
+			double idleFailureRate = (working - busy)*failureRate;
+			double totalRate = lambda + serviceRate + busyFailureRate + idleFailureRate + repairing*repairRate;
+			double holdingTime = -Math.log(uniform(ARRIVAL_STREAM)) / totalRate;
+			if(clock + holdingTime > getHorizon()) { //the last period is cut at the horizon
+				recordJumpChainState(jobs, busy, broken, getHorizon() - clock);
+				clock = getHorizon();
+				continue;
+			}
+			numberOfEvents++;
+			recordJumpChainState(jobs, busy, broken, holdingTime);
+			advanceClock(holdingTime);
+			
+			double u = uniform(SERVICE_STREAM) * totalRate;
+			if(u < lambda) { //arrival
+				numberOfArrivals++;
+				lastArrivalTime = clock;
+				if(jobs >= maxLength) {
+					numberDropped++;
+				} else {
+					if(jobs >= working) //no free working server, it will wait
+						numberOfWaitingJobs++;
+					jobs++;
+				}
+			} else if((u -= lambda) < serviceRate) { //service end
+				jobs--;
+				numberServed++;
+			} else if((u -= serviceRate) < busyFailureRate) { //a busy server breaks down and drops its job
+				jobs--;
+				broken++;
+				numberDropped++;
+				numberOfFailures++;
+			} else if((u -= busyFailureRate) < idleFailureRate) { //an idle server breaks down
+				broken++;
+				numberOfFailures++;
+			} else { //repair
+				broken--;
+				numberOfRepairs++;
+			}
+			jumpChainJobs = jobs;
+			jumpChainBroken = broken;
+		}
+	}
+	
+	public RepairCrew getRepairCrew() {
+		return repairCrew;
+	}
+	
 	public double getNumberOfJobsSoFar() {
-		return servedJobs.size() + droppedJobs.size();
+		return numberServed + numberDropped;
 	}
 
 }
@@ -0,0 +1,232 @@
+package simulationModels;
+
+import java.util.ArrayList;
+
+import auxMath.Quantiles;
+import monitoring.FlightRecorderProbe;
+
+//fixed-effort multilevel splitting estimator of the dropping probability of an M/M/c/L system.
+//the system regenerates every time it gets empty, and the drops of a cycle only happen after the number of jobs
+//in the system climbs through the levels l_1 < l_2 < ... < l_m = L, so
+//	E[drops per cycle] = P(reach l_1) * P(l_1 -> l_2 before empty) * ... * E[drops after reaching L before empty]
+//and by the renewal reward theorem the dropping probability is E[drops per cycle] / E[arrivals per cycle].
+//every conditional probability is estimated by a fixed number of trajectories started from clones of the
+//states in which the previous level was entered.
+public class MMCLSplitting {
+
+	private int numberOfServers;
+	private int maxLength;
+	private double meanInterArrivalTime;
+	private double meanServiceTime;
+	private int[] levels; //increasing queue length thresholds, the last one is L
+	private int cycles; //plain regenerative cycles of the first stage
+	private int effort; //trajectories started at each level
+	private long seed;
+	private FlightRecorderProbe flightRecorder; //JFR events of the stages
+	private double confidenceLevel;
+	private int replications; //independent runs of the whole estimator, their spread gives the CI
+
+	private double[] levelProbabilities; //levelProbabilities[i] = P(reach levels[i] | reached levels[i-1]), averaged over the runs
+	private double meanArrivalsPerCycle;
+	private double meanDropsAfterFull;
+	private double[] estimates; //dropping probability of each run
+	private double droppingProbability;
+	private double relativeError; //standard error of the estimate over the estimate
+	private long totalEvents;
+	private double runningTime; //seconds
+
+	public MMCLSplitting(int numberOfServers, int maxLength, double meanInterArrivalTime, double meanServiceTime,
+			int[] levels, int cycles, int effort) {
+		if(levels.length == 0 || levels[levels.length - 1] != maxLength)
+			throw new IllegalArgumentException("Error: The last level has to be L");
+		for (int i = 0; i < levels.length; i++) {
+			if(levels[i] < 1 || (i > 0 && levels[i] <= levels[i-1]))
+				throw new IllegalArgumentException("Error: The levels have to be positive and increasing");
+		}
+		this.numberOfServers = numberOfServers;
+		this.maxLength = maxLength;
+		this.meanInterArrivalTime = meanInterArrivalTime;
+		this.meanServiceTime = meanServiceTime;
+		this.levels = levels;
+		this.cycles = cycles;
+		this.effort = effort;
+		this.seed = System.nanoTime();
+		this.flightRecorder = new FlightRecorderProbe();
+		this.confidenceLevel = 0.95;
+		this.replications = 10;
+	}
+
+	//levels first, first+step, ..., always ending with L
+	public static int[] evenLevels(int first, int maxLength, int step) {
+		ArrayList<Integer> levelList = new ArrayList<>();
+		for (int level = first; level < maxLength; level += step)
+			levelList.add(level);
+		levelList.add(maxLength);
+		int[] levels = new int[levelList.size()];
+		for (int i = 0; i < levels.length; i++)
+			levels[i] = levelList.get(i);
+		return levels;
+	}
+
+	public void run() {
+		long startTime = System.nanoTime();
+		levelProbabilities = new double[levels.length];
+		meanArrivalsPerCycle = 0;
+		meanDropsAfterFull = 0;
+		estimates = new double[replications];
+		totalEvents = 0;
+		for (int r = 0; r < replications; r++)
+			estimates[r] = runOnce();
+		for (int i = 0; i < levels.length; i++)
+			levelProbabilities[i] /= replications;
+		meanArrivalsPerCycle /= replications;
+		meanDropsAfterFull /= replications;
+
+		droppingProbability = 0;
+		for (double estimate : estimates)
+			droppingProbability += estimate;
+		droppingProbability /= replications;
+		double sumSquares = 0;
+		for (double estimate : estimates)
+			sumSquares += (estimate - droppingProbability) * (estimate - droppingProbability);
+		//trajectories started from the same entrance state are correlated, so the spread of independent runs
+		//is used instead of binomial errors for each level
+		relativeError = Math.sqrt(sumSquares / (replications - 1) / replications) / droppingProbability;
+		runningTime = (System.nanoTime() - startTime) / 1e9;
+	}
+
+	//one run of the estimator, adds its level probabilities and cycle records to the averages
+	private double runOnce() {
+		//first stage: plain cycles from the empty system, keeping the states in which the first level was entered
+		flightRecorder.beginSplittingStage();
+		MMCL mmcl = new MMCL(numberOfServers, maxLength);
+		mmcl.setJumpChain(false); //the states are cloned, which needs the event engine
+		mmcl.setStreams(seed++, false);
+		mmcl.initialize(meanInterArrivalTime, meanServiceTime);
+		ArrayList<MMCL> entrances = new ArrayList<>();
+		double arrivals = 0;
+		for (int k = 0; k < cycles; k++) {
+			boolean entered = false;
+			do {
+				if(mmcl.nextEvent())
+					arrivals++;
+				if(!entered && mmcl.getNumberOfJobsInSystem() >= levels[0]) {
+					entered = true;
+					entrances.add(new MMCL(mmcl, seed++));
+				}
+			} while (mmcl.getNumberOfJobsInSystem() > 0);
+			//the records are not needed, don't let them pile up
+			mmcl.getServedJobs().clear();
+			mmcl.getDroppedJobs().clear();
+		}
+		totalEvents += mmcl.getNumberOfEvents();
+		double arrivalsPerCycle = arrivals / cycles;
+		double product = entrances.size() / (double)cycles;
+		levelProbabilities[0] += product;
+		flightRecorder.endSplittingStage(0, cycles, entrances.size());
+
+		//splitting stages: fixed effort from the entrance states of each level to the next one
+		for (int i = 1; i < levels.length && !entrances.isEmpty(); i++) {
+			flightRecorder.beginSplittingStage();
+			ArrayList<MMCL> nextEntrances = new ArrayList<>();
+			for (int j = 0; j < effort; j++) {
+				MMCL trajectory = new MMCL(entrances.get(j % entrances.size()), seed++);
+				int jobs;
+				do {
+					trajectory.nextEvent();
+					jobs = trajectory.getNumberOfJobsInSystem();
+				} while (jobs > 0 && jobs < levels[i]);
+				if(jobs >= levels[i])
+					nextEntrances.add(new MMCL(trajectory, seed++));
+				totalEvents += trajectory.getNumberOfEvents();
+			}
+			levelProbabilities[i] += nextEntrances.size() / (double)effort;
+			product *= nextEntrances.size() / (double)effort;
+			entrances = nextEntrances;
+			flightRecorder.endSplittingStage(i, effort, entrances.size());
+		}
+
+		//last stage: from the full system until it gets empty again, counting the drops
+		double dropsAfterFull = 0;
+		if(!entrances.isEmpty()) {
+			flightRecorder.beginSplittingStage();
+			for (int j = 0; j < effort; j++) {
+				MMCL trajectory = new MMCL(entrances.get(j % entrances.size()), seed++);
+				do {
+					trajectory.nextEvent();
+				} while (trajectory.getNumberOfJobsInSystem() > 0);
+				dropsAfterFull += trajectory.getDroppedJobs().size();
+				totalEvents += trajectory.getNumberOfEvents();
+			}
+			dropsAfterFull /= effort;
+			flightRecorder.endSplittingStage(levels.length, effort, 0);
+		}
+		meanArrivalsPerCycle += arrivalsPerCycle;
+		meanDropsAfterFull += dropsAfterFull;
+		return product * dropsAfterFull / arrivalsPerCycle;
+	}
+
+	public void showResults() {
+		System.out.println("---------------- Splitting Results ----------------\n");
+		System.out.println("Independent Runs: " + replications);
+		System.out.println("Regenerative Cycles per Run: " + cycles + ", Trajectories per Level: " + effort);
+		System.out.println("Mean Arrivals per Cycle: " + meanArrivalsPerCycle);
+		System.out.println("Level Probabilities: ");
+		for (int i = 0; i < levels.length; i++)
+			System.out.println("\tP(reach " + levels[i] + ") = " + levelProbabilities[i]);
+		System.out.println("Mean Drops After Reaching L: " + meanDropsAfterFull);
+		System.out.println("Dropping Probability: " + droppingProbability);
+		double z = Quantiles.studentT(1 - (1 - confidenceLevel)/2, replications - 1);
+		System.out.println(String.format("Relative Error: %.4f%% (%.1f%% CI: [%e, %e])", 100*relativeError,
+				100*confidenceLevel, droppingProbability*(1 - z*relativeError), droppingProbability*(1 + z*relativeError)));
+		System.out.println("Total Number of Events: " + totalEvents);
+		System.out.println("Running Time (s): " + runningTime);
+	}
+
+	public double getDroppingProbability() {
+		return droppingProbability;
+	}
+
+	public double getRelativeError() {
+		return relativeError;
+	}
+
+	public double[] getLevelProbabilities() {
+		return levelProbabilities;
+	}
+
+	public double[] getEstimates() {
+		return estimates;
+	}
+
+	public int getReplications() {
+		return replications;
+	}
+
+	public void setReplications(int replications) {
+		if(replications < 2)
+			throw new IllegalArgumentException("Error: At least 2 runs are needed for a confidence interval");
+		this.replications = replications;
+	}
+
+	public long getTotalEvents() {
+		return totalEvents;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	public double getConfidenceLevel() {
+		return confidenceLevel;
+	}
+
+	public void setConfidenceLevel(double confidenceLevel) {
+		this.confidenceLevel = confidenceLevel;
+	}
+
+}
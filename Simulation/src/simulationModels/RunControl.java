@@ -0,0 +1,127 @@
+package simulationModels;
+
+//decides when a run stops: after a number of events, a number of served jobs, a simulated time, a wall clock budget,
+//or once the mean queue length settles (Simulation.isInSteadyState), whichever comes first.
+//by default only the steady state check is on, which is how the simulations always ran
+public class RunControl {
+
+	private static final int WALL_CLOCK_CHECK = 1024; //System.nanoTime() is only read every this many events
+
+	private long maxEvents;
+	private long maxServed;
+	private double maxTime; //simulated time
+	private long maxWallClockMillis;
+	private boolean steadyStateStop;
+	private long startNanos;
+	private String stopReason;
+
+	public RunControl() {
+		this.maxEvents = Long.MAX_VALUE;
+		this.maxServed = Long.MAX_VALUE;
+		this.maxTime = Double.POSITIVE_INFINITY;
+		this.maxWallClockMillis = Long.MAX_VALUE;
+		this.steadyStateStop = true;
+	}
+
+	//exactly n events, no steady state check
+	public static RunControl events(long n) {
+		RunControl control = new RunControl();
+		control.setMaxEvents(n);
+		control.setSteadyStateStop(false);
+		return control;
+	}
+
+	//until n jobs are served, no steady state check
+	public static RunControl served(long n) {
+		RunControl control = new RunControl();
+		control.setMaxServed(n);
+		control.setSteadyStateStop(false);
+		return control;
+	}
+
+	//up to the simulated time horizon, no steady state check. the engines cut the last period at the horizon, so the
+	//records cover exactly [0, time] and no event after it is processed
+	public static RunControl horizon(double time) {
+		RunControl control = new RunControl();
+		control.setMaxTime(time);
+		control.setSteadyStateStop(false);
+		return control;
+	}
+
+	//called before event k (k = 0 at the start of the run)
+	public boolean shouldStop(Simulation simulation, long k) {
+		if(k == 0) {
+			if(!steadyStateStop && maxEvents == Long.MAX_VALUE && maxServed == Long.MAX_VALUE
+					&& maxTime == Double.POSITIVE_INFINITY && maxWallClockMillis == Long.MAX_VALUE)
+				throw new IllegalArgumentException("Error: The run has no stop condition");
+			startNanos = System.nanoTime();
+			stopReason = null;
+		}
+		if(k >= maxEvents)
+			stopReason = "max events";
+		else if(simulation.getNumberServed() >= maxServed)
+			stopReason = "max served jobs";
+		else if(simulation.getClock() >= maxTime)
+			stopReason = "max simulated time";
+		else if(maxWallClockMillis != Long.MAX_VALUE && k % WALL_CLOCK_CHECK == 0
+				&& (System.nanoTime() - startNanos) / 1000000 >= maxWallClockMillis)
+			stopReason = "wall clock budget";
+		else if(steadyStateStop && simulation.isInSteadyState(k))
+			stopReason = "steady state";
+		return stopReason != null;
+	}
+
+	//what ended the last run, null while it is running
+	public String getStopReason() {
+		return stopReason;
+	}
+
+	public long getMaxEvents() {
+		return maxEvents;
+	}
+
+	public void setMaxEvents(long maxEvents) {
+		if(maxEvents < 0)
+			throw new IllegalArgumentException("Error: The number of events can't be negative");
+		this.maxEvents = maxEvents;
+	}
+
+	public long getMaxServed() {
+		return maxServed;
+	}
+
+	public void setMaxServed(long maxServed) {
+		if(maxServed < 0)
+			throw new IllegalArgumentException("Error: The number of served jobs can't be negative");
+		this.maxServed = maxServed;
+	}
+
+	public double getMaxTime() {
+		return maxTime;
+	}
+
+	public void setMaxTime(double maxTime) {
+		if(!(maxTime >= 0))
+			throw new IllegalArgumentException("Error: The simulated time has to be 0 or more");
+		this.maxTime = maxTime;
+	}
+
+	public long getMaxWallClockMillis() {
+		return maxWallClockMillis;
+	}
+
+	public void setMaxWallClockMillis(long maxWallClockMillis) {
+		if(maxWallClockMillis < 0)
+			throw new IllegalArgumentException("Error: The wall clock budget can't be negative");
+		this.maxWallClockMillis = maxWallClockMillis;
+	}
+
+	public boolean isSteadyStateStop() {
+		return steadyStateStop;
+	}
+
+	public void setSteadyStateStop(boolean steadyStateStop) {
+		this.steadyStateStop = steadyStateStop;
+	}
+
+}
@@ -1,10 +1,23 @@
 package simulationModels;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
+
+import auxMath.CompensatedSum;
 import components.Job;
+import components.RepairCrew;
 import components.Server;
+import draw.ConcurrentHistogram;
+import draw.StdOut;
+import monitoring.FlightRecorderProbe;
+import monitoring.LiveQueueView;
+import monitoring.SimulationMonitor;
+import monitoring.TimeSeriesRecorder;
+import randomGens.ExponentialGenerator;
+import randomGens.UniformGenerator;
+import randomGens.UniformStream;
 
 public abstract class Simulation {
 	
@@ -14,14 +27,53 @@ public abstract class Simulation {
 	protected ArrayList<Job> servedJobs;
 	protected ArrayList<Job> droppedJobs;
 	protected double clock;
-	protected HashMap<Integer, Double> stateTimes; //holds the total time spent in a certain state
+	protected double[] stateTimes; //holds the total time spent in a certain state (index = number of jobs)
+	protected double[] stateTimesCompensation; //the rounding errors of stateTimes (compensated sums)
 	protected double[] serverTimes; //holds the total busy time for a server
+	protected double[] serverTimesCompensation; //the rounding errors of serverTimes (compensated sums)
 	protected double[] serverDownTimes; //holds the total down time of a server (only used for unreliable systems)
-	protected boolean multipleRepairMen; //not used in all simulation types (only used for unreliable systems)
+	protected double[] serverDownTimesCompensation; //the rounding errors of serverDownTimes (compensated sums)
+	//the repair crew (only used for unreliable systems)
+	protected int numberOfRepairMen;
+	protected int repairDiscipline; //RepairCrew.FIFO or RepairCrew.PRIORITY
+	protected double[] repairPriorities; //per server, lower values are repaired first with RepairCrew.PRIORITY
 	protected double PMQL; //Past Mean Queue Length
 	protected double CMQL; // Current Mean Queue Length 
 	protected LinkedList<Double> MQLList; //list that will hold 20 MQL values at a time
+	protected long numberOfEvents; //number of events processed in the current run
+	protected long numberOfArrivals; //number of arrivals so far (served, dropped, or still in the system)
+	protected CompensatedSum totalArrivalsServiceTime; //sum of the service times sampled for the arrivals (has a known mean)
+	protected double lastArrivalTime;
+	//records kept by both engines, the job lists above are only filled by the event engine
+	protected long numberServed;
+	protected long numberDropped;
+	protected long numberOfWaitingJobs; //jobs that had to wait in the queue
+	protected long numberOfFailures; //server breakdowns (only used for unreliable systems)
+	protected long numberOfRepairs;
+	//time integrals, compensated so that they stay accurate over 10^11 events
+	protected CompensatedSum totalWaitingTime;
+	protected CompensatedSum jobsArea; //integral of the number of jobs in the system over time
+	protected CompensatedSum totalBusyTime; //integral of the number of busy servers over time
+	protected CompensatedSum totalDownTime; //integral of the number of broken servers over time
+	protected double clockCompensation; //rounding error of the clock when it is advanced by holding times
+	protected boolean jumpChain; //simulate the counts as a Markov jump chain instead of jobs and servers
+	protected int jumpChainJobs; //number of jobs in the system of the jump chain
+	protected int jumpChainBroken; //number of broken servers of the jump chain
+	protected RunControl runControl; //when to stop the run
+	protected boolean longRun; //the event engine doesn't keep the served and dropped jobs, memory stays O(c + L)
+	protected SimulationMonitor monitor; //null if the run isn't watched
+	protected FlightRecorderProbe flightRecorder; //JFR events of the runs
+	protected TimeSeriesRecorder timeSeries; //null if the jobs and busy servers over time are not recorded
+	protected ConcurrentHistogram waitingTimes; //null if the waiting times of the served jobs are not kept
+	protected LiveQueueView liveView; //null if the run isn't animated
 	public final double EPSILON = 0.0000001;//epsilon, the steady state cutoff. Decided on via trials.
+	//indices of the random streams, one for each kind of random quantity
+	public static final int ARRIVAL_STREAM = 0;
+	public static final int SERVICE_STREAM = 1;
+	public static final int FAILURE_STREAM = 2;
+	public static final int REPAIR_STREAM = 3;
+	public static final int NUMBER_OF_STREAMS = 4;
+	protected UniformStream[] streams; //null means all the generators share Math.random
 
 	public Simulation(int numberOfServers) {
 		
@@ -30,16 +82,43 @@ public abstract class Simulation {
 		this.servers = new ArrayList<>();
 		this.servedJobs = new ArrayList<>();
 		this.droppedJobs = new ArrayList<>();
-		this.stateTimes = new HashMap<>();
+		this.stateTimes = new double[numberOfServers + 2];
+		this.stateTimesCompensation = new double[numberOfServers + 2];
+		this.totalWaitingTime = new CompensatedSum();
+		this.jobsArea = new CompensatedSum();
+		this.totalBusyTime = new CompensatedSum();
+		this.totalDownTime = new CompensatedSum();
 		this.serverTimes = new double[numberOfServers];
+		this.serverTimesCompensation = new double[numberOfServers];
 		this.serverDownTimes = new double[numberOfServers];
-		this.multipleRepairMen = false; //a single repairman by default (only used for unreliable systems)
+		this.serverDownTimesCompensation = new double[numberOfServers];
+		this.totalArrivalsServiceTime = new CompensatedSum();
+		this.numberOfRepairMen = 1; //a single repairman by default (only used for unreliable systems)
+		this.repairDiscipline = RepairCrew.FIFO;
+		this.repairPriorities = new double[numberOfServers];
 		this.PMQL = 0;
 		this.CMQL = 0;
 		this.MQLList = new LinkedList<Double>();
+		this.jumpChain = true; //every distribution is exponential, the counts are enough
+		this.runControl = new RunControl(); //until the steady state
+		this.flightRecorder = new FlightRecorderProbe();
+	}
+	
+	//checked before every event of a run
+	protected boolean keepRunning(long k) {
+		boolean running = !runControl.shouldStop(this, k);
+		if((k & (FlightRecorderProbe.SAMPLE_INTERVAL - 1)) == 0 || !running)
+			flightRecorder.record(this, k, running);
+		if(monitor != null && (!running || k % monitor.getPublishInterval() == 0))
+			monitor.publish(this, k, running);
+		if(liveView != null && (!running || k % liveView.getPublishInterval() == 0))
+			liveView.publish(this, running);
+		if(!running)
+			timeSeries = null; //a recorder covers one run, the next run would restart its clock inside the old buckets
+		return running;
 	}
 
-	public boolean isInSteadyState(int i) {
+	public boolean isInSteadyState(long i) {
 		this.CMQL = getMeanQueueLength(); //always update the current MQL
 		if(i<=0) //skip first iteration
 			return false;
@@ -105,6 +184,52 @@ public abstract class Simulation {
 		this.servedJobs = servedJobs;
 	}
 
+	//for testing: prints the served and the dropped jobs. goes through the buffered mode of StdOut, so that millions
+	//of lines cost a write per megabyte instead of a flush per line
+	public void showLogs() {
+		boolean buffered = StdOut.isBuffered();
+		StdOut.enableBuffering();
+		printLogs();
+		if(buffered)
+			StdOut.flush();
+		else
+			StdOut.disableBuffering();
+	}
+
+	//same as the previous one, into a file. refused while StdOut is buffering into another file, which could not be
+	//reopened afterwards without losing what was written to it
+	public void showLogs(String file) {
+		if(StdOut.isBufferedToFile())
+			throw new IllegalStateException("Error: StdOut is already buffering into a file, the logs can't go to " + file);
+		boolean buffered = StdOut.isBuffered();
+		StdOut.enableBuffering(file);
+		try {
+			printLogs();
+		} finally {
+			StdOut.disableBuffering();
+			if(buffered)
+				StdOut.enableBuffering();
+		}
+	}
+
+	private void printLogs() {
+		StdOut.println("Showing the results : " + servedJobs.size() + "\n");
+		printJobs(servedJobs);
+		StdOut.println("List of dropped jobs :" + droppedJobs.size() + "\n");
+		printJobs(droppedJobs);
+	}
+
+	private static void printJobs(ArrayList<Job> jobs) {
+		StringBuilder line = new StringBuilder(160);
+		for (Job job : jobs) {
+			line.setLength(0);
+			line.append("Job ID : ").append(job.getId()).append(",The waiting time is : ").append(job.getTimeInQueue())
+					.append(" arrival: ").append(job.getArrivalTime()).append(" service start, end: ")
+					.append(job.getServiceStartTime()).append(", ").append(job.getServiceEndTime());
+			StdOut.println(line);
+		}
+	}
+
 	//returns two numbers: the index of the first free server, and the number of free servers
 	public int[] checkServers() {
 		int emptyServerIndex = -1;
@@ -123,23 +248,132 @@ public abstract class Simulation {
 		servedJobs.clear();
 		queue.clear();
 		droppedJobs.clear();
-		stateTimes.clear();
-		for(int i=0; i<serverTimes.length; i++) {
-			serverTimes[i] = 0.0;
-		}
-		for(int i=0; i<serverTimes.length; i++) {
-			serverDownTimes[i] = 0.0;
-		}
+		Arrays.fill(stateTimes, 0);
+		Arrays.fill(stateTimesCompensation, 0);
+		Arrays.fill(serverTimes, 0);
+		Arrays.fill(serverTimesCompensation, 0);
+		Arrays.fill(serverDownTimes, 0);
+		Arrays.fill(serverDownTimesCompensation, 0);
 		servers.clear();
 		for (int i = 0; i < numberOfServers; i++) {
 			servers.add(new Server());
 		}
 		this.PMQL = 0;
 		this.CMQL = 0;
+		this.MQLList.clear();
+		this.numberOfEvents = 0;
+		this.numberOfArrivals = 0;
+		this.totalArrivalsServiceTime.reset();
+		this.lastArrivalTime = 0;
+		this.numberServed = 0;
+		this.numberDropped = 0;
+		this.numberOfWaitingJobs = 0;
+		this.numberOfFailures = 0;
+		this.numberOfRepairs = 0;
+		this.totalWaitingTime.reset();
+		this.jobsArea.reset();
+		this.totalBusyTime.reset();
+		this.totalDownTime.reset();
+		this.clockCompensation = 0;
+		this.jumpChainJobs = 0;
+		this.jumpChainBroken = 0;
+	}
+	
+	//keeps the arrival records used as control variates
+	protected void recordArrival(Job job) {
+		numberOfArrivals++;
+		totalArrivalsServiceTime.add(job.getServiceTime());
+		lastArrivalTime = job.getArrivalTime();
+	}
+	
+	protected void recordServed(Job job) {
+		numberServed++;
+		totalWaitingTime.add(job.getTimeInQueue());
+		if(waitingTimes != null)
+			waitingTimes.record(job.getTimeInQueue());
+		if(job.getTimeInQueue() > 0)
+			numberOfWaitingJobs++;
+	}
+	
+	//the waiting time of a dropped job counts if it got to a server (it was dropped by a breakdown)
+	protected void recordDropped(Job job) {
+		numberDropped++;
+		if(job.getServiceStartTime() != -1) {
+			totalWaitingTime.add(job.getTimeInQueue());
+			if(job.getTimeInQueue() > 0)
+				numberOfWaitingJobs++;
+		}
+	}
+	
+	//records a period the jump chain spent in a state, the queued jobs accumulate their waiting time
+	protected void recordJumpChainState(int jobs, int busyServers, int brokenServers, double duration) {
+		addStateTime(jobs, duration);
+		jobsArea.add(jobs * duration);
+		totalBusyTime.add(busyServers * duration);
+		totalDownTime.add(brokenServers * duration);
+		totalWaitingTime.add((jobs - busyServers) * duration);
+		if(timeSeries != null)
+			timeSeries.record(clock, duration, jobs, busyServers);
+	}
+	
+	//the simulated time horizon of the run (infinity if the run isn't stopped by the simulated time). an engine whose
+	//next event comes after it records the state up to the horizon and stops the clock there, so the records cover
+	//[0, horizon] and the run stops before that event
+	protected double getHorizon() {
+		return runControl.getMaxTime();
+	}
+	
+	//the jump chain moves the clock by holding times, the rounding errors are carried over as in a compensated sum
+	protected void advanceClock(double holdingTime) {
+		double y = holdingTime - clockCompensation;
+		double t = clock + y;
+		clockCompensation = (t - clock) - y;
+		clock = t;
+	}
+	
+	protected void addStateTime(int state, double duration) {
+		if(state >= stateTimes.length) { //only grows up to L + 1
+			int length = Math.max(state + 1, 2 * stateTimes.length);
+			stateTimes = Arrays.copyOf(stateTimes, length);
+			stateTimesCompensation = Arrays.copyOf(stateTimesCompensation, length);
+		}
+		CompensatedSum.add(stateTimes, stateTimesCompensation, state, duration);
+	}
+	
+	//total time spent with the given number of jobs in the system
+	public double getStateTime(int state) {
+		return state < stateTimes.length ? stateTimes[state] + stateTimesCompensation[state] : 0;
+	}
+	
+	//total time server i spent serving a job (event engine)
+	public double getServerTime(int i) {
+		return serverTimes[i] + serverTimesCompensation[i];
+	}
+	
+	//total time server i spent broken (event engine)
+	public double getServerDownTime(int i) {
+		return serverDownTimes[i] + serverDownTimesCompensation[i];
+	}
+	
+	//the visited states and the fraction of the time spent in each of them
+	protected HashMap<Integer, Double> getStateProbabilities() {
+		HashMap<Integer, Double> stateProbabilties = new HashMap<>();
+		for (int state = 0; state < stateTimes.length; state++) {
+			if(getStateTime(state) > 0)
+				stateProbabilties.put(state, getStateTime(state)/clock);
+		}
+		return stateProbabilties;
+	}
+	
+	//U(0,1) from the given stream, or from the shared source if the streams are not set
+	protected double uniform(int streamIndex) {
+		return streams == null ? UniformGenerator.generate() : streams[streamIndex].generate();
 	}
 	
 	//gets number of jobs getting served + number of jobs in the queue
 	public int getNumberOfJobsInSystem() {
+		if(isJumpChain())
+			return jumpChainJobs;
 		int jobsBeingServed = 0;
 		for(int i=0; i<servers.size(); i++) {
 			if(!servers.get(i).isEmptyStatus())
@@ -148,19 +382,45 @@ public abstract class Simulation {
 		return jobsBeingServed + queue.size();
 	}
 	
+	//servers that are working on a job
+	public int getBusyServers() {
+		if(isJumpChain())
+			return Math.min(jumpChainJobs, numberOfServers - jumpChainBroken);
+		int busy = 0;
+		for (int i = 0; i < servers.size(); i++) {
+			if(!servers.get(i).isEmptyStatus() && !servers.get(i).isBroken())
+				busy++;
+		}
+		return busy;
+	}
+	
+	public int getBrokenServers() {
+		if(isJumpChain())
+			return jumpChainBroken;
+		int broken = 0;
+		for (int i = 0; i < servers.size(); i++) {
+			if(servers.get(i).isBroken())
+				broken++;
+		}
+		return broken;
+	}
+	
 	//updates the records of the state times and the server busy time after a given period
 	public void updateStateAndServerTimes(double clock, double previousClock) {
 		int state = getNumberOfJobsInSystem();
-		if(stateTimes.containsKey(state))
-			stateTimes.put(state, stateTimes.get(state) + clock - previousClock);
-		else
-			stateTimes.put(state, clock - previousClock);
+		addStateTime(state, clock - previousClock);
+		jobsArea.add(state * (clock - previousClock));
 		
+		int busy = 0;
 		for (int j = 0; j < servers.size(); j++) {
 			if(!servers.get(j).isEmptyStatus()) {
-				serverTimes[j] += clock - previousClock;
+				CompensatedSum.add(serverTimes, serverTimesCompensation, j, clock - previousClock);
+				totalBusyTime.add(clock - previousClock);
+				busy++;
 			}
 		}
+		if(timeSeries != null)
+			timeSeries.record(previousClock, clock - previousClock, state, busy);
 	}
 	
 	//same as the previous one, but also updates the server down times
@@ -168,8 +428,9 @@ public abstract class Simulation {
 		updateStateAndServerTimes(clock, previousClock);
 		
 		for (int j = 0; j < servers.size(); j++) {
-			if(servers.get(j).isBrokeDown(previousClock)) {
-				serverDownTimes[j] += clock - previousClock;
+			if(servers.get(j).isBroken()) {
+				CompensatedSum.add(serverDownTimes, serverDownTimesCompensation, j, clock - previousClock);
+				totalDownTime.add(clock - previousClock);
 			}
 		}
 	}
@@ -177,57 +438,184 @@ public abstract class Simulation {
 	//gets number of jobs encountered so far	
 	public abstract double getNumberOfJobsSoFar();
 	
+	//kept as a running integral so that the steady state check is O(1) per event
 	public double getMeanQueueLength() {
-		if (clock>0) {
-			double meanQueueLength = 0;
-			for (int i : stateTimes.keySet()) {
-				meanQueueLength += i*stateTimes.get(i)/clock;
-			}
-			return meanQueueLength;
-		}
+		if (clock>0)
+			return jobsArea.getSum()/clock;
 		else
 			return 0;
 	}
 	
+	//gives every kind of random quantity its own seeded stream, antithetic streams mirror the normal ones (U -> 1-U)
+	public void setStreams(long seed, boolean antithetic) {
+		streams = new UniformStream[NUMBER_OF_STREAMS];
+		for (int i = 0; i < NUMBER_OF_STREAMS; i++)
+			streams[i] = new UniformStream(UniformStream.mix(seed * NUMBER_OF_STREAMS + i), antithetic);
+	}
+	
+	//uses the given streams, one for each kind of random quantity (e.g. the substreams of a replication from
+	//ReplicationStreams, which never overlap with the other replications)
+	public void setStreams(UniformStream[] streams) {
+		if(streams.length != NUMBER_OF_STREAMS)
+			throw new IllegalArgumentException("Error: " + NUMBER_OF_STREAMS + " streams are needed");
+		this.streams = streams;
+	}
+	
+	//goes back to the unseeded Math.random source
+	public void clearStreams() {
+		streams = null;
+	}
+	
+	public UniformStream[] getStreams() {
+		return streams;
+	}
+	
+	//creates an exponential generator driven by the given stream (if the streams are set)
+	protected ExponentialGenerator createGenerator(double mean, int streamIndex) {
+		return new ExponentialGenerator(mean, streams == null ? null : streams[streamIndex]);
+	}
+	
+	public long getNumberOfEvents() {
+		return numberOfEvents;
+	}
+	
+	//average waiting time in the queue over all the jobs encountered so far
+	public double getAverageWaitingTime() {
+		return totalWaitingTime.getSum()/getNumberOfJobsSoFar();
+	}
+	
+	public double getDroppingProbability() {
+		return numberDropped / getNumberOfJobsSoFar();
+	}
+	
+	public double getThroughput() {
+		return numberServed / clock;
+	}
+	
+	//integral of the number of jobs in the system over the run so far
+	public double getJobsArea() {
+		return jobsArea.getSum();
+	}
+	
+	public long getNumberOfArrivals() {
+		return numberOfArrivals;
+	}
+	
+	public long getNumberOfFailures() {
+		return numberOfFailures;
+	}
+	
+	public long getNumberOfRepairs() {
+		return numberOfRepairs;
+	}
+	
+	public long getNumberServed() {
+		return numberServed;
+	}
+	
+	public long getNumberDropped() {
+		return numberDropped;
+	}
+	
+	public RunControl getRunControl() {
+		return runControl;
+	}
+	
+	public void setRunControl(RunControl runControl) {
+		this.runControl = runControl;
+	}
+	
+	public SimulationMonitor getMonitor() {
+		return monitor;
+	}
+	
+	//the monitor gets the counters every monitor.getPublishInterval() events and at the end of the run
+	public void setMonitor(SimulationMonitor monitor) {
+		this.monitor = monitor;
+	}
+	
+	public LiveQueueView getLiveView() {
+		return liveView;
+	}
+	
+	//the view gets a snapshot every liveView.getPublishInterval() events and at the end of the run
+	public void setLiveView(LiveQueueView liveView) {
+		this.liveView = liveView;
+	}
+	
+	public TimeSeriesRecorder getTimeSeries() {
+		return timeSeries;
+	}
+	
+	//records the jobs in the system and the busy servers over the simulated time of the next run only, the recorder is
+	//detached when that run ends (keep a reference to close it), set a new one for every run to record
+	public void setTimeSeries(TimeSeriesRecorder timeSeries) {
+		this.timeSeries = timeSeries;
+	}
+	
+	public ConcurrentHistogram getWaitingTimes() {
+		return waitingTimes;
+	}
+	
+	//the waiting times of the jobs served by the event engine are counted in the histogram, replications running in
+	//parallel can share one
+	public void setWaitingTimes(ConcurrentHistogram waitingTimes) {
+		this.waitingTimes = waitingTimes;
+	}
+	
+	public boolean isLongRun() {
+		return longRun;
+	}
+	
+	//long runs of the event engine: the served and dropped jobs are only counted, not stored in the job lists
+	public void setLongRun(boolean longRun) {
+		this.longRun = longRun;
+	}
+	
+	//true if the runs simulate the jump chain (a model may need the event engine whatever the setting)
+	public boolean isJumpChain() {
+		return jumpChain;
+	}
+	
+	//the jump chain is the default, the event engine keeps every job and server (needed for logs and job records)
+	public void setJumpChain(boolean jumpChain) {
+		this.jumpChain = jumpChain;
+	}
+	
+	//mean of the service times sampled for the arrivals, its expected value is the mean service time
+	public double getObservedMeanServiceTime() {
+		return totalArrivalsServiceTime.getSum() / numberOfArrivals;
+	}
+	
+	//mean of the observed inter-arrival times (the first job arrives at time 0)
+	public double getObservedMeanInterArrivalTime() {
+		return lastArrivalTime / (numberOfArrivals - 1);
+	}
+	
 	//calculates the simulation results, compares them with the analytical, and then displays them
 	public void calculateMetrics(queues_analytical.Queue theoritical) {
 		
 		theoritical.calculateAll();
-		double totalWaitingTime = 0;
 		double avgWaitingTime;
-		double totalWaitingTimeCustom = 0;
-		int numberOfWaitingJobs = 0;
 		double avgWaitingTimeCustom;
 		
-		System.out.println("Number of Served Jobs " + servedJobs.size());
-		
-		
-		for(Job job: servedJobs) {
-			totalWaitingTime += job.getTimeInQueue();
-			if(job.getTimeInQueue() > 0) {
-				numberOfWaitingJobs++;
-				totalWaitingTimeCustom += job.getTimeInQueue();
-			}
-		}
+		System.out.println("Number of Served Jobs " + numberServed);
 		
-		avgWaitingTime = totalWaitingTime/getNumberOfJobsSoFar();
+		avgWaitingTime = totalWaitingTime.getSum()/getNumberOfJobsSoFar();
 		System.out.print("Average Waiting Time: " + avgWaitingTime);
 		System.out.println(String.format(" (%.4f%%  of theortical value)", (100*(avgWaitingTime/theoritical.getE_w()))));
 		
-		avgWaitingTimeCustom = totalWaitingTimeCustom/numberOfWaitingJobs; //might be NaN (division by zero)
+		avgWaitingTimeCustom = totalWaitingTime.getSum()/numberOfWaitingJobs; //might be NaN (division by zero)
 		System.out.println("Average Waiting Time for those Who Wait: " + avgWaitingTimeCustom);
 		
 		System.out.println("State Probabilities: ");
-		HashMap<Integer, Double> stateProbabilties = new HashMap<>();
-		for (int state : stateTimes.keySet()) {
-			stateProbabilties.put(state, stateTimes.get(state)/clock);
-		}
+		HashMap<Integer, Double> stateProbabilties = getStateProbabilities();
 		double probabilityAllBusy = 0;
 		for (int state : stateProbabilties.keySet()) {
 			System.out.print("\tp("+state+") = " + stateProbabilties.get(state));
 			System.out.println(String.format(" (%.4f%%  of theortical value)",
 					(100*(stateProbabilties.get(state)/theoritical.P_i(state)))));
-			if(state>=servers.size())
+			if(state>=numberOfServers)
 				probabilityAllBusy += stateProbabilties.get(state);
 		}
 		System.out.println("The rest are zeros.");
@@ -243,12 +631,8 @@ public abstract class Simulation {
 		System.out.println("Utilization for the Whole System: " + utilization);
 		
 		double averageServerUtilization;
-		double tempSum = 0;
-		
-		for (double workingTime : serverTimes) 
-			tempSum += workingTime;
 		
-		averageServerUtilization = tempSum / (numberOfServers*clock);
+		averageServerUtilization = totalBusyTime.getSum() / (numberOfServers*clock);
 		System.out.print("Average Server Utilization: " + averageServerUtilization);
 		System.out.println(String.format(" (%.4f%%  of theortical value)",
 				(100*(averageServerUtilization/theoritical.getU()))));
@@ -263,7 +647,7 @@ public abstract class Simulation {
 				(100*(meanQueueLength/theoritical.getE_n()))));
 		
 		
-		double throughPut = servedJobs.size() / clock;
+		double throughPut = numberServed / clock;
 		System.out.print("Throughput: " + throughPut);
 		System.out.println(String.format(" (%.4f%%  of theortical value)",
 				(100*(throughPut/theoritical.getThroughPut()))));
@@ -279,66 +663,62 @@ public abstract class Simulation {
 	
 	//same as above but no comparison for unreliable systems
 	public void calculateMetrics_unreliable() {
+		calculateMetrics_unreliable(null);
+	}
+	
+	//same as calculateMetrics_unreliable(), each value is also compared with the numerical solution of the model
+	public void calculateMetrics_unreliable(queues_analytical.M_M_c_L_Breakdown theoritical) {
+		if(theoritical != null)
+			theoritical.calculateAll();
 		System.out.println("---------------- Simulation Results ----------------\n");
 		System.out.println("Total Running Time: " + clock);
-		int total =  droppedJobs.size() + servedJobs.size();
+		System.out.println("Number of Events: " + numberOfEvents + " (stopped by " + runControl.getStopReason() + ")");
+		long total =  numberDropped + numberServed;
 		System.out.println("Total Number of Jobs Encountered: " + total);
-		System.out.println("Number of Dropped Jobs: " + droppedJobs.size());
-		System.out.println("Dropping Probability: " + droppedJobs.size() / (double)total);
+		System.out.println("Number of Dropped Jobs: " + numberDropped);
+		System.out.print("Dropping Probability: " + numberDropped / (double)total);
+		if(theoritical != null)
+			System.out.print(String.format(" (%.4f%%  of theortical value)", 100*(numberDropped / (double)total/theoritical.getP_drop())));
+		System.out.println();
 		
-		double totalDownTimeforAll = 0;
 		double avgDownTime;
-		System.out.println("Down Times For Each Server: ");
-		for (int i = 0; i < serverDownTimes.length; i++) {
-			System.out.println("\tServer " + i + ": " + serverDownTimes[i]);
-			totalDownTimeforAll += serverDownTimes[i];
+		if(isJumpChain()) { //the jump chain only knows how many servers are down
+			System.out.println("Total Down Time (all servers): " + totalDownTime.getSum());
+		} else {
+			System.out.println("Down Times For Each Server: ");
+			for (int i = 0; i < serverDownTimes.length; i++)
+				System.out.println("\tServer " + i + ": " + getServerDownTime(i));
 		}
-		avgDownTime = totalDownTimeforAll/servers.size();
+		avgDownTime = totalDownTime.getSum()/numberOfServers;
 		System.out.println("Average Down Time For a Server: " + avgDownTime);
-		System.out.println("Probability that a Server is Down: " + avgDownTime/clock);
+		System.out.print("Probability that a Server is Down: " + avgDownTime/clock);
+		if(theoritical != null)
+			System.out.print(String.format(" (%.4f%%  of theortical value)", 100*(avgDownTime/clock/theoritical.getP_down())));
+		System.out.println();
 		
-		double totalWaitingTime = 0;
 		double avgWaitingTime;
-		double totalWaitingTimeCustom = 0;
-		int numberOfWaitingJobs = 0;
 		double avgWaitingTimeCustom;
 		
-		System.out.println("Number of Served Jobs " + servedJobs.size());
-		
+		System.out.println("Number of Served Jobs " + numberServed);
 		
-		for(Job job: servedJobs) {
-			totalWaitingTime += job.getTimeInQueue();
-			if(job.getTimeInQueue() > 0) {
-				numberOfWaitingJobs++;
-				totalWaitingTimeCustom += job.getTimeInQueue();
-			}
-		}
-		
-		for(Job job: droppedJobs) {
-			if(job.getServiceStartTime() != -1) {
-				totalWaitingTime += job.getTimeInQueue();
-				if(job.getTimeInQueue() > 0) {
-					numberOfWaitingJobs++;
-					totalWaitingTimeCustom += job.getTimeInQueue();
-				}
-			}
-		}
-		
-		avgWaitingTime = totalWaitingTime/getNumberOfJobsSoFar();
-		System.out.println("Average Waiting Time: " + avgWaitingTime);
+		avgWaitingTime = totalWaitingTime.getSum()/getNumberOfJobsSoFar();
+		System.out.print("Average Waiting Time: " + avgWaitingTime);
+		if(theoritical != null)
+			System.out.print(String.format(" (%.4f%%  of theortical value)", 100*(avgWaitingTime/theoritical.getE_w())));
+		System.out.println();
 		
-		avgWaitingTimeCustom = totalWaitingTimeCustom/numberOfWaitingJobs; //might be NaN (division by zero)
+		avgWaitingTimeCustom = totalWaitingTime.getSum()/numberOfWaitingJobs; //might be NaN (division by zero)
 		System.out.println("Average Waiting Time for those Who Wait: " + avgWaitingTimeCustom);
 		
 		System.out.println("State Probabilities: ");
-		HashMap<Integer, Double> stateProbabilties = new HashMap<>();
-		for (int state : stateTimes.keySet()) {
-			stateProbabilties.put(state, stateTimes.get(state)/clock);
-		}
+		HashMap<Integer, Double> stateProbabilties = getStateProbabilities();
 		double probabilityAllBusy = 0;
 		for (int state : stateProbabilties.keySet()) {
-			System.out.println("\tp("+state+") = " + stateProbabilties.get(state));
-			if(state>=servers.size())
+			System.out.print("\tp("+state+") = " + stateProbabilties.get(state));
+			if(theoritical != null)
+				System.out.print(String.format(" (%.4f%%  of theortical value)", 100*(stateProbabilties.get(state)/theoritical.P_i(state))));
+			System.out.println();
+			if(state>=numberOfServers)
 				probabilityAllBusy += stateProbabilties.get(state);
 		}
 		System.out.println("The rest are zeros.");
@@ -352,27 +732,39 @@ public abstract class Simulation {
 		System.out.println("Utilization for the Whole System: " + utilization);
 		
 		double averageServerUtilization;
-		double tempSum = 0;
 		
-		for (double workingTime : serverTimes) 
-			tempSum += workingTime;
-		
-		averageServerUtilization = tempSum / (numberOfServers*clock);
-		System.out.println("Average Server Utilization: " + averageServerUtilization);
+		averageServerUtilization = totalBusyTime.getSum() / (numberOfServers*clock);
+		System.out.print("Average Server Utilization: " + averageServerUtilization);
+		if(theoritical != null)
+			System.out.print(String.format(" (%.4f%%  of theortical value)", 100*(averageServerUtilization/theoritical.getU())));
+		System.out.println();
 	
 		
 		double meanQueueLength = 0;
 		for (int i : stateProbabilties.keySet()) {
 			meanQueueLength += i*stateProbabilties.get(i);
 		}
-		System.out.println("Mean Queue Length: " + meanQueueLength);
+		System.out.print("Mean Queue Length: " + meanQueueLength);
+		if(theoritical != null)
+			System.out.print(String.format(" (%.4f%%  of theortical value)", 100*(meanQueueLength/theoritical.getE_n())));
+		System.out.println();
 		
-		double throughPut = servedJobs.size() / clock;
-		System.out.println("Throughput: " + throughPut);
+		double throughPut = numberServed / clock;
+		System.out.print("Throughput: " + throughPut);
+		if(theoritical != null)
+			System.out.print(String.format(" (%.4f%%  of theortical value)", 100*(throughPut/theoritical.getThroughPut())));
+		System.out.println();
 		
 		double responseTime = meanQueueLength / throughPut;
-		System.out.println("Resonse Time: " + responseTime);
+		System.out.print("Resonse Time: " + responseTime);
+		if(theoritical != null)
+			System.out.print(String.format(" (%.4f%%  of theortical value)", 100*(responseTime/theoritical.getE_t())));
+		System.out.println();
 		
+		if(theoritical != null) {
+			System.out.println("\n---------------- Theoritical Results ----------------\n");
+			theoritical.viewPerformance();
+		}
 	}
 	
 	//gets next service end time
@@ -382,7 +774,7 @@ public abstract class Simulation {
 		double minimumTime = Double.POSITIVE_INFINITY;
 		int i = 0;
 		while (i < servers.size()) {
-			if (servers.get(i).isBrokeDown(clock) == false && servers.get(i).isEmptyStatus() == false
+			if (servers.get(i).isBroken() == false && servers.get(i).isEmptyStatus() == false
 					&& servers.get(i).getJobBeingServed().getServiceEndTime() < minimumTime) {
 				nextServer = i;
 				minimumTime = servers.get(i).getJobBeingServed().getServiceEndTime();
@@ -394,59 +786,36 @@ public abstract class Simulation {
 
 	}
 	
-	//gets next repair time
-	public int getNextRepair() {
-
-		int nextServer = -1;
-		double minimumTime = Double.POSITIVE_INFINITY;
-		int i = 0;
-		while (i < servers.size()) {
-			if (servers.get(i).isBrokeDown(clock) == true &&
-					servers.get(i).getRepairedTime() < minimumTime) {
-				nextServer = i;
-				minimumTime = servers.get(i).getRepairedTime();
-			}
-			i++;
-		}
-
-		return nextServer;
+	//one repairman for every broken server
+	public boolean isMultipleRepairMen() {
+		return numberOfRepairMen >= numberOfServers;
+	}
 
+	public void setMultipleRepairMen(boolean multipleRepairMen) {
+		this.numberOfRepairMen = multipleRepairMen ? RepairCrew.UNLIMITED : 1;
 	}
 	
-	//chooses a server randomly (if there is one available) to breakdown
-	public boolean allBusyServers() {
-		
-		for (int i = 0; i < servers.size(); i++) {
-			if (!servers.get(i).isBrokeDown(clock))
-				return false;
-		}
-		
-		return true;
+	public int getNumberOfRepairMen() {
+		return Math.min(numberOfRepairMen, numberOfServers);
+	}
+
+	public void setNumberOfRepairMen(int numberOfRepairMen) {
+		if(numberOfRepairMen < 1)
+			throw new IllegalArgumentException("Error: The number of repairmen has to be 1 or more");
+		this.numberOfRepairMen = numberOfRepairMen;
 	}
 	
-	public boolean isMultipleRepairMen() {
-		return multipleRepairMen;
+	public int getRepairDiscipline() {
+		return repairDiscipline;
 	}
 
-	public void setMultipleRepairMen(boolean multipleRepairMen) {
-		this.multipleRepairMen = multipleRepairMen;
+	public void setRepairDiscipline(int repairDiscipline) {
+		this.repairDiscipline = repairDiscipline;
 	}
 	
-	//gets the time when a repairman will be available
-	public double getRepairManBusyTime() {
-		if(isMultipleRepairMen())
-			return 0; //there is a repair man available all the time
-		double busyTime = 0; //free now
-		int i = 0;
-		while (i < servers.size()) {
-			if (servers.get(i).isBrokeDown(clock)) {
-				if(servers.get(i).getRepairedTime() - clock > busyTime)
-					busyTime = servers.get(i).getRepairedTime() - clock;
-			}
-			i++;
-		}
-		
-		return busyTime;
+	//lower values are repaired first (RepairCrew.PRIORITY discipline only)
+	public void setRepairPriority(int server, double priority) {
+		repairPriorities[server] = priority;
 	}
 
 }
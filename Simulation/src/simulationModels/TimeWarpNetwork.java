@@ -0,0 +1,546 @@
+package simulationModels;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.PriorityQueue;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CyclicBarrier;
+
+import components.Job;
+import components.Server;
+import monitoring.FlightRecorderProbe;
+import queues_analytical.JacksonNetworkSolver;
+import randomGens.UniformStream;
+
+//optimistic parallel (Time Warp) simulation of a JacksonNetwork up to a given simulated time.
+//the stations are split into partitions, one worker thread each. every partition processes its own events as fast
+//as it can, jobs moving to another partition are sent through that partition's lock-free mailbox, and a message in
+//the past of its receiver (a straggler) rolls the receiver back: the saved station states are restored and the
+//messages sent by the undone events are cancelled with anti-messages.
+//the workers meet every round to compute the global virtual time (GVT), the time no rollback can go back past,
+//and throw away (fossil collect) the saved states older than it. a partition never runs further than a window past
+//the GVT, or a thread that gets ahead of the others would mostly be rolled back.
+//every station draws from its own random stream, which is part of its saved state, so the results do not depend on
+//the number of partitions.
+public class TimeWarpNetwork {
+
+	//event types
+	private static final int EXTERNAL_ARRIVAL = 0;
+	private static final int ARRIVAL = 1; //a job coming from another station
+	private static final int DEPARTURE = 2;
+
+	private int numberOfStations;
+	private int numberOfPartitions;
+	private int[] numberOfServers;
+	private int[] capacities;
+	private double[] externalArrivalRates;
+	private double[] serviceRates;
+	private int[] rowStart;
+	private int[] routeTo;
+	private double[] cumulativeProbability;
+	private int[] partitionOf;
+	private long seed;
+	private int eventsPerRound; //optimistic events a partition processes between two GVT computations
+	private double optimismWindow; //a partition does not go further than GVT + window, which bounds rollback cascades
+
+	private Partition[] partitions;
+	private Station[] finalStations;
+	private double endTime;
+	private double gvt;
+	private double wallTime; //seconds
+	private CyclicBarrier barrier;
+
+	public TimeWarpNetwork(JacksonNetwork network, int numberOfPartitions) {
+		if(numberOfPartitions < 1)
+			throw new IllegalArgumentException("Error: The number of partitions has to be 1 or more");
+		this.numberOfStations = network.getNumberOfStations();
+		this.numberOfPartitions = Math.min(numberOfPartitions, numberOfStations);
+		this.numberOfServers = network.getServers();
+		this.capacities = network.getCapacities();
+		this.externalArrivalRates = network.getExternalArrivalRates();
+		this.serviceRates = network.getServiceRates();
+		this.rowStart = network.getRowStart();
+		this.routeTo = network.getRouteTo();
+		this.cumulativeProbability = network.getCumulativeProbability();
+		//contiguous blocks of stations
+		this.partitionOf = new int[numberOfStations];
+		for (int i = 0; i < numberOfStations; i++)
+			partitionOf[i] = (int)((long)i * this.numberOfPartitions / numberOfStations);
+		this.seed = System.nanoTime();
+		this.eventsPerRound = 20000;
+		//about 64 events of every partition: every job entering a station makes an arrival and a departure event
+		double[] arrivalRates = JacksonNetworkSolver.solveTrafficEquations(externalArrivalRates, rowStart, routeTo,
+				network.getRouteProbability());
+		double eventRate = 0;
+		for (double lambda : arrivalRates)
+			eventRate += 2 * lambda;
+		this.optimismWindow = 64 * this.numberOfPartitions / eventRate;
+	}
+
+	//an event, or a message between partitions. it belongs to its receiving partition once delivered
+	private static class Event implements Comparable<Event> {
+		double time;
+		int type;
+		int station;
+		int server; //for departures
+		Job job; //for arrivals from other stations
+		//tie breaking: events at the same time are ordered by depth (a zero delay child comes after its parent),
+		//then by their origin station and the sequence number the origin gave them, which makes the order
+		//the same whatever the partitioning
+		int depth;
+		int origin;
+		long sequence;
+		boolean processed;
+		boolean cancelled;
+		Event antiOf; //not null for an anti-message, the message it cancels
+
+		public int compareTo(Event other) {
+			if(time != other.time)
+				return time < other.time ? -1 : 1;
+			if(depth != other.depth)
+				return depth < other.depth ? -1 : 1;
+			if(origin != other.origin)
+				return origin < other.origin ? -1 : 1;
+			return Long.compare(sequence, other.sequence);
+		}
+	}
+
+	//state of a station: the Server components and a FIFO queue of Jobs, its random stream and its records
+	private static class Station {
+		Server[] servers;
+		ArrayDeque<Job> queue;
+		int jobs;
+		long random; //SplitMix64 state
+		long sequence; //numbers the events this station generates
+		long nextJob; //numbers the jobs entering the network at this station, saved and rolled back with the state
+		double lastChange;
+		double jobsArea;
+		double busyArea;
+		long arrivals;
+		long departures;
+		long drops;
+
+		Station copy() {
+			Station copy = new Station();
+			copy.servers = new Server[servers.length];
+			for (int k = 0; k < servers.length; k++)
+				copy.servers[k] = new Server(servers[k]);
+			copy.queue = new ArrayDeque<>(queue);
+			copy.jobs = jobs;
+			copy.random = random;
+			copy.sequence = sequence;
+			copy.nextJob = nextJob;
+			copy.lastChange = lastChange;
+			copy.jobsArea = jobsArea;
+			copy.busyArea = busyArea;
+			copy.arrivals = arrivals;
+			copy.departures = departures;
+			copy.drops = drops;
+			return copy;
+		}
+
+		double uniform() {
+			long z;
+			do {
+				random += 0x9e3779b97f4a7c15L;
+				z = UniformStream.mix(random) >>> 11;
+			} while (z == 0);
+			return z * 0x1.0p-53;
+		}
+
+		void updateArea(double clock) {
+			double elapsed = clock - lastChange;
+			jobsArea += jobs * elapsed;
+			busyArea += Math.min(jobs, servers.length) * elapsed;
+			lastChange = clock;
+		}
+	}
+
+	//what is needed to undo a processed event
+	private static class Processed {
+		Event event;
+		Station saved; //the station before the event
+		ArrayList<Event> generated = new ArrayList<>(2);
+	}
+
+	private class Partition implements Runnable {
+		int id;
+		Station[] stations; //indexed by the global station number, null for other partitions' stations
+		PriorityQueue<Event> pending = new PriorityQueue<>();
+		ArrayDeque<Processed> processed = new ArrayDeque<>();
+		ConcurrentLinkedQueue<Event> mailbox = new ConcurrentLinkedQueue<>();
+		Processed current; //the event being processed, collects what it generates
+		double localMinimum;
+		long processedEvents;
+		long rolledBackEvents;
+		long rollbacks;
+		long messagesSent;
+		long antiMessagesSent;
+
+		Partition(int id) {
+			this.id = id;
+			stations = new Station[numberOfStations];
+			for (int i = 0; i < numberOfStations; i++) {
+				if(partitionOf[i] != id)
+					continue;
+				Station station = new Station();
+				station.servers = new Server[numberOfServers[i]];
+				for (int k = 0; k < station.servers.length; k++)
+					station.servers[k] = new Server();
+				station.queue = new ArrayDeque<>();
+				station.random = UniformStream.mix(seed + i);
+				stations[i] = station;
+				if(externalArrivalRates[i] > 0) {
+					Event first = newEvent(station, i, 0, -1, EXTERNAL_ARRIVAL, i);
+					first.time = exponential(station, externalArrivalRates[i]);
+					first.depth = 0;
+					pending.add(first);
+				}
+			}
+		}
+
+		public void run() {
+			try {
+				while (true) {
+					processOptimistically();
+					barrier.await(); //every message sent so far is in a mailbox now
+					readMailbox();
+					Event next = peekValid();
+					localMinimum = next == null ? Double.POSITIVE_INFINITY : next.time;
+					barrier.await(); //the barrier action computes the GVT
+					fossilCollect();
+					if(gvt >= endTime)
+						break;
+				}
+			} catch (InterruptedException | BrokenBarrierException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		void processOptimistically() {
+			for (int k = 0; k < eventsPerRound; k++) {
+				if((k & 63) == 0)
+					readMailbox();
+				Event event = peekValid();
+				if(event == null || event.time >= endTime || event.time >= gvt + optimismWindow)
+					return;
+				pending.poll();
+				process(event);
+			}
+		}
+
+		//the earliest pending event that was not cancelled
+		Event peekValid() {
+			Event event = pending.peek();
+			while (event != null && event.cancelled) {
+				pending.poll();
+				event = pending.peek();
+			}
+			return event;
+		}
+
+		void readMailbox() {
+			Event message;
+			while ((message = mailbox.poll()) != null) {
+				if(message.antiOf != null) {
+					Event original = message.antiOf;
+					if(original.processed)
+						rollback(original);
+					original.cancelled = true;
+				} else {
+					Processed last = processed.peekLast();
+					if(last != null && message.compareTo(last.event) < 0)
+						rollback(message);
+					pending.add(message);
+				}
+			}
+		}
+
+		//undoes every processed event that comes after the given one (inclusive)
+		void rollback(Event straggler) {
+			rollbacks++;
+			while (!processed.isEmpty() && processed.peekLast().event.compareTo(straggler) >= 0) {
+				Processed undone = processed.pollLast();
+				stations[undone.event.station] = undone.saved;
+				for (Event generated : undone.generated) {
+					if(partitionOf[generated.station] == id) {
+						generated.cancelled = true;
+					} else {
+						Event anti = new Event();
+						anti.antiOf = generated;
+						partitions[partitionOf[generated.station]].mailbox.add(anti);
+						antiMessagesSent++;
+					}
+				}
+				undone.event.processed = false;
+				pending.add(undone.event);
+				rolledBackEvents++;
+			}
+		}
+
+		void fossilCollect() {
+			while (!processed.isEmpty() && processed.peekFirst().event.time < gvt)
+				processed.pollFirst();
+		}
+
+		void process(Event event) {
+			int s = event.station;
+			Station station = stations[s];
+			current = new Processed();
+			current.event = event;
+			current.saved = station.copy();
+			event.processed = true;
+			processed.addLast(current);
+			processedEvents++;
+			double clock = event.time;
+			switch (event.type) {
+				case EXTERNAL_ARRIVAL:
+					schedule(newEvent(station, s, clock + exponential(station, externalArrivalRates[s]), -1,
+							EXTERNAL_ARRIVAL, s), event);
+					//ids from the station's own counter: unique across partitions, the same after a rollback
+					arrive(station, s, new Job(((long)s << 40) | station.nextJob++, clock, 0), event);
+					break;
+				case ARRIVAL:
+					arrive(station, s, event.job, event);
+					break;
+				default: //departure
+					station.updateArea(clock);
+					Server server = station.servers[event.server];
+					Job finished = server.finishJob();
+					station.jobs--;
+					station.departures++;
+					if(!station.queue.isEmpty())
+						startService(station, s, event.server, station.queue.poll(), event);
+					int next = route(station, s);
+					if(next >= 0) {
+						Event transfer = newEvent(station, s, clock, -1, ARRIVAL, next);
+						transfer.job = new Job(finished.getId(), clock, 0);
+						schedule(transfer, event);
+					}
+					break;
+			}
+			current = null;
+		}
+
+		void arrive(Station station, int s, Job job, Event cause) {
+			station.arrivals++;
+			if(station.jobs >= capacities[s]) {
+				station.drops++;
+				return;
+			}
+			station.updateArea(cause.time);
+			station.jobs++;
+			for (int k = 0; k < station.servers.length; k++) {
+				if(station.servers[k].isEmptyStatus()) {
+					startService(station, s, k, job, cause);
+					return;
+				}
+			}
+			station.queue.add(job);
+		}
+
+		void startService(Station station, int s, int k, Job job, Event cause) {
+			job.setServiceTime(exponential(station, serviceRates[s]));
+			station.servers[k].addJob(job, cause.time);
+			schedule(newEvent(station, s, job.getServiceEndTime(), k, DEPARTURE, s), cause);
+		}
+
+		//sends the event to its partition (or keeps it here), remembering it so it can be cancelled on a rollback
+		void schedule(Event event, Event cause) {
+			event.depth = event.time == cause.time ? cause.depth + 1 : 0;
+			current.generated.add(event);
+			int destination = partitionOf[event.station];
+			if(destination == id) {
+				pending.add(event);
+			} else {
+				partitions[destination].mailbox.add(event);
+				messagesSent++;
+			}
+		}
+
+		Event newEvent(Station origin, int originStation, double time, int server, int type, int station) {
+			Event event = new Event();
+			event.time = time;
+			event.type = type;
+			event.station = station;
+			event.server = server;
+			event.origin = originStation;
+			event.sequence = origin.sequence++;
+			return event;
+		}
+
+		int route(Station station, int s) {
+			int start = rowStart[s];
+			int end = rowStart[s + 1];
+			if(start == end)
+				return -1;
+			double u = station.uniform();
+			if(u >= cumulativeProbability[end - 1])
+				return -1;
+			int lo = start;
+			int hi = end - 1;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if(cumulativeProbability[mid] > u)
+					hi = mid;
+				else
+					lo = mid + 1;
+			}
+			return routeTo[lo];
+		}
+
+		double exponential(Station station, double rate) {
+			return -Math.log(station.uniform()) / rate;
+		}
+	}
+
+	public void startSimulation(double endTime) {
+		this.endTime = endTime;
+		this.gvt = 0;
+		partitions = new Partition[numberOfPartitions];
+		for (int p = 0; p < numberOfPartitions; p++)
+			partitions[p] = new Partition(p);
+		barrier = new CyclicBarrier(numberOfPartitions, new Runnable() {
+			long round;
+			public void run() {
+				double minimum = Double.POSITIVE_INFINITY;
+				for (Partition partition : partitions)
+					minimum = Math.min(minimum, partition.localMinimum);
+				gvt = minimum;
+				FlightRecorderProbe.checkpoint(round, gvt);
+				round++;
+			}
+		});
+		long startTime = System.nanoTime();
+		Thread[] workers = new Thread[numberOfPartitions];
+		for (int p = 0; p < numberOfPartitions; p++) {
+			workers[p] = new Thread(partitions[p], "time-warp-" + p);
+			workers[p].start();
+		}
+		for (Thread worker : workers) {
+			try {
+				worker.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+		wallTime = (System.nanoTime() - startTime) / 1e9;
+		//every event before the end time is committed now, close the time integrals at the end time
+		finalStations = new Station[numberOfStations];
+		for (int i = 0; i < numberOfStations; i++) {
+			finalStations[i] = partitions[partitionOf[i]].stations[i];
+			finalStations[i].updateArea(endTime);
+		}
+	}
+
+	public long getCommittedEvents() {
+		long total = 0;
+		for (Partition partition : partitions)
+			total += partition.processedEvents - partition.rolledBackEvents;
+		return total;
+	}
+
+	public long getProcessedEvents() {
+		long total = 0;
+		for (Partition partition : partitions)
+			total += partition.processedEvents;
+		return total;
+	}
+
+	public long getRollbacks() {
+		long total = 0;
+		for (Partition partition : partitions)
+			total += partition.rollbacks;
+		return total;
+	}
+
+	public double getMeanNumberOfJobs(int station) {
+		return finalStations[station].jobsArea / endTime;
+	}
+
+	public double getUtilization(int station) {
+		return finalStations[station].busyArea / (numberOfServers[station] * endTime);
+	}
+
+	public double getThroughput(int station) {
+		return finalStations[station].departures / endTime;
+	}
+
+	public double getDroppingProbability(int station) {
+		Station s = finalStations[station];
+		return s.arrivals == 0 ? 0 : s.drops / (double)s.arrivals;
+	}
+
+	public double getWallTime() {
+		return wallTime;
+	}
+
+	public void showResults() {
+		System.out.println("---------------- Time Warp Results ----------------\n");
+		System.out.println("Partitions (Threads): " + numberOfPartitions);
+		System.out.println("Simulated Time: " + endTime);
+		long messages = 0;
+		long antiMessages = 0;
+		for (Partition partition : partitions) {
+			messages += partition.messagesSent;
+			antiMessages += partition.antiMessagesSent;
+		}
+		System.out.println("Committed Events: " + getCommittedEvents());
+		System.out.println("Processed Events: " + getProcessedEvents() + String.format(" (efficiency %.2f%%)",
+				100.0 * getCommittedEvents() / getProcessedEvents()));
+		System.out.println("Rollbacks: " + getRollbacks());
+		System.out.println("Messages Sent: " + messages + ", Anti-messages Sent: " + antiMessages);
+		System.out.println("Wall Time (s): " + wallTime);
+		System.out.println("Committed Events per Second: " + getCommittedEvents() / wallTime);
+		double totalJobs = 0;
+		for (int i = 0; i < numberOfStations; i++)
+			totalJobs += getMeanNumberOfJobs(i);
+		System.out.println("Mean Number of Jobs in the Network: " + totalJobs);
+	}
+
+	//runs the same network to the same time with 1 partition and with each of the given numbers of partitions,
+	//and prints the speedups over the single thread run
+	public static void benchmark(JacksonNetwork network, double endTime, int[] partitionCounts, long seed) {
+		TimeWarpNetwork sequential = new TimeWarpNetwork(network, 1);
+		sequential.setSeed(seed);
+		sequential.startSimulation(endTime);
+		System.out.println("Available Cores: " + Runtime.getRuntime().availableProcessors());
+		System.out.println(String.format("1 thread: %.3f s, %d committed events", sequential.getWallTime(),
+				sequential.getCommittedEvents()));
+		for (int partitions : partitionCounts) {
+			TimeWarpNetwork parallel = new TimeWarpNetwork(network, partitions);
+			parallel.setSeed(seed);
+			parallel.startSimulation(endTime);
+			System.out.println(String.format("%d threads: %.3f s, speedup %.2f, efficiency %.2f%%, %d rollbacks",
+					partitions, parallel.getWallTime(), sequential.getWallTime() / parallel.getWallTime(),
+					100.0 * parallel.getCommittedEvents() / parallel.getProcessedEvents(), parallel.getRollbacks()));
+		}
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public double getOptimismWindow() {
+		return optimismWindow;
+	}
+
+	public void setOptimismWindow(double optimismWindow) {
+		this.optimismWindow = optimismWindow;
+	}
+
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	public int getEventsPerRound() {
+		return eventsPerRound;
+	}
+
+	public void setEventsPerRound(int eventsPerRound) {
+		this.eventsPerRound = eventsPerRound;
+	}
+
+}